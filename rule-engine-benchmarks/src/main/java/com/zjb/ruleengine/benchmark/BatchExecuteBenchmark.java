@@ -0,0 +1,96 @@
+package com.zjb.ruleengine.benchmark;
+
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.DefaultRuleEngine;
+import com.zjb.ruleengine.core.enums.RuleSetExecutePolicyEnum;
+import com.zjb.ruleengine.core.rule.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一批上下文执行同一个规则的耗时：逐个调用{@link DefaultRuleEngine#execute(String, Context)}、
+ * 顺序批量执行{@link DefaultRuleEngine#executeBatch(String, List)}、
+ * 在ForkJoinPool中并行批量执行{@link DefaultRuleEngine#executeBatch(String, List, ForkJoinPool)}，
+ * 每次操作为整批上下文
+ *
+ * @author 赵静波
+ * @date 2026-10-18 18:13:03
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchExecuteBenchmark {
+    private static final String RULE_ID = "ruleSet";
+    private static final int RULE_COUNT = 100;
+    private static final int ATTRIBUTES = 3;
+    private static final int VALUES = 10;
+
+    @Param({"100", "10000"})
+    public int batchSize;
+
+    @Param({"ONE", "ALL"})
+    public RuleSetExecutePolicyEnum policy;
+
+    @Param("20261018")
+    public long seed;
+
+    private DefaultRuleEngine ruleEngine;
+    private List<BaseContextImpl> contexts;
+    private ForkJoinPool forkJoinPool;
+
+    @Setup
+    public void setup() {
+        final RuleGenerator generator = new RuleGenerator(seed);
+        final RuleSet ruleSet = new RuleSet(RULE_ID, generator.equalityRules(RULE_COUNT, ATTRIBUTES, VALUES));
+        ruleSet.setPolicy(policy);
+        ruleEngine = new DefaultRuleEngine();
+        ruleEngine.addRule(ruleSet);
+        contexts = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            contexts.add(generator.context(ATTRIBUTES, VALUES));
+        }
+        forkJoinPool = new ForkJoinPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public void executeLoop(Blackhole blackhole) {
+        for (BaseContextImpl context : contexts) {
+            blackhole.consume(ruleEngine.execute(RULE_ID, context));
+        }
+    }
+
+    @Benchmark
+    public void executeBatch(Blackhole blackhole) {
+        blackhole.consume(ruleEngine.executeBatch(RULE_ID, contexts));
+    }
+
+    @Benchmark
+    public void executeBatchForkJoin(Blackhole blackhole) {
+        blackhole.consume(ruleEngine.executeBatch(RULE_ID, contexts, forkJoinPool));
+    }
+}
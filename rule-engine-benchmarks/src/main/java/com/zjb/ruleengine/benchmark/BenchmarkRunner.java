@@ -0,0 +1,26 @@
+package com.zjb.ruleengine.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 在IDE中运行性能测试，默认带上gc profiler，输出每次操作的内存分配（gc.alloc.rate.norm）
+ * <p>
+ * 参数为要运行的benchmark的正则，为空时运行所有benchmark
+ *
+ * @author 赵静波
+ * @date 2026-10-18 17:20:44
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        final Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
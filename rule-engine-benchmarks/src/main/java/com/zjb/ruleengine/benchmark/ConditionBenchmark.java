@@ -0,0 +1,64 @@
+package com.zjb.ruleengine.benchmark;
+
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.enums.Symbol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个条件按运算符的执行耗时，每次执行轮流使用预先生成的上下文
+ *
+ * @author 赵静波
+ * @date 2026-10-18 17:20:44
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionBenchmark {
+    private static final int CONTEXT_SIZE = 1024;
+
+    @Param({"number_eq", "number_gt", "number_ge", "number_lt", "number_le", "number_ne", "number_in", "not_in",
+            "str_eq", "str_ne", "str_start_with", "str_end_with", "str_not_start_with", "str_not_end_with",
+            "str_index_of", "str_not_index_of", "str_in", "str_not_in",
+            "collection_contain", "collection_not_contain", "set_eq", "collection_in", "collection_not_in",
+            "boolean_in", "boolean_not_in", "boolean_eq", "boolean_ne"})
+    public String symbol;
+
+    @Param("20261018")
+    public long seed;
+
+    private DefaultCondition condition;
+    private BaseContextImpl[] contexts;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final RuleGenerator generator = new RuleGenerator(seed);
+        condition = generator.condition(Symbol.valueOf(symbol));
+        contexts = new BaseContextImpl[CONTEXT_SIZE];
+        for (int i = 0; i < CONTEXT_SIZE; i++) {
+            contexts[i] = generator.context(1, RuleGenerator.NUMBER_RANGE);
+        }
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        blackhole.consume(condition.evaluate(contexts[index++ & (CONTEXT_SIZE - 1)]));
+    }
+}
@@ -0,0 +1,81 @@
+package com.zjb.ruleengine.benchmark;
+
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.ConditionSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 条件组（&&）、条件集（||）在不同选择率下的短路执行耗时，
+ * 每个子条件为true的概率为selectivity，选择率低时条件组提前返回，选择率高时条件集提前返回
+ *
+ * @author 赵静波
+ * @date 2026-10-18 17:20:44
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionGroupBenchmark {
+    private static final int CONTEXT_SIZE = 1024;
+
+    @Param({"0.1", "0.5", "0.9"})
+    public double selectivity;
+
+    @Param({"8"})
+    public int size;
+
+    @Param("20261018")
+    public long seed;
+
+    private ConditionGroup conditionGroup;
+    private ConditionSet conditionSet;
+    private BaseContextImpl[] contexts;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final RuleGenerator generator = new RuleGenerator(seed);
+        conditionGroup = new ConditionGroup(generator.selectiveConditions(size, selectivity));
+        //条件集的每个条件组只有一个条件
+        final List<AbstractCondition> groups = new ArrayList<>(size);
+        for (AbstractCondition condition : generator.selectiveConditions(size, selectivity)) {
+            final List<AbstractCondition> conditions = new ArrayList<>(1);
+            conditions.add(condition);
+            groups.add(new ConditionGroup(conditions));
+        }
+        conditionSet = new ConditionSet(groups);
+        contexts = new BaseContextImpl[CONTEXT_SIZE];
+        for (int i = 0; i < CONTEXT_SIZE; i++) {
+            contexts[i] = generator.context(size, RuleGenerator.NUMBER_RANGE);
+        }
+    }
+
+    @Benchmark
+    public void conditionGroup(Blackhole blackhole) {
+        blackhole.consume(conditionGroup.evaluate(contexts[index++ & (CONTEXT_SIZE - 1)]));
+    }
+
+    @Benchmark
+    public void conditionSet(Blackhole blackhole) {
+        blackhole.consume(conditionSet.evaluate(contexts[index++ & (CONTEXT_SIZE - 1)]));
+    }
+}
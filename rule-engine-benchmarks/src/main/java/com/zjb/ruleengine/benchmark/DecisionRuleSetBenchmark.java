@@ -0,0 +1,90 @@
+package com.zjb.ruleengine.benchmark;
+
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.enums.DecisionBackendEnum;
+import com.zjb.ruleengine.core.enums.RuleSetExecutePolicyEnum;
+import com.zjb.ruleengine.core.rule.DecisionRuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 决策树在不同形状下的执行耗时：
+ * 1. WIDE：2个元素，每个元素40个取值，树浅而宽
+ * 2. DEEP：10个元素，每个元素2个取值，树窄而深
+ * <p>
+ * backend比较决策树与决策图（见{@link DecisionBackendEnum}），决策图不能编译时使用决策树
+ *
+ * @author 赵静波
+ * @date 2026-10-18 17:20:44
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionRuleSetBenchmark {
+    private static final int CONTEXT_SIZE = 256;
+
+    public enum Shape {
+        WIDE(2, 40),
+        DEEP(10, 2);
+
+        final int attributes;
+        final int values;
+
+        Shape(int attributes, int values) {
+            this.attributes = attributes;
+            this.values = values;
+        }
+    }
+
+    @Param({"WIDE", "DEEP"})
+    public Shape shape;
+
+    @Param({"500"})
+    public int ruleCount;
+
+    @Param({"ONE", "ALL"})
+    public RuleSetExecutePolicyEnum policy;
+
+    @Param({"TREE", "DIAGRAM"})
+    public DecisionBackendEnum backend;
+
+    @Param("20261018")
+    public long seed;
+
+    private DecisionRuleSet ruleSet;
+    private BaseContextImpl[] contexts;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final RuleGenerator generator = new RuleGenerator(seed);
+        ruleSet = new DecisionRuleSet("decisionRuleSet", generator.equalityRules(ruleCount, shape.attributes, shape.values));
+        ruleSet.setPolicy(policy);
+        ruleSet.setBackend(backend);
+        ruleSet.build();
+        contexts = new BaseContextImpl[CONTEXT_SIZE];
+        for (int i = 0; i < CONTEXT_SIZE; i++) {
+            contexts[i] = generator.context(shape.attributes, shape.values);
+        }
+    }
+
+    @Benchmark
+    public void execute(Blackhole blackhole) {
+        blackhole.consume(ruleSet.execute(contexts[index++ & (CONTEXT_SIZE - 1)]));
+    }
+}
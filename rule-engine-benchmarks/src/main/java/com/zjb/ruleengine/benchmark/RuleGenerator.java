@@ -0,0 +1,142 @@
+package com.zjb.ruleengine.benchmark;
+
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.rule.Rule;
+import com.zjb.ruleengine.core.value.Constant;
+import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 生成性能测试用的规则、条件、上下文，相同的种子生成相同的数据
+ * <p>
+ * 元素：数字num0..numN，取值[0,{@link #NUMBER_RANGE})；字符串str，取值{@link #WORDS}；
+ * 布尔bool；集合coll，取值为{@link #WORDS}的子集
+ *
+ * @author 赵静波
+ * @date 2026-10-18 17:20:44
+ */
+public class RuleGenerator {
+
+    public static final int NUMBER_RANGE = 100;
+    public static final String[] WORDS = {"apple", "banana", "cherry", "durian", "elder", "fig", "grape", "honeydew"};
+
+    private final Random random;
+
+    public RuleGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static Element number(int index) {
+        return new Element(DataTypeEnum.NUMBER, "num" + index);
+    }
+
+    /**
+     * 生成运算符对应的条件，左值为元素，右值为常量
+     *
+     * @param symbol 运算符
+     * @return
+     */
+    public DefaultCondition condition(Symbol symbol) {
+        final boolean collectionRight = symbol.name().endsWith("in") || symbol.getType() == DataTypeEnum.COLLECTION;
+        switch (symbol.getType()) {
+            case NUMBER: {
+                final Value right = collectionRight
+                        ? Constant.collectionValue(Arrays.asList(random.nextInt(NUMBER_RANGE), random.nextInt(NUMBER_RANGE), random.nextInt(NUMBER_RANGE)))
+                        : new Constant(DataTypeEnum.NUMBER, random.nextInt(NUMBER_RANGE));
+                return new DefaultCondition(number(0), symbol, right);
+            }
+            case STRING: {
+                final Value right = collectionRight
+                        ? Constant.collectionValue(Arrays.asList(word(), word(), word()))
+                        : Constant.stringValue(word().substring(0, 1 + random.nextInt(3)));
+                return new DefaultCondition(Element.stringValue("str"), symbol, right);
+            }
+            case BOOLEAN: {
+                final Value right = collectionRight
+                        ? Constant.collectionValue(Arrays.asList(random.nextBoolean()))
+                        : Constant.booleanValue(random.nextBoolean());
+                return new DefaultCondition(Element.booleanValue("bool"), symbol, right);
+            }
+            case COLLECTION:
+                return new DefaultCondition(Element.collectionValue("coll"), symbol, Constant.collectionValue(words(3)));
+            default:
+                throw new IllegalArgumentException("不支持的运算符" + symbol);
+        }
+    }
+
+    /**
+     * 生成条件组的子条件，每个条件为true的概率为selectivity
+     *
+     * @param size        条件数量
+     * @param selectivity 条件为true的概率
+     * @return
+     */
+    public List<AbstractCondition> selectiveConditions(int size, double selectivity) {
+        final int threshold = (int) Math.round(NUMBER_RANGE * (1 - selectivity));
+        final List<AbstractCondition> conditions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            conditions.add(new DefaultCondition(number(i), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, threshold)));
+        }
+        return conditions;
+    }
+
+    /**
+     * 生成规则，每个规则为attributes个元素的等值条件组
+     *
+     * @param count      规则数量
+     * @param attributes 每个规则的条件数量
+     * @param values     每个元素的取值数量
+     * @return
+     */
+    public List<Rule> equalityRules(int count, int attributes, int values) {
+        final List<Rule> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final List<AbstractCondition> conditions = new ArrayList<>(attributes);
+            for (int j = 0; j < attributes; j++) {
+                conditions.add(new DefaultCondition(number(j), Symbol.number_eq, new Constant(DataTypeEnum.NUMBER, random.nextInt(values))));
+            }
+            rules.add(new Rule("rule" + i, new ConditionGroup(conditions), Constant.stringValue("result" + i)));
+        }
+        return rules;
+    }
+
+    /**
+     * 生成上下文
+     *
+     * @param numbers 数字元素的数量
+     * @param values  数字元素的取值数量
+     * @return
+     */
+    public BaseContextImpl context(int numbers, int values) {
+        final BaseContextImpl context = new BaseContextImpl();
+        for (int i = 0; i < numbers; i++) {
+            context.put("num" + i, random.nextInt(values));
+        }
+        context.put("str", word());
+        context.put("bool", random.nextBoolean());
+        context.put("coll", words(4));
+        return context;
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private List<String> words(int size) {
+        final List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(word());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package com.zjb.ruleengine.benchmark;
+
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.enums.RuleSetExecutePolicyEnum;
+import com.zjb.ruleengine.core.rule.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 规则集在不同规则数量、执行策略下的执行耗时，
+ * 每个规则为3个元素的等值条件组，每个元素有10个取值
+ *
+ * @author 赵静波
+ * @date 2026-10-18 17:20:44
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleSetBenchmark {
+    private static final int CONTEXT_SIZE = 256;
+    private static final int ATTRIBUTES = 3;
+    private static final int VALUES = 10;
+
+    @Param({"10", "100", "1000"})
+    public int ruleCount;
+
+    @Param({"ONE", "ALL"})
+    public RuleSetExecutePolicyEnum policy;
+
+    @Param({"false", "true"})
+    public boolean compile;
+
+    @Param("20261018")
+    public long seed;
+
+    private RuleSet ruleSet;
+    private BaseContextImpl[] contexts;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final RuleGenerator generator = new RuleGenerator(seed);
+        ruleSet = new RuleSet("ruleSet", generator.equalityRules(ruleCount, ATTRIBUTES, VALUES));
+        ruleSet.setPolicy(policy);
+        ruleSet.setCompile(compile);
+        ruleSet.build();
+        contexts = new BaseContextImpl[CONTEXT_SIZE];
+        for (int i = 0; i < CONTEXT_SIZE; i++) {
+            contexts[i] = generator.context(ATTRIBUTES, VALUES);
+        }
+    }
+
+    @Benchmark
+    public void execute(Blackhole blackhole) {
+        blackhole.consume(ruleSet.execute(contexts[index++ & (CONTEXT_SIZE - 1)]));
+    }
+}
@@ -0,0 +1,119 @@
+package com.zjb.ruleengine.benchmark;
+
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.config.FunctionHolder;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.function.Deterministic;
+import com.zjb.ruleengine.core.function.Function;
+import com.zjb.ruleengine.core.rule.Rule;
+import com.zjb.ruleengine.core.value.Constant;
+import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Value;
+import com.zjb.ruleengine.core.value.Variable;
+import com.zjb.ruleengine.core.value.VariableFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 变量通过函数取值的耗时：
+ * 1. 单个参数的函数
+ * 2. POJO参数的函数，参数通过反射创建
+ * 3. 规则中多次使用同一个确定的变量，一次执行只调用一次函数
+ *
+ * @author 赵静波
+ * @date 2026-10-18 17:20:44
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariableBenchmark {
+    private static final int REPEAT = 4;
+
+    private Variable single;
+    private Variable pojo;
+    private Rule memoRule;
+    private BaseContextImpl context;
+
+    @Setup
+    public void setup() {
+        final FunctionHolder functionHolder = new FunctionHolder();
+        final Upper upper = new Upper();
+        functionHolder.registerFunction(upper);
+        functionHolder.registerFunction(new Concat());
+
+        final Map<String, Value> singleParameter = new HashMap<>();
+        singleParameter.put(upper.getParamters().get(0).getName(), Element.stringValue("str"));
+        single = Variable.stringValue(new VariableFunction(Upper.class.getSimpleName(), singleParameter, functionHolder));
+
+        final Map<String, Value> pojoParameter = new HashMap<>();
+        pojoParameter.put("first", Element.stringValue("str"));
+        pojoParameter.put("second", Constant.stringValue("-suffix"));
+        pojo = Variable.stringValue(new VariableFunction(Concat.class.getSimpleName(), pojoParameter, functionHolder));
+
+        final List<AbstractCondition> conditions = new ArrayList<>(REPEAT);
+        for (int i = 0; i < REPEAT; i++) {
+            conditions.add(new DefaultCondition(single, Symbol.str_ne, Constant.stringValue("value" + i)));
+        }
+        memoRule = new Rule("memo", new ConditionGroup(conditions), Constant.stringValue("hit"));
+        memoRule.build();
+
+        context = new BaseContextImpl();
+        context.put("str", "apple");
+    }
+
+    @Benchmark
+    public void singleParameter(Blackhole blackhole) {
+        blackhole.consume(single.getValue(context));
+    }
+
+    @Benchmark
+    public void pojoParameter(Blackhole blackhole) {
+        blackhole.consume(pojo.getValue(context));
+    }
+
+    @Benchmark
+    public void memoizedInRule(Blackhole blackhole) {
+        blackhole.consume(memoRule.execute(context));
+    }
+
+    @Deterministic
+    public static class Upper extends Function<String, String> {
+        @Override
+        public String execute(String param) {
+            return param.toUpperCase();
+        }
+    }
+
+    public static class Concat extends Function<Concat.Parameter, String> {
+        @Override
+        public String execute(Parameter param) {
+            return param.first + param.second;
+        }
+
+        public static class Parameter {
+            private String first;
+            private String second;
+        }
+    }
+}
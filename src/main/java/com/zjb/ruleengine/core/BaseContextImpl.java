@@ -14,6 +14,11 @@ public class BaseContextImpl implements Context, Serializable {
 
     private Map<String, Object> itemMap = new HashMap<String, Object>();
 
+    /**
+     * 本次执行的缓存
+     */
+    private transient ExecutionMemo memo;
+
     @Override
     public <T> T put(final String name, final T object) {
         return (T) itemMap.put(name, object);
@@ -78,4 +83,14 @@ public class BaseContextImpl implements Context, Serializable {
         }
         return false;
     }
+
+    @Override
+    public ExecutionMemo getMemo() {
+        return memo;
+    }
+
+    @Override
+    public void setMemo(ExecutionMemo memo) {
+        this.memo = memo;
+    }
 }
@@ -1,8 +1,11 @@
 package com.zjb.ruleengine.core;
 
+import com.zjb.ruleengine.core.condition.DefaultCondition;
 import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Variable;
 
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * @author 赵静波
@@ -17,4 +20,22 @@ public interface Collectors {
      */
     Collection<Element> collectParameter();
 
+    /**
+     * collect (e.g rule,ruleSet,condition,variable) variables, including the variables in parameters of variables
+     *
+     * @return
+     */
+    default Collection<Variable> collectVariable() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * collect (e.g rule,ruleSet,condition) leaf conditions, the same condition may appear more than once
+     *
+     * @return
+     */
+    default Collection<DefaultCondition> collectCondition() {
+        return Collections.emptyList();
+    }
+
 }
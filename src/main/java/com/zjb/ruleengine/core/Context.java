@@ -99,4 +99,21 @@ public interface Context extends Serializable {
      * @return
      */
     Map<String, Object> getItemMap();
+
+    /**
+     * 获取本次执行的缓存
+     *
+     * @return 不支持缓存或者不在执行中时返回null
+     */
+    default ExecutionMemo getMemo() {
+        return null;
+    }
+
+    /**
+     * 设置本次执行的缓存，不支持缓存的上下文忽略
+     *
+     * @param memo 执行开始时传入新的缓存，结束时传入null
+     */
+    default void setMemo(ExecutionMemo memo) {
+    }
 }
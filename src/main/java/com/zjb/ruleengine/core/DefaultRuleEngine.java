@@ -2,18 +2,33 @@ package com.zjb.ruleengine.core;
 
 import cn.hutool.core.util.ClassUtil;
 import cn.hutool.core.util.IdUtil;
+import com.zjb.ruleengine.core.columnar.ColumnBatch;
+import com.zjb.ruleengine.core.columnar.ColumnarExecutor;
+import com.zjb.ruleengine.core.condition.ConditionDag;
+import com.zjb.ruleengine.core.condition.ConditionInterner;
+import com.zjb.ruleengine.core.condition.WeakConditionInterner;
 import com.zjb.ruleengine.core.config.FunctionHolder;
 import com.zjb.ruleengine.core.exception.RuleEngineException;
 import com.zjb.ruleengine.core.function.Function;
 import com.zjb.ruleengine.core.rule.AbstractRule;
+import com.zjb.ruleengine.core.value.VariablePrefetcher;
+import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.slf4j.MDC;
 
 import java.io.Serializable;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
 
 /**
  * @author 赵静波
@@ -23,10 +38,39 @@ public class DefaultRuleEngine implements RuleEngine, Serializable {
     private static final long serialVersionUID = 3663237205890586818L;
 
     private static final Logger log = LogManager.getLogger();
+    /**
+     * 并行批量执行时，单个任务最少执行的上下文数量
+     */
+    private static final int BATCH_MIN_THRESHOLD = 256;
     private ConcurrentHashMap<String, AbstractRule> ruleMap = new ConcurrentHashMap<>();
     private FunctionHolder functionHolder = new FunctionHolder();
+    /**
+     * 所有规则共享的条件DAG
+     */
+    private final ConditionDag conditionDag;
+    /**
+     * 预取远程变量的线程池，为null时使用函数自己的异步实现，见{@link VariablePrefetcher#defaultExecutor()}
+     */
+    private transient Executor prefetchExecutor = VariablePrefetcher.defaultExecutor();
+    /**
+     * 异步执行时执行规则的线程池，远程变量返回后规则不在远程调用的线程中执行
+     */
+    private transient Executor asyncExecutor = ForkJoinPool.commonPool();
+    /**
+     * 同步执行（{@link #execute(String, Context)}）时是否先预取规则中所有的远程变量，默认不预取；
+     * 开启后规则中的远程变量都会被调用，即使执行时用不到（如ONE的第一个规则就满足）
+     */
+    private boolean prefetchRemoteVariables = false;
 
     public DefaultRuleEngine() {
+        this(new WeakConditionInterner());
+    }
+
+    /**
+     * @param interner 条件、值的驻留服务，相等的条件、值只保留一个实例
+     */
+    public DefaultRuleEngine(ConditionInterner interner) {
+        this.conditionDag = new ConditionDag(interner);
         //final Set<Class<?>> classes = ClassUtil.scanPackage(DefaultRuleEngine.class.getPackage().getName(), clazz -> Function.class.isAssignableFrom(clazz) && !clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers()));
         final Set<Class<?>> classes = ClassUtil.scanPackage("com.zjb.ruleengine", clazz -> Function.class.isAssignableFrom(clazz) && !clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers()));
         try {
@@ -53,19 +97,209 @@ public class DefaultRuleEngine implements RuleEngine, Serializable {
      **/
     @Override
     public Object execute(String ruleId, Context context) {
-        MDC.put("requestId", IdUtil.fastSimpleUUID());
         AbstractRule rule = getRule(ruleId);
         if (rule == null) {
             throw new RuleEngineException(String.format("not found %s rule", ruleId));
         }
-        log.debug("开始执行{}", ruleId);
-        final Object result = rule.execute(context);
-        MDC.clear();
-        return result;
+        return executeOne(rule, context);
+    }
+
+    @Override
+    public Object execute(String ruleId, Map<String, Object> parameters) {
+        AbstractRule rule = getRule(ruleId);
+        if (rule == null) {
+            throw new RuleEngineException(String.format("not found %s rule", ruleId));
+        }
+        return execute(ruleId, rule.newContext(parameters));
+    }
+
+    @Override
+    public List<Object> executeBatch(String ruleId, List<? extends Context> contexts) {
+        final AbstractRule rule = getRequiredRule(ruleId);
+        log.debug("开始批量执行{}，数量{}", ruleId, contexts.size());
+        final Object[] results = new Object[contexts.size()];
+        executeRange(rule, contexts, results, 0, results.length);
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public List<Object> executeBatch(String ruleId, List<? extends Context> contexts, ForkJoinPool forkJoinPool) {
+        Validate.notNull(forkJoinPool);
+        final AbstractRule rule = getRequiredRule(ruleId);
+        log.debug("开始并行批量执行{}，数量{}", ruleId, contexts.size());
+        final Object[] results = new Object[contexts.size()];
+        //每个线程至少分到多个批次，便于负载均衡
+        final int threshold = Math.max(BATCH_MIN_THRESHOLD, results.length / (forkJoinPool.getParallelism() * 4));
+        forkJoinPool.invoke(new BatchTask(rule, contexts, results, 0, results.length, threshold));
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public Stream<Object> executeStream(String ruleId, Stream<? extends Context> contexts) {
+        final AbstractRule rule = getRequiredRule(ruleId);
+        return contexts.map(context -> executeOne(rule, context));
+    }
+
+    @Override
+    public List<Object> executeColumnar(String ruleId, ColumnBatch batch) {
+        final AbstractRule rule = getRequiredRule(ruleId);
+        log.debug("开始列式执行{}，行数{}", ruleId, batch.getRowCount());
+        MDC.put("requestId", IdUtil.fastSimpleUUID());
+        try {
+            return new ColumnarExecutor(batch).execute(rule);
+        } finally {
+            MDC.remove("requestId");
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> executeAsync(String ruleId, Context context) {
+        return executeAsync(ruleId, context, asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Object> executeAsync(String ruleId, Context context, Executor executor) {
+        Validate.notNull(executor);
+        final AbstractRule rule;
+        try {
+            rule = getRequiredRule(ruleId);
+        } catch (RuleEngineException e) {
+            final CompletableFuture<Object> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        final String requestId = IdUtil.fastSimpleUUID();
+        final Context target = memoContext(context);
+        return rule.getPrefetcher().prefetch(target, new ExecutionMemo(), prefetchExecutor).thenApplyAsync(memo -> {
+            MDC.put("requestId", requestId);
+            target.setMemo(memo);
+            try {
+                log.debug("开始执行{}", ruleId);
+                return rule.execute(target);
+            } finally {
+                memo.clear();
+                target.setMemo(null);
+                commit(context, target);
+                MDC.remove("requestId");
+            }
+        }, executor);
+    }
+
+    /**
+     * 上下文不支持缓存时预取的结果无法使用，远程变量会被再次调用，
+     * 此时包装为支持缓存的{@link TaskContext}，执行结束后通过{@link #commit(Context, Context)}写回
+     */
+    private static Context memoContext(Context context) {
+        if (context.getMemo() != null) {
+            return context;
+        }
+        final ExecutionMemo probe = new ExecutionMemo();
+        context.setMemo(probe);
+        if (context.getMemo() == probe) {
+            context.setMemo(null);
+            return context;
+        }
+        return new TaskContext(context);
+    }
+
+    /**
+     * 把包装的上下文中的修改写回原来的上下文
+     */
+    private static void commit(Context context, Context target) {
+        if (target != context) {
+            ((TaskContext) target).commit();
+        }
+    }
+
+    /**
+     * 规则中有远程变量时先并发预取，再执行规则
+     */
+    private Object executeWithPrefetch(AbstractRule rule, Context context) {
+        final VariablePrefetcher prefetcher = rule.getPrefetcher();
+        if (prefetcher.isEmpty() || context.getMemo() != null) {
+            return rule.execute(context);
+        }
+        final Context target = memoContext(context);
+        final ExecutionMemo memo = new ExecutionMemo();
+        target.setMemo(memo);
+        try {
+            prefetcher.prefetch(target, memo, prefetchExecutor).join();
+            return rule.execute(target);
+        } finally {
+            memo.clear();
+            target.setMemo(null);
+            commit(context, target);
+        }
+    }
+
+    /**
+     * 同步执行一个上下文，单个、批量、流式执行都经过这里：每个上下文一个requestId，
+     * 开启{@link #prefetchRemoteVariables}时先预取远程变量
+     */
+    private Object executeOne(AbstractRule rule, Context context) {
+        MDC.put("requestId", IdUtil.fastSimpleUUID());
+        try {
+            log.debug("开始执行{}", rule.getId());
+            return prefetchRemoteVariables ? executeWithPrefetch(rule, context) : rule.execute(context);
+        } finally {
+            MDC.remove("requestId");
+        }
+    }
+
+    /**
+     * 执行[from,to)之间的上下文
+     */
+    private void executeRange(AbstractRule rule, List<? extends Context> contexts, Object[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            results[i] = executeOne(rule, contexts.get(i));
+        }
+    }
+
+    private AbstractRule getRequiredRule(String ruleId) {
+        final AbstractRule rule = getRule(ruleId);
+        if (rule == null) {
+            throw new RuleEngineException(String.format("not found %s rule", ruleId));
+        }
+        return rule;
+    }
+
+    /**
+     * 批量执行的任务，按下标二分拆分，结果写入对应的下标
+     */
+    private class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = -4209876451390873046L;
+        private final AbstractRule rule;
+        private final List<? extends Context> contexts;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        BatchTask(AbstractRule rule, List<? extends Context> contexts, Object[] results, int from, int to, int threshold) {
+            this.rule = rule;
+            this.contexts = contexts;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                executeRange(rule, contexts, results, from, to);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(rule, contexts, results, from, middle, threshold),
+                    new BatchTask(rule, contexts, results, middle, to, threshold));
+        }
     }
 
     @Override
     public void addRule(AbstractRule rule) {
+        rule.share(conditionDag);
+        rule.getPrefetcher();
         ruleMap.put(rule.getId(), rule);
     }
 
@@ -78,6 +312,45 @@ public class DefaultRuleEngine implements RuleEngine, Serializable {
     }
 
 
+    public Executor getPrefetchExecutor() {
+        return prefetchExecutor;
+    }
+
+    public void setPrefetchExecutor(Executor prefetchExecutor) {
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * 异步执行时执行规则的线程池，默认为{@link ForkJoinPool#commonPool()}
+     *
+     * @param asyncExecutor
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        Validate.notNull(asyncExecutor);
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public boolean isPrefetchRemoteVariables() {
+        return prefetchRemoteVariables;
+    }
+
+    /**
+     * 同步执行时是否先并发预取规则中所有的远程变量，异步执行（{@link #executeAsync(String, Context)}）总是预取
+     *
+     * @param prefetchRemoteVariables
+     */
+    public void setPrefetchRemoteVariables(boolean prefetchRemoteVariables) {
+        this.prefetchRemoteVariables = prefetchRemoteVariables;
+    }
+
+    public ConditionDag getConditionDag() {
+        return conditionDag;
+    }
+
     public FunctionHolder getFunctionHolder() {
         return functionHolder;
     }
@@ -0,0 +1,126 @@
+package com.zjb.ruleengine.core;
+
+import com.zjb.ruleengine.core.value.Element;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 元素的槽位布局，build时根据规则的{@link Collectors#collectParameter()}给每个元素分配一个连续的下标，
+ * 运行时{@link IndexedContext}用数组存储参数，元素取值变为数组下标访问
+ * <p>
+ * 元素的code在全局分配一个编号（{@link #codeId(String)}），布局按编号保存槽位，
+ * 同一个元素被多个规则（多个布局）使用时，每个布局都按自己的槽位取值，不绑定到元素上
+ *
+ * @author 赵静波
+ * @date 2026-10-18 11:40:12
+ */
+public class ElementLayout implements Serializable {
+    private static final long serialVersionUID = -3541857745062389473L;
+
+    /**
+     * key=元素code,value=槽位
+     */
+    private final Map<String, Integer> slots;
+
+    private final String[] codes;
+
+    /**
+     * 下标=code的全局编号，value=槽位，不在布局中为-1
+     */
+    private final int[] slotsByCodeId;
+
+    /**
+     * key=元素code，value=全局编号，只增加不删除
+     */
+    private static final Map<String, Integer> CODE_IDS = new ConcurrentHashMap<>();
+
+    private ElementLayout(Collection<Element> elements) {
+        this.slots = new HashMap<>(elements.size() * 2);
+        for (Element element : elements) {
+            if (!slots.containsKey(element.getCode())) {
+                slots.put(element.getCode(), slots.size());
+            }
+        }
+        this.codes = new String[slots.size()];
+        int maxCodeId = -1;
+        for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+            codes[entry.getValue()] = entry.getKey();
+            maxCodeId = Math.max(maxCodeId, codeId(entry.getKey()));
+        }
+        this.slotsByCodeId = new int[maxCodeId + 1];
+        Arrays.fill(slotsByCodeId, -1);
+        for (int slot = 0; slot < codes.length; slot++) {
+            slotsByCodeId[codeId(codes[slot])] = slot;
+        }
+    }
+
+    /**
+     * 根据元素生成布局
+     *
+     * @param elements
+     * @return
+     */
+    public static ElementLayout of(Collection<Element> elements) {
+        return new ElementLayout(elements);
+    }
+
+    /**
+     * 元素code的全局编号，相同的code编号相同
+     *
+     * @param code 元素code
+     * @return
+     */
+    public static int codeId(String code) {
+        final Integer id = CODE_IDS.get(code);
+        if (id != null) {
+            return id;
+        }
+        synchronized (CODE_IDS) {
+            return CODE_IDS.computeIfAbsent(code, key -> CODE_IDS.size());
+        }
+    }
+
+    /**
+     * 根据code的全局编号获取槽位，不需要hash查找
+     *
+     * @param codeId 见{@link #codeId(String)}
+     * @return 不存在返回-1
+     */
+    public int slotOf(int codeId) {
+        return codeId < slotsByCodeId.length ? slotsByCodeId[codeId] : -1;
+    }
+
+    /**
+     * 获取元素的槽位
+     *
+     * @param code 元素code
+     * @return 不存在返回-1
+     */
+    public int slotOf(String code) {
+        final Integer slot = slots.get(code);
+        return slot == null ? -1 : slot;
+    }
+
+    public String getCode(int slot) {
+        return codes[slot];
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    public IndexedContext newContext() {
+        return new IndexedContext(this);
+    }
+
+    public IndexedContext newContext(Map<String, Object> parameters) {
+        final IndexedContext context = new IndexedContext(this);
+        context.putAll(parameters);
+        return context;
+    }
+}
@@ -0,0 +1,137 @@
+package com.zjb.ruleengine.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 一次执行内的缓存，由最外层的规则在执行开始时放入上下文，执行结束后移除，
+ * 用于缓存确定性函数的结果等只在本次执行中有效的数据
+ * <p>
+ * 非线程安全，一次执行只在一个线程中使用
+ *
+ * @author 赵静波
+ * @date 2026-10-18 14:05:22
+ */
+public class ExecutionMemo {
+
+    /**
+     * 缓存null值时的占位符
+     */
+    private static final Object NULL = new Object();
+
+    private final Map<Object, Object> values = new HashMap<>(16);
+
+    /**
+     * 并行执行时任务的缓存读不到时读取的缓存，见{@link TaskContext}，并行执行期间只读
+     */
+    private final ExecutionMemo parent;
+
+    /**
+     * 最近一次访问的缓存，同一个key连续访问时不再查找map
+     */
+    private Object lastKey;
+    private Object lastValue;
+
+    public ExecutionMemo() {
+        this(null);
+    }
+
+    /**
+     * @param parent 读不到时读取的缓存，只读，不修改
+     */
+    public ExecutionMemo(ExecutionMemo parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * 获取缓存，不存在时计算并缓存，计算抛出异常时不缓存
+     * <p>
+     * 计算过程中可以再次调用当前方法（如变量的参数也是变量）
+     *
+     * @param key    缓存的key
+     * @param loader 计算缓存值
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Supplier<T> loader) {
+        if (key == lastKey) {
+            return lastValue == NULL ? null : (T) lastValue;
+        }
+        Object value = values.get(key);
+        if (value == null && parent != null) {
+            value = parent.peek(key);
+        }
+        if (value == null) {
+            final T result = loader.get();
+            value = result == null ? NULL : result;
+            values.put(key, value);
+        }
+        lastKey = key;
+        lastValue = value;
+        return value == NULL ? null : (T) value;
+    }
+
+    /**
+     * 获取缓存，不读取parent，用于执行中会被修改的缓存值（如条件结果数组），
+     * 并行执行的任务不修改原来上下文中的缓存值
+     *
+     * @param key    缓存的key
+     * @param loader 计算缓存值
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getLocal(Object key, Supplier<T> loader) {
+        if (parent == null) {
+            return get(key, loader);
+        }
+        if (key == lastKey) {
+            return lastValue == NULL ? null : (T) lastValue;
+        }
+        Object value = values.get(key);
+        if (value == null) {
+            final T result = loader.get();
+            value = result == null ? NULL : result;
+            values.put(key, value);
+        }
+        lastKey = key;
+        lastValue = value;
+        return value == NULL ? null : (T) value;
+    }
+
+    /**
+     * 放入缓存，覆盖已有的值
+     *
+     * @param key   缓存的key
+     * @param value 缓存值
+     */
+    public void put(Object key, Object value) {
+        values.put(key, value == null ? NULL : value);
+        if (key == lastKey) {
+            lastKey = null;
+            lastValue = null;
+        }
+    }
+
+    public boolean contain(Object key) {
+        return values.containsKey(key) || parent != null && parent.contain(key);
+    }
+
+    /**
+     * 只读取，不修改最近一次访问的缓存，可以由多个线程同时调用
+     */
+    private Object peek(Object key) {
+        final Object value = values.get(key);
+        return value == null && parent != null ? parent.peek(key) : value;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public void clear() {
+        values.clear();
+        lastKey = null;
+        lastValue = null;
+    }
+}
@@ -0,0 +1,175 @@
+package com.zjb.ruleengine.core;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 基于数组的上下文，由{@link ElementLayout#newContext()}创建，
+ * 布局中的元素存储在数组中，其它参数存储在map中
+ * <p>
+ * 值为null的参数视为不存在
+ *
+ * @author 赵静波
+ * @date 2026-10-18 11:40:12
+ */
+@SuppressWarnings("unchecked")
+public class IndexedContext implements Context {
+    private static final long serialVersionUID = 4260943117628047205L;
+
+    private final ElementLayout layout;
+
+    private final Object[] values;
+
+    /**
+     * 布局之外的参数
+     */
+    private Map<String, Object> others;
+
+    /**
+     * 本次执行的缓存
+     */
+    private transient ExecutionMemo memo;
+
+    public IndexedContext(ElementLayout layout) {
+        Validate.notNull(layout);
+        this.layout = layout;
+        this.values = new Object[layout.size()];
+    }
+
+    public ElementLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * 根据槽位获取参数
+     *
+     * @param slot 槽位
+     * @return
+     */
+    public <T> T get(int slot) {
+        return (T) values[slot];
+    }
+
+    @Override
+    public <T> T put(String name, T object) {
+        final int slot = layout.slotOf(name);
+        if (slot < 0) {
+            if (others == null) {
+                others = new HashMap<>(8);
+            }
+            return (T) others.put(name, object);
+        }
+        final T old = (T) values[slot];
+        values[slot] = object;
+        return old;
+    }
+
+    @Override
+    public boolean renameKey(String key, String newKey) {
+        if (!contain(key)) {
+            return false;
+        }
+        put(newKey, remove(key));
+        return true;
+    }
+
+    @Override
+    public <T> T remove(String name) {
+        final int slot = layout.slotOf(name);
+        if (slot < 0) {
+            return others == null ? null : (T) others.remove(name);
+        }
+        final T old = (T) values[slot];
+        values[slot] = null;
+        return old;
+    }
+
+    @Override
+    public <T> T get(String name) {
+        final int slot = layout.slotOf(name);
+        if (slot < 0) {
+            return others == null ? null : (T) others.get(name);
+        }
+        return (T) values[slot];
+    }
+
+    @Override
+    public void putAll(Map<String, Object> map) {
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public <T> T get(String name, T defaultValue) {
+        final T result = get(name);
+        return result == null ? defaultValue : result;
+    }
+
+    @Override
+    public int size() {
+        int size = others == null ? 0 : others.size();
+        for (Object value : values) {
+            if (value != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean exist(String name) {
+        return contain(name);
+    }
+
+    @Override
+    public boolean contain(String name) {
+        final int slot = layout.slotOf(name);
+        if (slot < 0) {
+            return others != null && others.containsKey(name);
+        }
+        return values[slot] != null;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+        }
+        if (others != null) {
+            others.clear();
+        }
+    }
+
+    /**
+     * 返回所有参数的副本，修改副本不会影响上下文
+     *
+     * @return
+     */
+    @Override
+    public Map<String, Object> getItemMap() {
+        final Map<String, Object> result = new LinkedHashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                result.put(layout.getCode(i), values[i]);
+            }
+        }
+        if (others != null) {
+            result.putAll(others);
+        }
+        return result;
+    }
+
+    @Override
+    public ExecutionMemo getMemo() {
+        return memo;
+    }
+
+    @Override
+    public void setMemo(ExecutionMemo memo) {
+        this.memo = memo;
+    }
+}
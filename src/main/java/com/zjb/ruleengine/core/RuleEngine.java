@@ -1,8 +1,16 @@
 package com.zjb.ruleengine.core;
 
+import com.zjb.ruleengine.core.columnar.ColumnBatch;
+import com.zjb.ruleengine.core.columnar.ColumnarExecutor;
 import com.zjb.ruleengine.core.rule.AbstractRule;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * @author 赵静波
@@ -18,6 +26,75 @@ public interface RuleEngine extends Serializable {
      **/
     Object execute(String ruleId, Context context);
 
+    /**
+     * 对指定参数运行规则，参数会按规则的槽位布局装载到{@link IndexedContext}中
+     *
+     * @param ruleId     规则id
+     * @param parameters 参数
+     * @return
+     */
+    Object execute(String ruleId, Map<String, Object> parameters);
+
+    /**
+     * 对多个上下文运行同一个规则，规则只查找一次，结果与上下文一一对应；
+     * 每个上下文的执行与{@link #execute(String, Context)}相同（远程变量预取、requestId）
+     *
+     * @param ruleId   规则id
+     * @param contexts 上下文，每个上下文只能出现一次
+     * @return 按上下文顺序排列的结果
+     */
+    List<Object> executeBatch(String ruleId, List<? extends Context> contexts);
+
+    /**
+     * 对多个上下文运行同一个规则，批次拆分后在forkJoinPool中并行执行，结果与上下文一一对应
+     *
+     * @param ruleId       规则id
+     * @param contexts     上下文，每个上下文只能出现一次
+     * @param forkJoinPool 执行的线程池
+     * @return 按上下文顺序排列的结果
+     */
+    List<Object> executeBatch(String ruleId, List<? extends Context> contexts, ForkJoinPool forkJoinPool);
+
+    /**
+     * 对上下文流运行同一个规则，规则只查找一次，惰性执行，并行流也保持上下文的顺序；
+     * 每个上下文的执行与{@link #execute(String, Context)}相同
+     *
+     * @param ruleId   规则id
+     * @param contexts 上下文流
+     * @return 结果流
+     */
+    Stream<Object> executeStream(String ruleId, Stream<? extends Context> contexts);
+
+    /**
+     * 对列式批次运行规则，条件按列执行，见{@link ColumnarExecutor}
+     *
+     * @param ruleId 规则id
+     * @param batch  列式批次
+     * @return 按行排列的结果
+     */
+    List<Object> executeColumnar(String ruleId, ColumnBatch batch);
+
+    /**
+     * 异步运行规则，规则中互相独立的远程变量（如http函数）先并发调用，全部返回后再执行规则，
+     * 见{@link com.zjb.ruleengine.core.value.VariablePrefetcher}；规则在规则引擎默认的线程池中执行。
+     * 上下文不支持缓存（{@link Context#setMemo(ExecutionMemo)}被忽略）时包装为{@link TaskContext}执行，结束后写回上下文
+     *
+     * @param ruleId  规则id
+     * @param context 上下文，执行完成前不能用于其它执行
+     * @return 规则的结果
+     */
+    CompletableFuture<Object> executeAsync(String ruleId, Context context);
+
+    /**
+     * 异步运行规则，同{@link #executeAsync(String, Context)}，远程变量返回后规则在executor中执行
+     *
+     * @param ruleId   规则id
+     * @param context  上下文，执行完成前不能用于其它执行
+     * @param executor 执行规则的线程池
+     * @return 规则的结果
+     */
+    CompletableFuture<Object> executeAsync(String ruleId, Context context, Executor executor);
+
     /**
      * @return void
      * @Author zjb
@@ -0,0 +1,165 @@
+package com.zjb.ruleengine.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 并行执行时每个任务使用的上下文视图
+ * <p>
+ * 读取时先读本任务修改过的参数，再读原来的上下文；修改只在本任务中可见，不修改原来的上下文，
+ * 结果确定后由调用方按规则顺序{@link #commit()}写回。
+ * 并行执行期间原来的上下文及其缓存只读，多个任务同时读取是线程安全的
+ * <p>
+ * 本次执行的缓存是一个新的{@link ExecutionMemo}，读不到时再读原来上下文的缓存（如预取的远程变量）
+ *
+ * @author 赵静波
+ * @date 2026-10-18 21:24:50
+ */
+@SuppressWarnings("unchecked")
+public class TaskContext implements Context {
+    private static final long serialVersionUID = 2391765841262093875L;
+
+    /**
+     * 本任务中删除的参数
+     */
+    private static final Object REMOVED = new Object();
+
+    private final Context parent;
+
+    /**
+     * 本任务中修改的参数
+     */
+    private final Map<String, Object> overlay = new HashMap<>(8);
+
+    private transient ExecutionMemo memo;
+
+    public TaskContext(Context parent) {
+        this.parent = parent;
+        final ExecutionMemo parentMemo = parent.getMemo();
+        this.memo = parentMemo == null ? null : new ExecutionMemo(parentMemo);
+    }
+
+    public Context getParent() {
+        return parent;
+    }
+
+    @Override
+    public <T> T put(String name, T object) {
+        final T old = get(name);
+        overlay.put(name, object);
+        return old;
+    }
+
+    @Override
+    public boolean renameKey(String key, String newKey) {
+        if (!contain(key)) {
+            return false;
+        }
+        overlay.put(newKey, get(key));
+        overlay.put(key, REMOVED);
+        return true;
+    }
+
+    @Override
+    public <T> T remove(String name) {
+        final T old = get(name);
+        overlay.put(name, REMOVED);
+        return old;
+    }
+
+    @Override
+    public <T> T get(String name) {
+        final Object value = overlay.get(name);
+        if (value != null) {
+            return value == REMOVED ? null : (T) value;
+        }
+        if (overlay.containsKey(name)) {
+            return null;
+        }
+        return parent.get(name);
+    }
+
+    @Override
+    public void putAll(Map<String, Object> map) {
+        overlay.putAll(map);
+    }
+
+    @Override
+    public <T> T get(String name, T defaultValue) {
+        final T result = get(name);
+        return result == null ? defaultValue : result;
+    }
+
+    @Override
+    public int size() {
+        return getItemMap().size();
+    }
+
+    @Override
+    public boolean exist(String name) {
+        return contain(name);
+    }
+
+    @Override
+    public boolean contain(String name) {
+        if (overlay.containsKey(name)) {
+            return overlay.get(name) != REMOVED;
+        }
+        return parent.contain(name);
+    }
+
+    @Override
+    public void clear() {
+        for (String name : parent.getItemMap().keySet()) {
+            overlay.put(name, REMOVED);
+        }
+        overlay.entrySet().removeIf(entry -> entry.getValue() != REMOVED);
+    }
+
+    /**
+     * 合并后的参数，是一个新的map
+     */
+    @Override
+    public Map<String, Object> getItemMap() {
+        final Map<String, Object> result = new HashMap<>(parent.getItemMap());
+        overlay.forEach((name, value) -> {
+            if (value == REMOVED) {
+                result.remove(name);
+            } else {
+                result.put(name, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 本任务中是否修改过参数
+     */
+    public boolean isModified() {
+        return !overlay.isEmpty();
+    }
+
+    /**
+     * 把本任务中的修改写回原来的上下文，需要在原来的上下文不再被其它任务读取时调用
+     */
+    public void commit() {
+        overlay.forEach((name, value) -> {
+            if (value == REMOVED) {
+                parent.remove(name);
+            } else {
+                parent.put(name, value);
+            }
+        });
+        overlay.clear();
+    }
+
+    @Override
+    public ExecutionMemo getMemo() {
+        return memo;
+    }
+
+    @Override
+    public void setMemo(ExecutionMemo memo) {
+        this.memo = memo;
+    }
+}
@@ -0,0 +1,214 @@
+package com.zjb.ruleengine.core.columnar;
+
+import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.exception.RuleValidationException;
+import org.apache.commons.lang3.Validate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 列式的批量输入，每个元素一列，所有列的行数相同：
+ * 1. NUMBER：double[]，不能有NaN
+ * 2. STRING：字典编码，int[]为字典下标
+ * 3. BOOLEAN：按位存储在long[]中
+ * <p>
+ * 列中没有null值，规则用到但批次中没有的元素按缺少参数处理
+ *
+ * @author 赵静波
+ * @date 2026-10-18 16:02:37
+ */
+public class ColumnBatch {
+
+    private final int rowCount;
+
+    /**
+     * key=元素code
+     */
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+
+    public ColumnBatch(int rowCount) {
+        Validate.isTrue(rowCount >= 0, "rowCount不能小于0");
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * 增加数字列
+     *
+     * @param code   元素code
+     * @param values 每行的值
+     * @return
+     */
+    public ColumnBatch addNumberColumn(String code, double[] values) {
+        checkSize(code, values.length);
+        for (double value : values) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new RuleValidationException("数字列" + code + "不能有NaN或无穷大");
+            }
+        }
+        columns.put(code, new NumberColumn(values));
+        return this;
+    }
+
+    /**
+     * 增加字典编码的字符串列
+     *
+     * @param code       元素code
+     * @param codes      每行的值在字典中的下标
+     * @param dictionary 字典，不能有null
+     * @return
+     */
+    public ColumnBatch addStringColumn(String code, int[] codes, String[] dictionary) {
+        checkSize(code, codes.length);
+        Validate.noNullElements(dictionary, "字典不能有null");
+        for (int index : codes) {
+            if (index < 0 || index >= dictionary.length) {
+                throw new RuleValidationException("字符串列" + code + "的字典下标越界:" + index);
+            }
+        }
+        columns.put(code, new StringColumn(codes, dictionary));
+        return this;
+    }
+
+    /**
+     * 增加字符串列，按出现顺序生成字典
+     *
+     * @param code   元素code
+     * @param values 每行的值，不能有null
+     * @return
+     */
+    public ColumnBatch addStringColumn(String code, String[] values) {
+        final Map<String, Integer> dictionary = new HashMap<>();
+        final int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Validate.notNull(values[i], "字符串列不能有null");
+            Integer index = dictionary.get(values[i]);
+            if (index == null) {
+                index = dictionary.size();
+                dictionary.put(values[i], index);
+            }
+            codes[i] = index;
+        }
+        final String[] words = new String[dictionary.size()];
+        dictionary.forEach((word, index) -> words[index] = word);
+        return addStringColumn(code, codes, words);
+    }
+
+    /**
+     * 增加布尔列
+     *
+     * @param code   元素code
+     * @param values 每行的值
+     * @return
+     */
+    public ColumnBatch addBooleanColumn(String code, boolean[] values) {
+        checkSize(code, values.length);
+        final long[] bits = new long[(values.length + 63) >>> 6];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i]) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+        columns.put(code, new BooleanColumn(bits));
+        return this;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    Column getColumn(String code) {
+        return columns.get(code);
+    }
+
+    /**
+     * 获取某行某列的值
+     *
+     * @param code 元素code
+     * @param row  行
+     * @return 没有该列返回null
+     */
+    public Object getValue(String code, int row) {
+        final Column column = columns.get(code);
+        return column == null ? null : column.get(row);
+    }
+
+    Set<String> getCodes() {
+        return columns.keySet();
+    }
+
+    public boolean containColumn(String code) {
+        return columns.containsKey(code);
+    }
+
+    private void checkSize(String code, int size) {
+        Validate.notBlank(code, "code不能为空");
+        if (size != rowCount) {
+            throw new RuleValidationException("列" + code + "的行数" + size + "与批次的行数" + rowCount + "不一致");
+        }
+    }
+
+    abstract static class Column {
+        abstract DataTypeEnum getDataType();
+
+        abstract Object get(int row);
+    }
+
+    static final class NumberColumn extends Column {
+        final double[] values;
+
+        NumberColumn(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        DataTypeEnum getDataType() {
+            return DataTypeEnum.NUMBER;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+    }
+
+    static final class StringColumn extends Column {
+        final int[] codes;
+        final String[] dictionary;
+
+        StringColumn(int[] codes, String[] dictionary) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        DataTypeEnum getDataType() {
+            return DataTypeEnum.STRING;
+        }
+
+        @Override
+        Object get(int row) {
+            return dictionary[codes[row]];
+        }
+    }
+
+    static final class BooleanColumn extends Column {
+        final long[] bits;
+
+        BooleanColumn(long[] bits) {
+            this.bits = bits;
+        }
+
+        @Override
+        DataTypeEnum getDataType() {
+            return DataTypeEnum.BOOLEAN;
+        }
+
+        @Override
+        Object get(int row) {
+            return (bits[row >>> 6] & (1L << row)) != 0;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.zjb.ruleengine.core.columnar;
+
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.ExecutionMemo;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 列式批次中某一行的上下文，用于不能按列执行的条件、规则逐行执行
+ * <p>
+ * 读取时优先读取本行写入的参数，再读取批次中的列，写入的参数只对本行有效
+ *
+ * @author 赵静波
+ * @date 2026-10-18 16:02:37
+ */
+@SuppressWarnings("unchecked")
+public class ColumnRowContext implements Context {
+    private static final long serialVersionUID = 2817702795186324506L;
+
+    private final transient ColumnBatch batch;
+
+    private int row;
+
+    /**
+     * 本行写入或删除的参数，删除的参数值为{@link #REMOVED}
+     */
+    private Map<String, Object> overrides;
+
+    private static final Object REMOVED = new Object();
+
+    private transient ExecutionMemo memo;
+
+    ColumnRowContext(ColumnBatch batch) {
+        this.batch = batch;
+    }
+
+    /**
+     * 移动到某一行，清除上一行写入的参数
+     *
+     * @param row 行
+     * @return
+     */
+    ColumnRowContext moveTo(int row) {
+        this.row = row;
+        if (overrides != null) {
+            overrides.clear();
+        }
+        return this;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    @Override
+    public <T> T put(String name, T object) {
+        final T old = get(name);
+        if (overrides == null) {
+            overrides = new HashMap<>(8);
+        }
+        overrides.put(name, object);
+        return old;
+    }
+
+    @Override
+    public boolean renameKey(String key, String newKey) {
+        if (!contain(key)) {
+            return false;
+        }
+        put(newKey, remove(key));
+        return true;
+    }
+
+    @Override
+    public <T> T remove(String name) {
+        final T old = get(name);
+        if (overrides == null) {
+            overrides = new HashMap<>(8);
+        }
+        overrides.put(name, REMOVED);
+        return old;
+    }
+
+    @Override
+    public <T> T get(String name) {
+        if (overrides != null && overrides.containsKey(name)) {
+            final Object value = overrides.get(name);
+            return value == REMOVED ? null : (T) value;
+        }
+        return (T) batch.getValue(name, row);
+    }
+
+    @Override
+    public void putAll(Map<String, Object> map) {
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public <T> T get(String name, T defaultValue) {
+        final T result = get(name);
+        return result == null ? defaultValue : result;
+    }
+
+    @Override
+    public int size() {
+        return getItemMap().size();
+    }
+
+    @Override
+    public boolean exist(String name) {
+        return contain(name);
+    }
+
+    @Override
+    public boolean contain(String name) {
+        if (overrides != null && overrides.containsKey(name)) {
+            return overrides.get(name) != REMOVED;
+        }
+        return batch.containColumn(name);
+    }
+
+    /**
+     * 清除本行的所有参数，批次中的列不受影响
+     */
+    @Override
+    public void clear() {
+        final Map<String, Object> items = getItemMap();
+        for (String name : items.keySet()) {
+            remove(name);
+        }
+    }
+
+    /**
+     * 返回本行所有参数的副本
+     *
+     * @return
+     */
+    @Override
+    public Map<String, Object> getItemMap() {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        for (String code : batch.getCodes()) {
+            result.put(code, batch.getValue(code, row));
+        }
+        if (overrides != null) {
+            for (Map.Entry<String, Object> entry : overrides.entrySet()) {
+                if (entry.getValue() == REMOVED) {
+                    result.remove(entry.getKey());
+                } else {
+                    result.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ExecutionMemo getMemo() {
+        return memo;
+    }
+
+    @Override
+    public void setMemo(ExecutionMemo memo) {
+        this.memo = memo;
+    }
+}
@@ -0,0 +1,447 @@
+package com.zjb.ruleengine.core.columnar;
+
+import com.zjb.ruleengine.core.columnar.ColumnBatch.BooleanColumn;
+import com.zjb.ruleengine.core.columnar.ColumnBatch.Column;
+import com.zjb.ruleengine.core.columnar.ColumnBatch.NumberColumn;
+import com.zjb.ruleengine.core.columnar.ColumnBatch.StringColumn;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.ConditionSet;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.condition.evaluate.Evaluate;
+import com.zjb.ruleengine.core.decistion.DecisionCondition;
+import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.enums.RuleResultEnum;
+import com.zjb.ruleengine.core.enums.RuleSetExecutePolicyEnum;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.rule.AbstractRule;
+import com.zjb.ruleengine.core.rule.ActionRule;
+import com.zjb.ruleengine.core.rule.Rule;
+import com.zjb.ruleengine.core.rule.RuleSet;
+import com.zjb.ruleengine.core.value.Constant;
+import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Value;
+import org.apache.commons.lang3.Validate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式执行器，对整个批次按列执行条件，结果为选择位图（第i位表示第i行），条件组对位图求与，条件集求或，
+ * 规则集按位图决定每行的结果
+ * <p>
+ * 能按列执行的条件：
+ * 1. 元素与常量比较，元素在批次中有相同类型的列：数字比较大小时直接比较double，
+ * 字符串、布尔对字典中的每个值执行一次，再按字典下标生成位图
+ * 2. 常量与常量比较
+ * <p>
+ * 其它条件、规则（包括有后置处理器的规则）只对需要执行的行逐行执行，结果与逐行执行完全一致，
+ * 条件组、条件集、规则集ONE的短路也保持一致
+ * <p>
+ * 非线程安全，一个批次使用一个执行器
+ *
+ * @author 赵静波
+ * @date 2026-10-18 16:02:37
+ */
+public class ColumnarExecutor {
+
+    private final ColumnBatch batch;
+    private final int rowCount;
+
+    /**
+     * 所有行的位图
+     */
+    private final long[] allRows;
+
+    /**
+     * 按列执行的条件结果，与选择的行无关，共享的条件只执行一次
+     */
+    private final Map<AbstractCondition, long[]> vectorized = new IdentityHashMap<>();
+
+    /**
+     * 逐行执行时使用的上下文
+     */
+    private final ColumnRowContext rowContext;
+
+    public ColumnarExecutor(ColumnBatch batch) {
+        Validate.notNull(batch);
+        this.batch = batch;
+        this.rowCount = batch.getRowCount();
+        this.allRows = new long[words(rowCount)];
+        for (int i = 0; i < rowCount; i++) {
+            allRows[i >>> 6] |= 1L << i;
+        }
+        this.rowContext = new ColumnRowContext(batch);
+    }
+
+    /**
+     * 对批次执行规则
+     *
+     * @param rule 规则
+     * @return 按行排列的结果
+     */
+    public List<Object> execute(AbstractRule rule) {
+        final Object[] results = new Object[rowCount];
+        execute(rule, allRows, results);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 对批次执行条件
+     *
+     * @param condition 条件
+     * @return 条件为true的行
+     */
+    public BitSet evaluate(AbstractCondition condition) {
+        final long[] result = evaluate(condition, allRows);
+        final long[] masked = new long[result.length];
+        for (int i = 0; i < result.length; i++) {
+            masked[i] = result[i] & allRows[i];
+        }
+        return BitSet.valueOf(masked);
+    }
+
+    /**
+     * 执行规则，只写入selection中的行
+     */
+    private void execute(AbstractRule rule, long[] selection, Object[] results) {
+        final Class<? extends AbstractRule> clazz = rule.getClass();
+        if (!rule.hasPostProcessor()) {
+            if (clazz == Rule.class) {
+                final Rule simpleRule = (Rule) rule;
+                final long[] hit = evaluate(simpleRule.getCondition(), selection);
+                final Value action = simpleRule.getAction();
+                for (int i = nextRow(selection, 0); i >= 0; i = nextRow(selection, i + 1)) {
+                    results[i] = isSet(hit, i) ? getValue(action, i) : RuleResultEnum.NULL;
+                }
+                return;
+            }
+            if (clazz == ActionRule.class) {
+                final Value action = ((ActionRule) rule).getAction();
+                for (int i = nextRow(selection, 0); i >= 0; i = nextRow(selection, i + 1)) {
+                    results[i] = getValue(action, i);
+                }
+                return;
+            }
+            if (clazz == RuleSet.class) {
+                final RuleSet ruleSet = (RuleSet) rule;
+                if (ruleSet.getPolicy() == RuleSetExecutePolicyEnum.ONE) {
+                    executeOne(ruleSet.getRules(), selection, results);
+                    return;
+                }
+                if (ruleSet.getPolicy() == RuleSetExecutePolicyEnum.ALL) {
+                    executeAll(ruleSet.getRules(), selection, results);
+                    return;
+                }
+            }
+        }
+        for (int i = nextRow(selection, 0); i >= 0; i = nextRow(selection, i + 1)) {
+            results[i] = rule.execute(rowContext.moveTo(i));
+        }
+    }
+
+    /**
+     * 按顺序执行规则，已经有结果的行不再执行后面的规则
+     */
+    private void executeOne(List<AbstractRule> rules, long[] selection, Object[] results) {
+        final long[] remaining = selection.clone();
+        final Object[] childResults = new Object[rowCount];
+        for (AbstractRule rule : rules) {
+            if (isEmpty(remaining)) {
+                return;
+            }
+            execute(rule, remaining, childResults);
+            for (int i = nextRow(remaining, 0); i >= 0; i = nextRow(remaining, i + 1)) {
+                if (childResults[i] != RuleResultEnum.NULL) {
+                    results[i] = childResults[i];
+                    remaining[i >>> 6] &= ~(1L << i);
+                }
+            }
+        }
+        for (int i = nextRow(remaining, 0); i >= 0; i = nextRow(remaining, i + 1)) {
+            results[i] = RuleResultEnum.NULL;
+        }
+    }
+
+    /**
+     * 执行所有规则，收集每行触发的结果
+     */
+    @SuppressWarnings("unchecked")
+    private void executeAll(List<AbstractRule> rules, long[] selection, Object[] results) {
+        final List<Object>[] hits = new List[rowCount];
+        final Object[] childResults = new Object[rowCount];
+        for (AbstractRule rule : rules) {
+            execute(rule, selection, childResults);
+            for (int i = nextRow(selection, 0); i >= 0; i = nextRow(selection, i + 1)) {
+                if (childResults[i] != RuleResultEnum.NULL) {
+                    if (hits[i] == null) {
+                        hits[i] = new ArrayList<>();
+                    }
+                    hits[i].add(childResults[i]);
+                }
+            }
+        }
+        for (int i = nextRow(selection, 0); i >= 0; i = nextRow(selection, i + 1)) {
+            results[i] = hits[i] == null ? RuleResultEnum.NULL : hits[i];
+        }
+    }
+
+    private Object getValue(Value action, int row) {
+        if (action instanceof Constant) {
+            return ((Constant) action).getValue();
+        }
+        return action.getValue(rowContext.moveTo(row));
+    }
+
+    /**
+     * 执行条件，返回的位图只有selection中的行有效，返回值不能修改
+     */
+    private long[] evaluate(AbstractCondition condition, long[] selection) {
+        final Class<? extends AbstractCondition> clazz = condition.getClass();
+        if (clazz == DefaultCondition.class || clazz == DecisionCondition.class) {
+            long[] result = vectorized.get(condition);
+            if (result == null) {
+                result = vectorize((DefaultCondition) condition);
+                if (result != null) {
+                    vectorized.put(condition, result);
+                }
+            }
+            if (result != null) {
+                return result;
+            }
+        } else if (clazz == ConditionGroup.class) {
+            final long[] running = selection.clone();
+            for (AbstractCondition child : ((ConditionGroup) condition).getConditions()) {
+                final long[] childResult = evaluate(child, running);
+                for (int i = 0; i < running.length; i++) {
+                    running[i] &= childResult[i];
+                }
+                if (isEmpty(running)) {
+                    break;
+                }
+            }
+            return running;
+        } else if (clazz == ConditionSet.class) {
+            final long[] result = new long[selection.length];
+            final long[] remaining = selection.clone();
+            for (AbstractCondition child : ((ConditionSet) condition).getConditionGroups()) {
+                final long[] childResult = evaluate(child, remaining);
+                for (int i = 0; i < remaining.length; i++) {
+                    final long hit = childResult[i] & remaining[i];
+                    result[i] |= hit;
+                    remaining[i] &= ~hit;
+                }
+                if (isEmpty(remaining)) {
+                    break;
+                }
+            }
+            return result;
+        }
+        //逐行执行
+        final long[] result = new long[selection.length];
+        for (int i = nextRow(selection, 0); i >= 0; i = nextRow(selection, i + 1)) {
+            if (condition.evaluate(rowContext.moveTo(i))) {
+                result[i >>> 6] |= 1L << i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按列执行条件
+     *
+     * @return 不能按列执行时返回null
+     */
+    private long[] vectorize(DefaultCondition condition) {
+        final Value left = condition.getLeftValue();
+        final Value right = condition.getRightValue();
+        final Symbol symbol = condition.getSymbol();
+        final Evaluate evaluate = condition.getEvaluate();
+        if (left instanceof Constant && right instanceof Constant) {
+            try {
+                return evaluate.evaluate(((Constant) left).getValue(), ((Constant) right).getValue(), symbol) ? allRows : new long[allRows.length];
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        final boolean elementLeft;
+        final Element element;
+        final Object constant;
+        if (left instanceof Element && right instanceof Constant) {
+            elementLeft = true;
+            element = (Element) left;
+            constant = ((Constant) right).getValue();
+        } else if (left instanceof Constant && right instanceof Element) {
+            elementLeft = false;
+            element = (Element) right;
+            constant = ((Constant) left).getValue();
+        } else {
+            return null;
+        }
+        final Column column = batch.getColumn(element.getCode());
+        if (column == null || column.getDataType() != element.getDataTypeEnum()) {
+            return null;
+        }
+        if (column instanceof NumberColumn) {
+            return symbol.getType() == DataTypeEnum.NUMBER ? compareNumber(((NumberColumn) column).values, constant, symbol, elementLeft) : null;
+        }
+        if (column instanceof StringColumn) {
+            final StringColumn stringColumn = (StringColumn) column;
+            final boolean[] hit = new boolean[stringColumn.dictionary.length];
+            for (int i = 0; i < hit.length; i++) {
+                final Boolean result = evaluateQuietly(evaluate, stringColumn.dictionary[i], constant, symbol, elementLeft);
+                if (result == null) {
+                    return null;
+                }
+                hit[i] = result;
+            }
+            final int[] codes = stringColumn.codes;
+            final long[] result = new long[allRows.length];
+            for (int i = 0; i < rowCount; i++) {
+                if (hit[codes[i]]) {
+                    result[i >>> 6] |= 1L << i;
+                }
+            }
+            return result;
+        }
+        final long[] bits = ((BooleanColumn) column).bits;
+        final Boolean hitFalse = evaluateQuietly(evaluate, Boolean.FALSE, constant, symbol, elementLeft);
+        final Boolean hitTrue = evaluateQuietly(evaluate, Boolean.TRUE, constant, symbol, elementLeft);
+        if (hitFalse == null || hitTrue == null) {
+            return null;
+        }
+        final long[] result = new long[allRows.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((hitTrue ? bits[i] : 0L) | (hitFalse ? ~bits[i] : 0L)) & allRows[i];
+        }
+        return result;
+    }
+
+    private static Boolean evaluateQuietly(Evaluate evaluate, Object value, Object constant, Symbol symbol, boolean elementLeft) {
+        try {
+            return elementLeft ? evaluate.evaluate(value, constant, symbol) : evaluate.evaluate(constant, value, symbol);
+        } catch (RuntimeException e) {
+            //逐行执行时抛出相同的异常
+            return null;
+        }
+    }
+
+    /**
+     * 数字与常量比较，逐行执行时按BigDecimal比较，
+     * 常量能精确表示为double（与double的最短十进制表示相等）时，与直接比较double的结果一致
+     */
+    private long[] compareNumber(double[] values, Object constant, Symbol symbol, boolean elementLeft) {
+        if (!(constant instanceof Number)) {
+            return null;
+        }
+        final double target;
+        try {
+            final BigDecimal exact = new BigDecimal(String.valueOf(constant));
+            target = exact.doubleValue();
+            if (Double.isInfinite(target) || new BigDecimal(String.valueOf(target)).compareTo(exact) != 0) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Symbol operator = symbol;
+        if (!elementLeft) {
+            //常量在左边时交换方向
+            operator = mirror(symbol);
+        }
+        final long[] result = new long[allRows.length];
+        switch (operator) {
+            case number_eq:
+                for (int i = 0; i < rowCount; i++) {
+                    result[i >>> 6] |= (values[i] == target ? 1L : 0L) << i;
+                }
+                return result;
+            case number_ne:
+                for (int i = 0; i < rowCount; i++) {
+                    result[i >>> 6] |= (values[i] != target ? 1L : 0L) << i;
+                }
+                return result;
+            case number_gt:
+                for (int i = 0; i < rowCount; i++) {
+                    result[i >>> 6] |= (values[i] > target ? 1L : 0L) << i;
+                }
+                return result;
+            case number_ge:
+                for (int i = 0; i < rowCount; i++) {
+                    result[i >>> 6] |= (values[i] >= target ? 1L : 0L) << i;
+                }
+                return result;
+            case number_lt:
+                for (int i = 0; i < rowCount; i++) {
+                    result[i >>> 6] |= (values[i] < target ? 1L : 0L) << i;
+                }
+                return result;
+            case number_le:
+                for (int i = 0; i < rowCount; i++) {
+                    result[i >>> 6] |= (values[i] <= target ? 1L : 0L) << i;
+                }
+                return result;
+            default:
+                return null;
+        }
+    }
+
+    private static Symbol mirror(Symbol symbol) {
+        switch (symbol) {
+            case number_gt:
+                return Symbol.number_lt;
+            case number_ge:
+                return Symbol.number_le;
+            case number_lt:
+                return Symbol.number_gt;
+            case number_le:
+                return Symbol.number_ge;
+            default:
+                return symbol;
+        }
+    }
+
+    private static int words(int rowCount) {
+        return (rowCount + 63) >>> 6;
+    }
+
+    private static boolean isSet(long[] bitmap, int row) {
+        return (bitmap[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private static boolean isEmpty(long[] bitmap) {
+        for (long word : bitmap) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 从from开始的下一个选中的行
+     *
+     * @return 没有返回-1
+     */
+    private static int nextRow(long[] bitmap, int from) {
+        int index = from >>> 6;
+        if (index >= bitmap.length) {
+            return -1;
+        }
+        long word = bitmap[index] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (index << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++index == bitmap.length) {
+                return -1;
+            }
+            word = bitmap[index];
+        }
+    }
+}
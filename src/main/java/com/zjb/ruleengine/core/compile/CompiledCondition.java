@@ -0,0 +1,21 @@
+package com.zjb.ruleengine.core.compile;
+
+import com.zjb.ruleengine.core.Context;
+
+/**
+ * 编译后的条件，由{@link ConditionCompiler}生成
+ *
+ * @author 赵静波
+ * @date 2026-10-18 10:12:31
+ */
+@FunctionalInterface
+public interface CompiledCondition {
+
+    /**
+     * 执行条件，返回布尔值，结果与{@link com.zjb.ruleengine.core.condition.AbstractCondition#evaluate(Context)}一致
+     *
+     * @param context 上下文
+     * @return
+     */
+    boolean evaluate(Context context);
+}
@@ -0,0 +1,211 @@
+package com.zjb.ruleengine.core.compile;
+
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.ConditionDag;
+import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.ConditionSet;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.condition.StringPatternIndex;
+import com.zjb.ruleengine.core.condition.evaluate.Evaluate;
+import com.zjb.ruleengine.core.decistion.DecisionCondition;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.value.Constant;
+import com.zjb.ruleengine.core.value.Value;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 条件编译器，把条件树编译成一棵闭包树：
+ * 1. 运算策略、运算符在编译期确定，运行时不再查找evaluateMap
+ * 2. 常量右值在编译期取出，常量与常量的条件直接折叠成true/false
+ * 3. 不超过3个子条件的条件组、条件集展开成定长的短路表达式，省去数组遍历
+ * 4. 在共享DAG中的条件，结果在一次执行中缓存，见{@link ConditionDag}
+ * <p>
+ * 闭包不是按规则生成的类：同一种闭包（如2个子条件的条件组）在所有规则中是同一个lambda类，
+ * 规则较多时闭包内的调用点会看到多个实现，成为多态甚至超多态调用点，JIT不一定能内联。
+ * 叶子条件仍然通过{@link Evaluate}执行，取值可能装箱，运算符仍在策略中按{@link Symbol}分支，
+ * 收益来自省去的策略查找、常量的预处理及折叠，而不是按运算符、类型特化的代码
+ * <p>
+ * 不认识的条件（包括用户继承的子类）回退到解释执行，即直接调用{@link AbstractCondition#evaluate(Context)}
+ *
+ * @author 赵静波
+ * @date 2026-10-18 10:12:31
+ */
+public class ConditionCompiler {
+    private static final Logger log = LogManager.getLogger();
+
+    private static final CompiledCondition ALWAYS_TRUE = context -> true;
+    private static final CompiledCondition ALWAYS_FALSE = context -> false;
+
+    private ConditionCompiler() {
+    }
+
+    /**
+     * 编译条件，编译失败时回退到解释执行
+     *
+     * @param condition
+     * @return
+     */
+    public static CompiledCondition compile(AbstractCondition condition) {
+        try {
+            return doCompile(condition);
+        } catch (RuntimeException e) {
+            log.warn("条件{}编译失败，回退到解释执行", condition.getId(), e);
+            return interpret(condition);
+        }
+    }
+
+    /**
+     * 解释执行
+     *
+     * @param condition
+     * @return
+     */
+    public static CompiledCondition interpret(AbstractCondition condition) {
+        return condition::evaluate;
+    }
+
+    private static CompiledCondition doCompile(AbstractCondition condition) {
+        final CompiledCondition compiled = compileBody(condition);
+        final ConditionDag dag = condition.getDag();
+        if (dag == null || compiled == ALWAYS_TRUE || compiled == ALWAYS_FALSE) {
+            return compiled;
+        }
+        final int nodeId = condition.getNodeId();
+        return context -> dag.evaluate(nodeId, context, compiled);
+    }
+
+    private static CompiledCondition compileBody(AbstractCondition condition) {
+        final Class<? extends AbstractCondition> clazz = condition.getClass();
+        if (clazz == DefaultCondition.class || clazz == DecisionCondition.class) {
+            return compileCondition((DefaultCondition) condition);
+        }
+        if (clazz == ConditionGroup.class && !((ConditionGroup) condition).isAdaptive()) {
+            return compileGroup(((ConditionGroup) condition).getConditions());
+        }
+        if (clazz == ConditionSet.class && !((ConditionSet) condition).isAdaptive()) {
+            return compileSet(((ConditionSet) condition).getConditionGroups());
+        }
+        return interpret(condition);
+    }
+
+    private static CompiledCondition compileCondition(DefaultCondition condition) {
+        final Evaluate evaluate = condition.getEvaluate();
+        final Symbol symbol = condition.getSymbol();
+        final Value left = condition.getLeftValue();
+        final Value right = condition.getRightValue();
+        if (!(right instanceof Constant)) {
+            return context -> evaluate.evaluate(left.getValue(context), right.getValue(context), symbol);
+        }
+        final Object rightConstant = ((Constant) right).getValue();
+        if (left instanceof Constant) {
+            final Object leftConstant = ((Constant) left).getValue();
+            try {
+                return evaluate.evaluate(leftConstant, rightConstant, symbol) ? ALWAYS_TRUE : ALWAYS_FALSE;
+            } catch (RuntimeException e) {
+                //保留运行时的异常
+                return context -> evaluate.evaluate(leftConstant, rightConstant, symbol);
+            }
+        }
+        if (StringPatternIndex.isIndexable(condition)) {
+            //规则集建立前后缀索引后由索引执行，索引可能在编译之后才建立
+            return condition::evaluate;
+        }
+        final Object prepared = evaluate.prepare(rightConstant, symbol);
+        return context -> evaluate.evaluate(left.getValue(context), prepared, symbol);
+    }
+
+    /**
+     * 条件组，&&关系
+     */
+    private static CompiledCondition compileGroup(List<? extends AbstractCondition> conditions) {
+        final List<CompiledCondition> compiled = new ArrayList<>(conditions.size());
+        for (AbstractCondition condition : conditions) {
+            final CompiledCondition child = doCompile(condition);
+            if (child == ALWAYS_TRUE) {
+                continue;
+            }
+            compiled.add(child);
+            if (child == ALWAYS_FALSE) {
+                //之后的条件不会被执行
+                break;
+            }
+        }
+        switch (compiled.size()) {
+            case 0:
+                return ALWAYS_TRUE;
+            case 1:
+                return compiled.get(0);
+            case 2: {
+                final CompiledCondition first = compiled.get(0);
+                final CompiledCondition second = compiled.get(1);
+                return context -> first.evaluate(context) && second.evaluate(context);
+            }
+            case 3: {
+                final CompiledCondition first = compiled.get(0);
+                final CompiledCondition second = compiled.get(1);
+                final CompiledCondition third = compiled.get(2);
+                return context -> first.evaluate(context) && second.evaluate(context) && third.evaluate(context);
+            }
+            default:
+                final CompiledCondition[] children = compiled.toArray(new CompiledCondition[0]);
+                return context -> {
+                    for (CompiledCondition child : children) {
+                        if (!child.evaluate(context)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                };
+        }
+    }
+
+    /**
+     * 条件集，||关系
+     */
+    private static CompiledCondition compileSet(List<? extends AbstractCondition> conditionGroups) {
+        final List<CompiledCondition> compiled = new ArrayList<>(conditionGroups.size());
+        for (AbstractCondition conditionGroup : conditionGroups) {
+            final CompiledCondition child = doCompile(conditionGroup);
+            if (child == ALWAYS_FALSE) {
+                continue;
+            }
+            compiled.add(child);
+            if (child == ALWAYS_TRUE) {
+                //之后的条件组不会被执行
+                break;
+            }
+        }
+        switch (compiled.size()) {
+            case 0:
+                return ALWAYS_FALSE;
+            case 1:
+                return compiled.get(0);
+            case 2: {
+                final CompiledCondition first = compiled.get(0);
+                final CompiledCondition second = compiled.get(1);
+                return context -> first.evaluate(context) || second.evaluate(context);
+            }
+            case 3: {
+                final CompiledCondition first = compiled.get(0);
+                final CompiledCondition second = compiled.get(1);
+                final CompiledCondition third = compiled.get(2);
+                return context -> first.evaluate(context) || second.evaluate(context) || third.evaluate(context);
+            }
+            default:
+                final CompiledCondition[] children = compiled.toArray(new CompiledCondition[0]);
+                return context -> {
+                    for (CompiledCondition child : children) {
+                        if (child.evaluate(context)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+        }
+    }
+}
@@ -19,6 +19,12 @@ public abstract class AbstractCondition implements Serializable, Weight, Collect
      */
     private String id;
 
+    /**
+     * 条件所在的共享DAG及在DAG中的编号，只有一次执行中结果确定的条件才会绑定，见{@link ConditionDag}
+     */
+    private transient ConditionDag dag;
+    private transient int nodeId = -1;
+
     /**
      * @return boolean
      * @Author zjb
@@ -28,6 +34,17 @@ public abstract class AbstractCondition implements Serializable, Weight, Collect
      **/
     public abstract boolean evaluate(Context context);
 
+    /**
+     * 执行条件，条件在共享DAG中时，同一次执行中只执行一次
+     *
+     * @param context
+     * @return
+     */
+    public final boolean evaluateShared(Context context) {
+        final ConditionDag dag = this.dag;
+        return dag == null ? evaluate(context) : dag.evaluate(this, context);
+    }
+
     /**
      * build ,可以优化condition的执行顺序
      *
@@ -55,5 +72,18 @@ public abstract class AbstractCondition implements Serializable, Weight, Collect
         this.id = id;
     }
 
+    public ConditionDag getDag() {
+        return dag;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    void bindNode(ConditionDag dag, int nodeId) {
+        this.dag = dag;
+        this.nodeId = nodeId;
+    }
+
 
 }
\ No newline at end of file
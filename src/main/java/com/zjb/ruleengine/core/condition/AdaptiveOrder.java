@@ -0,0 +1,210 @@
+package com.zjb.ruleengine.core.condition;
+
+import com.zjb.ruleengine.core.Context;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 条件组、条件集的自适应执行顺序
+ * <p>
+ * 执行时抽样记录每个子条件的耗时及结果（{@link LongAdder}，多线程下没有竞争），
+ * 定期按 平均耗时/短路概率 从小到大重新排序：条件组（&&）的短路概率是为false的概率，条件集（||）是为true的概率。
+ * 新的顺序是一个新的数组，替换volatile引用发布，执行中的线程继续使用读到的数组，不加锁，也不会读到不完整的顺序
+ * <p>
+ * 统计按窗口衰减（每次排序时与上个窗口各占一半），没有抽样过的条件排在最前面，以便尽快得到它的统计
+ * <p>
+ * 只有子条件没有副作用且不会抛出异常时才能开启：重新排序后原来在前面起保护作用的条件可能排到后面，
+ * 例如先判断参数是数字、再按数字比较（{@link com.zjb.ruleengine.core.condition.evaluate.NumberEvaluateStrategy}），
+ * 参数不是数字时比较会抛出异常；子条件有副作用时执行顺序不同，结果也可能不同。
+ * 开启的条件组、条件集在共享DAG中与未开启的分开合并（见{@link ConditionDag}），不影响其它规则的执行顺序
+ *
+ * @author 赵静波
+ * @date 2026-10-18 20:21:05
+ */
+public final class AdaptiveOrder {
+    private static final Logger log = LogManager.getLogger();
+
+    /**
+     * 每SAMPLE_RATE次执行抽样一次
+     */
+    static final int SAMPLE_RATE = 16;
+
+    /**
+     * 平均每REORDER_INTERVAL次抽样重新排序一次
+     */
+    static final int REORDER_INTERVAL = 64;
+
+    /**
+     * 子条件为该结果时短路：条件组为false，条件集为true
+     */
+    private final boolean shortCircuit;
+
+    private volatile Entry[] order;
+
+    private final AtomicBoolean reordering = new AtomicBoolean();
+
+    AdaptiveOrder(List<? extends AbstractCondition> conditions, boolean shortCircuit) {
+        this.shortCircuit = shortCircuit;
+        final Entry[] entries = new Entry[conditions.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Entry(conditions.get(i), i);
+        }
+        this.order = entries;
+    }
+
+    /**
+     * 开启条件及其子条件的自适应执行顺序
+     *
+     * @param condition
+     */
+    public static void enable(AbstractCondition condition) {
+        if (condition instanceof ConditionGroup) {
+            final ConditionGroup group = (ConditionGroup) condition;
+            group.setAdaptive(true);
+            group.getConditions().forEach(AdaptiveOrder::enable);
+        } else if (condition instanceof ConditionSet) {
+            final ConditionSet set = (ConditionSet) condition;
+            set.setAdaptive(true);
+            set.getConditionGroups().forEach(AdaptiveOrder::enable);
+        }
+    }
+
+    /**
+     * 按当前顺序执行子条件，遇到短路的结果时停止
+     *
+     * @param context
+     * @return 有子条件短路时返回短路的结果，否则返回相反的结果
+     */
+    boolean evaluate(Context context) {
+        final Entry[] entries = this.order;
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(SAMPLE_RATE) != 0) {
+            for (Entry entry : entries) {
+                if (entry.condition.evaluateShared(context) == shortCircuit) {
+                    return shortCircuit;
+                }
+            }
+            return !shortCircuit;
+        }
+        try {
+            for (Entry entry : entries) {
+                final long start = System.nanoTime();
+                final boolean result = entry.condition.evaluateShared(context);
+                entry.record(System.nanoTime() - start, result == shortCircuit);
+                if (result == shortCircuit) {
+                    return shortCircuit;
+                }
+            }
+            return !shortCircuit;
+        } finally {
+            if (random.nextInt(REORDER_INTERVAL) == 0) {
+                reorder();
+            }
+        }
+    }
+
+    /**
+     * 按统计重新排序，同时只有一个线程排序，其它线程不等待
+     */
+    void reorder() {
+        if (!reordering.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final Entry[] entries = this.order.clone();
+            for (Entry entry : entries) {
+                entry.roll();
+            }
+            Arrays.sort(entries, Comparator.comparingDouble(Entry::score).thenComparingInt(entry -> entry.index));
+            this.order = entries;
+            log.debug("条件自适应排序：{}", Arrays.asList(entries));
+        } finally {
+            reordering.set(false);
+        }
+    }
+
+    /**
+     * 当前的执行顺序
+     *
+     * @return
+     */
+    public List<AbstractCondition> getOrder() {
+        final Entry[] entries = this.order;
+        final List<AbstractCondition> result = new ArrayList<>(entries.length);
+        for (Entry entry : entries) {
+            result.add(entry.condition);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static final class Entry {
+        private final AbstractCondition condition;
+        /**
+         * 在原来列表中的顺序，分数相同时保持原来的顺序
+         */
+        private final int index;
+
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder shortCircuits = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        /**
+         * 衰减后的平均耗时、短路概率，只由排序的线程读写
+         */
+        private double cost = Double.NaN;
+        private double probability;
+
+        private Entry(AbstractCondition condition, int index) {
+            this.condition = condition;
+            this.index = index;
+        }
+
+        private void record(long elapsed, boolean shortCircuit) {
+            samples.increment();
+            nanos.add(elapsed);
+            if (shortCircuit) {
+                shortCircuits.increment();
+            }
+        }
+
+        /**
+         * 把当前窗口的统计合并到衰减后的统计中
+         */
+        private void roll() {
+            final long count = samples.sumThenReset();
+            final long hit = shortCircuits.sumThenReset();
+            final long elapsed = nanos.sumThenReset();
+            if (count == 0) {
+                return;
+            }
+            final double windowCost = (double) elapsed / count;
+            //拉普拉斯平滑，避免概率为0
+            final double windowProbability = (hit + 1.0) / (count + 2.0);
+            if (Double.isNaN(cost)) {
+                cost = windowCost;
+                probability = windowProbability;
+            } else {
+                cost = (cost + windowCost) / 2;
+                probability = (probability + windowProbability) / 2;
+            }
+        }
+
+        private double score() {
+            return Double.isNaN(cost) ? 0 : cost / probability;
+        }
+
+        @Override
+        public String toString() {
+            return condition.getId() + "(" + score() + ")";
+        }
+    }
+}
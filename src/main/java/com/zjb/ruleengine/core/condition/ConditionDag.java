@@ -0,0 +1,514 @@
+package com.zjb.ruleengine.core.condition;
+
+import com.google.common.collect.MapMaker;
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.ExecutionMemo;
+import com.zjb.ruleengine.core.compile.CompiledCondition;
+import com.zjb.ruleengine.core.decistion.DecisionCondition;
+import com.zjb.ruleengine.core.value.Value;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 条件的共享DAG，由规则引擎持有，注册规则时把规则中的值、条件合并到DAG中：
+ * 1. 相等的值、条件合并为同一个实例
+ * 2. 条件组、条件集的子条件合并后，子条件相同的条件组、条件集也合并为同一个实例
+ * 3. 结果在一次执行中确定的条件（值都是确定的）分配一个编号，
+ * 注册规则时把规则（包括嵌套的规则）中条件的编号映射为连续的槽位（见{@link NodeSlots}），
+ * 每次执行在{@link ExecutionMemo}中持有一个按最外层规则的槽位数量创建的byte[]，记录已执行条件的结果，
+ * 被多个规则共享的条件在一次执行中只执行一次；结果数组的大小只与规则有关，与DAG中条件的总数无关
+ * <p>
+ * 条件的结果在一次执行中不会自动失效，规则的后置处理器修改上下文后调用{@link #invalidate(ExecutionMemo)}清空
+ * <p>
+ * 相等的值、条件通过{@link ConditionInterner}驻留，默认弱引用，规则删除后不再使用的条件、值可以被回收，
+ * 被回收的条件的编号在之后注册条件时重新分配
+ * <p>
+ * 只合并{@link DefaultCondition}、{@link DecisionCondition}、{@link ConditionGroup}、{@link ConditionSet}，
+ * 其它条件（包括用户继承的子类）保持原样
+ *
+ * @author 赵静波
+ * @date 2026-10-18 15:10:48
+ */
+public class ConditionDag implements Serializable {
+    private static final Logger log = LogManager.getLogger();
+    private static final long serialVersionUID = -2750165430829513347L;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+
+    /**
+     * 共享的值、条件：
+     * 值的key=值的类型及值，{@link com.zjb.ruleengine.core.value.Variable}的equals不比较类型；
+     * 条件的key=条件类型及其组成部分
+     */
+    private final ConditionInterner interner;
+
+    /**
+     * 已经在DAG中的条件，包括没有编号的条件，弱引用，按实例比较
+     */
+    private final transient Set<AbstractCondition> members = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+
+    /**
+     * 分配了编号的条件，条件被回收后编号放入freeNodeIds
+     */
+    private final transient Set<NodeReference> nodeReferences = new HashSet<>();
+    private final transient ReferenceQueue<AbstractCondition> releasedNodes = new ReferenceQueue<>();
+    private final transient Deque<Integer> freeNodeIds = new ArrayDeque<>();
+
+    /**
+     * 合并掉的重复条件数量
+     */
+    private int sharedCount;
+
+    /**
+     * 分配的编号数量
+     */
+    private volatile int nodeCount;
+
+    public ConditionDag() {
+        this(new WeakConditionInterner());
+    }
+
+    public ConditionDag(ConditionInterner interner) {
+        this.interner = interner;
+    }
+
+    /**
+     * 把条件合并到DAG中
+     *
+     * @param condition
+     * @return 共享的条件，可能不是传入的实例
+     */
+    public synchronized AbstractCondition share(AbstractCondition condition) {
+        if (condition == null) {
+            return null;
+        }
+        if (members.contains(condition)) {
+            return condition;
+        }
+        final Class<? extends AbstractCondition> clazz = condition.getClass();
+        if (clazz == DefaultCondition.class || clazz == DecisionCondition.class) {
+            return shareCondition((DefaultCondition) condition);
+        }
+        if (clazz == ConditionGroup.class) {
+            final ConditionGroup group = (ConditionGroup) condition;
+            final List<AbstractCondition> children = shareChildren(group.getConditions());
+            final AbstractCondition shared = register(group, key(clazz, group.isAdaptive(), children), children);
+            if (shared == group) {
+                group.setConditions(children);
+            }
+            return shared;
+        }
+        if (clazz == ConditionSet.class) {
+            final ConditionSet set = (ConditionSet) condition;
+            final List<AbstractCondition> children = shareChildren(set.getConditionGroups());
+            final AbstractCondition shared = register(set, key(clazz, set.isAdaptive(), children), children);
+            if (shared == set) {
+                set.setConditionGroups(children);
+            }
+            return shared;
+        }
+        return condition;
+    }
+
+    /**
+     * 把值合并到DAG中
+     *
+     * @param value
+     * @return 共享的值
+     */
+    public synchronized Value share(Value value) {
+        return interner.intern(valueKey(value), value, ConditionDag::valueKey);
+    }
+
+    /**
+     * 执行条件，本次执行中已经执行过的直接返回结果
+     *
+     * @param condition 绑定到当前DAG的条件
+     * @param context
+     * @return
+     */
+    boolean evaluate(AbstractCondition condition, Context context) {
+        final ExecutionMemo memo = context.getMemo();
+        if (memo == null) {
+            return condition.evaluate(context);
+        }
+        final NodeResults results = memo.getLocal(this, () -> NodeResults.NONE);
+        final int slot = results.slots.slot(condition.getNodeId());
+        if (slot < 0) {
+            //不在最外层规则中的条件（如本次执行开始后注册的条件）
+            return condition.evaluate(context);
+        }
+        if (results.values[slot] != UNKNOWN) {
+            return results.values[slot] == TRUE;
+        }
+        final boolean result = condition.evaluate(context);
+        results.values[slot] = result ? TRUE : FALSE;
+        return result;
+    }
+
+    /**
+     * 执行编译后的条件，本次执行中已经执行过的直接返回结果
+     *
+     * @param nodeId  条件在当前DAG中的编号
+     * @param context
+     * @param body    编译后的条件
+     * @return
+     */
+    public boolean evaluate(int nodeId, Context context, CompiledCondition body) {
+        final ExecutionMemo memo = context.getMemo();
+        if (memo == null) {
+            return body.evaluate(context);
+        }
+        final NodeResults results = memo.getLocal(this, () -> NodeResults.NONE);
+        final int slot = results.slots.slot(nodeId);
+        if (slot < 0) {
+            return body.evaluate(context);
+        }
+        if (results.values[slot] != UNKNOWN) {
+            return results.values[slot] == TRUE;
+        }
+        final boolean result = body.evaluate(context);
+        results.values[slot] = result ? TRUE : FALSE;
+        return result;
+    }
+
+    /**
+     * 规则开始执行时调用，本次执行还没有结果数组时按规则的槽位创建，嵌套的规则使用最外层规则的结果数组
+     *
+     * @param memo  本次执行的缓存
+     * @param slots 规则的槽位，由当前DAG生成
+     */
+    public void prepare(ExecutionMemo memo, NodeSlots slots) {
+        final NodeResults results = memo.getLocal(this, () -> null);
+        if (results == null || results == NodeResults.NONE) {
+            memo.put(this, new NodeResults(slots));
+        }
+    }
+
+    /**
+     * 清空本次执行中条件的结果，上下文被修改（如规则的后置处理器）后调用
+     *
+     * @param memo 本次执行的缓存
+     */
+    public void invalidate(ExecutionMemo memo) {
+        final NodeResults results = memo.getLocal(this, () -> null);
+        if (results != null) {
+            Arrays.fill(results.values, UNKNOWN);
+        }
+    }
+
+    /**
+     * 生成规则的槽位
+     *
+     * @param conditions 规则的条件，包括子条件
+     * @param nested     嵌套的规则的槽位
+     * @return
+     */
+    public NodeSlots slots(Collection<? extends AbstractCondition> conditions, Collection<NodeSlots> nested) {
+        final Set<Integer> nodeIds = new LinkedHashSet<>();
+        final Deque<AbstractCondition> stack = new ArrayDeque<>();
+        push(stack, conditions);
+        while (!stack.isEmpty()) {
+            final AbstractCondition condition = stack.pop();
+            if (condition.getDag() == this) {
+                nodeIds.add(condition.getNodeId());
+            }
+            if (condition instanceof ConditionGroup) {
+                push(stack, ((ConditionGroup) condition).getConditions());
+            } else if (condition instanceof ConditionSet) {
+                push(stack, ((ConditionSet) condition).getConditionGroups());
+            }
+        }
+        for (NodeSlots slots : nested) {
+            if (slots != null && slots.dag == this) {
+                for (int nodeId : slots.nodeIds) {
+                    nodeIds.add(nodeId);
+                }
+            }
+        }
+        return new NodeSlots(this, nodeIds.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static void push(Deque<AbstractCondition> stack, Collection<? extends AbstractCondition> conditions) {
+        if (conditions == null) {
+            return;
+        }
+        for (AbstractCondition condition : conditions) {
+            if (condition != null) {
+                stack.push(condition);
+            }
+        }
+    }
+
+    /**
+     * 编号的数量（最大编号+1），包括已经被回收、等待重新分配的编号
+     *
+     * @return
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 当前有编号的条件数量
+     *
+     * @return
+     */
+    public synchronized int getLiveNodeCount() {
+        expungeNodes();
+        return nodeReferences.size();
+    }
+
+    public ConditionInterner getInterner() {
+        return interner;
+    }
+
+    /**
+     * 合并掉的重复条件数量
+     *
+     * @return
+     */
+    public synchronized int getSharedCount() {
+        return sharedCount;
+    }
+
+    private AbstractCondition shareCondition(DefaultCondition condition) {
+        final Value left = share(condition.getLeftValue());
+        final Value right = share(condition.getRightValue());
+        final List<Object> key = Arrays.asList(condition.getClass(), condition.getSymbol(), left, right);
+        final AbstractCondition shared = interner.intern(key, condition, ConditionDag::conditionKey);
+        if (shared != condition) {
+            sharedCount++;
+            return shared;
+        }
+        condition.setLeftValue(left);
+        condition.setRightValue(right);
+        bind(condition, left.isDeterministic() && right.isDeterministic());
+        return condition;
+    }
+
+    private List<AbstractCondition> shareChildren(List<? extends AbstractCondition> children) {
+        final List<AbstractCondition> result = new ArrayList<>(children.size());
+        for (AbstractCondition child : children) {
+            final AbstractCondition shared = share(child);
+            //不能合并的条件也加入DAG，按实例区分条件组、条件集
+            members.add(shared);
+            result.add(shared);
+        }
+        return result;
+    }
+
+    private static List<Object> valueKey(Value value) {
+        return Arrays.asList(value.getDataTypeEnum(), value);
+    }
+
+    /**
+     * 已经在DAG中的条件的key，与注册时的key一致
+     */
+    private static List<Object> conditionKey(AbstractCondition condition) {
+        if (condition instanceof ConditionGroup) {
+            final ConditionGroup group = (ConditionGroup) condition;
+            return key(condition.getClass(), group.isAdaptive(), group.getConditions());
+        }
+        if (condition instanceof ConditionSet) {
+            final ConditionSet set = (ConditionSet) condition;
+            return key(condition.getClass(), set.isAdaptive(), set.getConditionGroups());
+        }
+        final DefaultCondition defaultCondition = (DefaultCondition) condition;
+        return Arrays.asList(condition.getClass(), defaultCondition.getSymbol(), defaultCondition.getLeftValue(), defaultCondition.getRightValue());
+    }
+
+    /**
+     * 条件组、条件集的key，自适应执行顺序的统计及顺序属于实例，开启与未开启的不能合并，
+     * 否则一个规则开启后会改变共享该实例的所有规则的执行顺序
+     */
+    private static List<Object> key(Class<? extends AbstractCondition> clazz, boolean adaptive, List<? extends AbstractCondition> children) {
+        final List<Object> key = new ArrayList<>(children.size() + 2);
+        key.add(clazz);
+        key.add(adaptive);
+        for (AbstractCondition child : children) {
+            //子条件已经是共享的实例，按实例区分
+            key.add(new IdentityKey(child));
+        }
+        return key;
+    }
+
+    private AbstractCondition register(AbstractCondition condition, List<Object> key, List<AbstractCondition> children) {
+        final AbstractCondition shared = interner.intern(key, condition, ConditionDag::conditionKey);
+        if (shared != condition) {
+            sharedCount++;
+            return shared;
+        }
+        bind(condition, children.stream().allMatch(child -> child.getDag() == this));
+        return condition;
+    }
+
+    private void bind(AbstractCondition condition, boolean deterministic) {
+        members.add(condition);
+        if (!deterministic || condition.getDag() != null) {
+            //结果不确定，或者已经在其它DAG中
+            return;
+        }
+        expungeNodes();
+        final Integer freeNodeId = freeNodeIds.poll();
+        final int nodeId = freeNodeId != null ? freeNodeId : nodeCount;
+        condition.bindNode(this, nodeId);
+        nodeReferences.add(new NodeReference(condition, nodeId, releasedNodes));
+        if (freeNodeId == null) {
+            nodeCount = nodeId + 1;
+        }
+        log.debug("条件{}加入共享DAG，编号{}", condition.getId(), nodeId);
+    }
+
+    /**
+     * 反序列化后条件没有绑定编号（见{@link AbstractCondition}），返回只保留驻留服务的空DAG
+     */
+    private Object readResolve() {
+        return new ConditionDag(interner);
+    }
+
+    /**
+     * 回收被回收条件的编号，条件被回收说明没有执行中的规则在使用它，编号可以安全地分配给新的条件
+     */
+    private void expungeNodes() {
+        NodeReference reference;
+        while ((reference = (NodeReference) releasedNodes.poll()) != null) {
+            if (nodeReferences.remove(reference)) {
+                freeNodeIds.push(reference.nodeId);
+            }
+        }
+    }
+
+    /**
+     * 规则中条件的编号到连续槽位的映射，不可修改，开放寻址
+     */
+    public static final class NodeSlots {
+        private static final NodeSlots EMPTY = new NodeSlots(null, new int[0]);
+
+        private final ConditionDag dag;
+        private final int[] nodeIds;
+        /**
+         * 编号+1，0为空
+         */
+        private final int[] keys;
+        private final int[] slots;
+        private final int mask;
+
+        private NodeSlots(ConditionDag dag, int[] nodeIds) {
+            this.dag = dag;
+            this.nodeIds = nodeIds;
+            int capacity = 2;
+            while (capacity < nodeIds.length * 2) {
+                capacity <<= 1;
+            }
+            this.keys = new int[capacity];
+            this.slots = new int[capacity];
+            this.mask = capacity - 1;
+            for (int slot = 0; slot < nodeIds.length; slot++) {
+                int index = mix(nodeIds[slot]) & mask;
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = nodeIds[slot] + 1;
+                slots[index] = slot;
+            }
+        }
+
+        /**
+         * @return 编号对应的槽位，不在规则中时返回-1
+         */
+        int slot(int nodeId) {
+            int index = mix(nodeId) & mask;
+            while (true) {
+                final int key = keys[index];
+                if (key == nodeId + 1) {
+                    return slots[index];
+                }
+                if (key == 0) {
+                    return -1;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        private static int mix(int nodeId) {
+            return nodeId * 0x9E3779B9;
+        }
+
+        public ConditionDag getDag() {
+            return dag;
+        }
+
+        /**
+         * @return 槽位数量，即每次执行的结果数组大小
+         */
+        public int size() {
+            return nodeIds.length;
+        }
+    }
+
+    /**
+     * 一次执行中条件的结果
+     */
+    private static final class NodeResults {
+        private static final NodeResults NONE = new NodeResults(NodeSlots.EMPTY);
+
+        private final NodeSlots slots;
+        private final byte[] values;
+
+        private NodeResults(NodeSlots slots) {
+            this.slots = slots;
+            this.values = new byte[slots.size()];
+        }
+    }
+
+    /**
+     * 条件的弱引用及编号
+     */
+    private static final class NodeReference extends WeakReference<AbstractCondition> {
+        private final int nodeId;
+
+        private NodeReference(AbstractCondition condition, int nodeId, ReferenceQueue<AbstractCondition> queue) {
+            super(condition, queue);
+            this.nodeId = nodeId;
+        }
+    }
+
+    /**
+     * 按实例比较的key
+     */
+    private static final class IdentityKey implements Serializable {
+        private static final long serialVersionUID = 6188720407539211342L;
+        private final Object target;
+
+        private IdentityKey(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IdentityKey && ((IdentityKey) other).target == target;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(target);
+        }
+    }
+}
@@ -3,12 +3,12 @@ package com.zjb.ruleengine.core.condition;
 
 import com.zjb.ruleengine.core.Context;
 import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Variable;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -18,17 +18,18 @@ import java.util.stream.Collectors;
 
 public class ConditionGroup extends AbstractCondition {
     private static final Logger log = LogManager.getLogger();
-    /**
-     * 全局缓存，少存储condition
-     */
-    private static Map<AbstractCondition, AbstractCondition> CONDITION_CACHE = new ConcurrentHashMap<>();
     /**
      * 条件组，由多个条件组成，条件全部为true则为true
      */
     private List<AbstractCondition> conditions;
 
     /**
-     * 原型模式
+     * 自适应执行顺序，开启后按运行时的统计调整子条件的执行顺序，见{@link AdaptiveOrder}
+     */
+    private transient volatile AdaptiveOrder adaptiveOrder;
+
+    /**
+     * 相等的条件在注册到规则引擎时合并，见{@link ConditionDag}
      *
      * @param id
      * @param conditions
@@ -36,18 +37,10 @@ public class ConditionGroup extends AbstractCondition {
     public ConditionGroup(String id, List<? extends AbstractCondition> conditions) {
         super(id);
         Validate.notEmpty(conditions, "conditions not empty");
-        this.conditions = conditions.stream().map(con -> {
-            if (CONDITION_CACHE.containsKey(con)) {
-                return CONDITION_CACHE.get(con);
-            }
-            CONDITION_CACHE.put(con, con);
-            return con;
-        }).collect(Collectors.toList());
+        this.conditions = new ArrayList<>(conditions);
     }
 
     /**
-     * 原型模式
-     *
      * @param conditions
      */
     public ConditionGroup(List<? extends AbstractCondition> conditions) {
@@ -63,13 +56,8 @@ public class ConditionGroup extends AbstractCondition {
         if (conditions == null) {
             conditions = new ArrayList<>(16);
         }
-        if (CONDITION_CACHE.containsKey(condition)) {
-            conditions.add(CONDITION_CACHE.get(condition));
-        } else {
-            CONDITION_CACHE.put(condition, condition);
-            conditions.add(condition);
-        }
-
+        conditions.add(condition);
+        refreshAdaptive();
     }
 
     @Override
@@ -78,6 +66,17 @@ public class ConditionGroup extends AbstractCondition {
         return Collections.unmodifiableSet(collect);
     }
 
+    @Override
+    public Collection<Variable> collectVariable() {
+        final Set<Variable> collect = conditions.stream().flatMap(con -> con.collectVariable().stream()).collect(Collectors.toCollection(LinkedHashSet::new));
+        return Collections.unmodifiableSet(collect);
+    }
+
+    @Override
+    public Collection<DefaultCondition> collectCondition() {
+        return conditions.stream().flatMap(con -> con.collectCondition().stream()).collect(Collectors.toList());
+    }
+
     /**
      * @return boolean
      * @Author zjb
@@ -87,9 +86,15 @@ public class ConditionGroup extends AbstractCondition {
      **/
     @Override
     public boolean evaluate(Context context) {
+        final AdaptiveOrder adaptiveOrder = this.adaptiveOrder;
+        if (adaptiveOrder != null) {
+            final boolean result = adaptiveOrder.evaluate(context);
+            log.debug("ConditionGroup id:{},执行结果{}", super.getId(), result);
+            return result;
+        }
         boolean result = true;
         for (AbstractCondition condition : conditions) {
-            if (!condition.evaluate(context)) {
+            if (!condition.evaluateShared(context)) {
                 result = false;
                 break;
             }
@@ -112,4 +117,39 @@ public class ConditionGroup extends AbstractCondition {
     public List<AbstractCondition> getConditions() {
         return Collections.unmodifiableList(conditions);
     }
-}
\ No newline at end of file
+
+    /**
+     * 替换子条件，只用于{@link ConditionDag}把子条件替换为共享的条件
+     *
+     * @param conditions
+     */
+    void setConditions(List<AbstractCondition> conditions) {
+        this.conditions = conditions;
+        refreshAdaptive();
+    }
+
+    public boolean isAdaptive() {
+        return adaptiveOrder != null;
+    }
+
+    /**
+     * 开启或关闭自适应执行顺序
+     *
+     * @param adaptive
+     */
+    public void setAdaptive(boolean adaptive) {
+        if (adaptive != isAdaptive()) {
+            this.adaptiveOrder = adaptive ? new AdaptiveOrder(conditions, false) : null;
+        }
+    }
+
+    public AdaptiveOrder getAdaptiveOrder() {
+        return adaptiveOrder;
+    }
+
+    private void refreshAdaptive() {
+        if (adaptiveOrder != null) {
+            this.adaptiveOrder = new AdaptiveOrder(conditions, false);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.zjb.ruleengine.core.condition;
+
+import java.io.Serializable;
+import java.util.function.Function;
+
+/**
+ * 条件、值的驻留服务，相等的实例只保留一个，由规则引擎持有（见{@link ConditionDag}），不同的引擎互不影响
+ * <p>
+ * 实现不能强引用驻留的实例，规则删除后不再使用的条件、值可以被回收，默认实现见{@link WeakConditionInterner}
+ *
+ * @author 赵静波
+ * @date 2026-10-18 20:58:14
+ */
+public interface ConditionInterner extends Serializable {
+
+    /**
+     * 返回key相等的已有实例，没有时驻留candidate
+     *
+     * @param key       candidate的key
+     * @param candidate 待驻留的实例
+     * @param keyOf     计算实例的key，与candidate一起保存，用于之后的比较
+     * @return 已有的实例或candidate
+     */
+    <T> T intern(Object key, T candidate, Function<? super T, ?> keyOf);
+
+    /**
+     * 驻留的实例数量，不包括已经被回收的
+     *
+     * @return
+     */
+    int size();
+
+    /**
+     * 调用{@link #intern(Object, Object, Function)}的次数
+     *
+     * @return
+     */
+    long getRequestCount();
+
+    /**
+     * 返回已有实例的次数
+     *
+     * @return
+     */
+    long getHitCount();
+
+    /**
+     * 清空驻留的实例
+     */
+    void clear();
+}
@@ -3,12 +3,12 @@ package com.zjb.ruleengine.core.condition;
 
 import com.zjb.ruleengine.core.Context;
 import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Variable;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -18,10 +18,6 @@ import java.util.stream.Collectors;
 public class ConditionSet extends AbstractCondition {
 
     private static final Logger log = LogManager.getLogger();
-    /**
-     * 全局缓存，少存储condition
-     */
-    private static Map<AbstractCondition, AbstractCondition> CONDITION_GROUP_CACHE = new ConcurrentHashMap<>();
     /**
      * 条件集由多个条件组组成
      * 条件全部为true则为true
@@ -30,7 +26,12 @@ public class ConditionSet extends AbstractCondition {
     private List<AbstractCondition> conditionGroups;
 
     /**
-     * 原型模式
+     * 自适应执行顺序，开启后按运行时的统计调整子条件的执行顺序，见{@link AdaptiveOrder}
+     */
+    private transient volatile AdaptiveOrder adaptiveOrder;
+
+    /**
+     * 相等的条件在注册到规则引擎时合并，见{@link ConditionDag}
      *
      * @param id
      * @param conditionGroups
@@ -38,16 +39,7 @@ public class ConditionSet extends AbstractCondition {
     public ConditionSet(String id, List<? extends AbstractCondition> conditionGroups) {
         super(id);
         Validate.notEmpty(conditionGroups, "conditionGroups not empty");
-        this.conditionGroups = conditionGroups.stream().map(con -> {
-            if (CONDITION_GROUP_CACHE.containsKey(con)) {
-                return CONDITION_GROUP_CACHE.get(con);
-            }
-            CONDITION_GROUP_CACHE.put(con, con);
-            return con;
-        }).collect(Collectors.toList());
-        for (AbstractCondition conditionGroup : conditionGroups) {
-            CONDITION_GROUP_CACHE.put(conditionGroup, conditionGroup);
-        }
+        this.conditionGroups = new ArrayList<>(conditionGroups);
     }
 
     public ConditionSet(List<? extends AbstractCondition> conditionGroups) {
@@ -59,12 +51,8 @@ public class ConditionSet extends AbstractCondition {
             conditionGroups = new ArrayList<>(16);
         }
 
-        if (CONDITION_GROUP_CACHE.containsKey(conditionGroup)) {
-            conditionGroups.add(CONDITION_GROUP_CACHE.get(conditionGroup));
-        } else {
-            CONDITION_GROUP_CACHE.put(conditionGroup, conditionGroup);
-            conditionGroups.add(conditionGroup);
-        }
+        conditionGroups.add(conditionGroup);
+        refreshAdaptive();
     }
 
     @Override
@@ -73,6 +61,17 @@ public class ConditionSet extends AbstractCondition {
         return Collections.unmodifiableSet(collect);
     }
 
+    @Override
+    public Collection<Variable> collectVariable() {
+        final Set<Variable> collect = conditionGroups.stream().flatMap(con -> con.collectVariable().stream()).collect(Collectors.toCollection(LinkedHashSet::new));
+        return Collections.unmodifiableSet(collect);
+    }
+
+    @Override
+    public Collection<DefaultCondition> collectCondition() {
+        return conditionGroups.stream().flatMap(con -> con.collectCondition().stream()).collect(Collectors.toList());
+    }
+
     /**
      * @return boolean
      * @Author zjb
@@ -82,9 +81,15 @@ public class ConditionSet extends AbstractCondition {
      **/
     @Override
     public boolean evaluate(Context context) {
+        final AdaptiveOrder adaptiveOrder = this.adaptiveOrder;
+        if (adaptiveOrder != null) {
+            final boolean result = adaptiveOrder.evaluate(context);
+            log.debug("ConditionSet id:{},执行结果{}", super.getId(), result);
+            return result;
+        }
         boolean result = false;
         for (AbstractCondition condition : conditionGroups) {
-            if (condition.evaluate(context)) {
+            if (condition.evaluateShared(context)) {
                 result = true;
                 break;
             }
@@ -108,4 +113,39 @@ public class ConditionSet extends AbstractCondition {
     public List<? extends AbstractCondition> getConditionGroups() {
         return Collections.unmodifiableList(conditionGroups);
     }
-}
\ No newline at end of file
+
+    /**
+     * 替换子条件，只用于{@link ConditionDag}把子条件替换为共享的条件
+     *
+     * @param conditionGroups
+     */
+    void setConditionGroups(List<AbstractCondition> conditionGroups) {
+        this.conditionGroups = conditionGroups;
+        refreshAdaptive();
+    }
+
+    public boolean isAdaptive() {
+        return adaptiveOrder != null;
+    }
+
+    /**
+     * 开启或关闭自适应执行顺序
+     *
+     * @param adaptive
+     */
+    public void setAdaptive(boolean adaptive) {
+        if (adaptive != isAdaptive()) {
+            this.adaptiveOrder = adaptive ? new AdaptiveOrder(conditionGroups, true) : null;
+        }
+    }
+
+    public AdaptiveOrder getAdaptiveOrder() {
+        return adaptiveOrder;
+    }
+
+    private void refreshAdaptive() {
+        if (adaptiveOrder != null) {
+            this.adaptiveOrder = new AdaptiveOrder(conditionGroups, true);
+        }
+    }
+}
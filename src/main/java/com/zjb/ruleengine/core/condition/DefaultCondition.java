@@ -7,8 +7,10 @@ import com.zjb.ruleengine.core.Context;
 import com.zjb.ruleengine.core.condition.evaluate.*;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
 import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.value.Constant;
 import com.zjb.ruleengine.core.value.Element;
 import com.zjb.ruleengine.core.value.Value;
+import com.zjb.ruleengine.core.value.Variable;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -28,6 +30,15 @@ public class DefaultCondition extends AbstractCondition {
     private Value leftValue;
     private Symbol symbol;
     private Value rightValue;
+    /**
+     * 构建时预处理的常量右值，见{@link Evaluate#prepare(Object, Symbol)}
+     */
+    private transient Object preparedRightValue;
+    /**
+     * 条件所在的前后缀索引及在索引中的编号，见{@link StringPatternIndex}；
+     * 索引和编号放在一个不可变的对象中一起发布，并发执行时不会读到新的索引和旧的编号
+     */
+    private transient volatile PatternBinding patternBinding;
 
     private static Map<DataTypeEnum, Evaluate> evaluateMap = new HashMap<>();
 
@@ -47,6 +58,7 @@ public class DefaultCondition extends AbstractCondition {
         this.leftValue = leftValue;
         this.rightValue = rightValue;
         this.symbol = symbol;
+        prepareRightValue();
     }
 
     public DefaultCondition(Value leftValue, Symbol symbol, Value rightValue) {
@@ -61,15 +73,36 @@ public class DefaultCondition extends AbstractCondition {
         return Collections.unmodifiableSet(result);
     }
 
+    @Override
+    public Collection<Variable> collectVariable() {
+        final Set<Variable> result = new LinkedHashSet<>();
+        result.addAll(leftValue.collectVariable());
+        result.addAll(rightValue.collectVariable());
+        return Collections.unmodifiableSet(result);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(leftValue, symbol, rightValue);
     }
 
+    @Override
+    public Collection<DefaultCondition> collectCondition() {
+        return Collections.singletonList(this);
+    }
+
     @Override
     public boolean evaluate(Context context) {
+        final PatternBinding patternBinding = this.patternBinding;
+        if (patternBinding != null) {
+            final Boolean indexed = patternBinding.index.evaluate(patternBinding.slot, symbol, context);
+            if (indexed != null) {
+                log.debug("条件{}由前后缀索引执行，执行结果{}", getId(), indexed);
+                return indexed;
+            }
+        }
         Object leftValue = this.leftValue.getValue(context);
-        Object rightValue = this.rightValue.getValue(context);
+        Object rightValue = preparedRightValue != null ? preparedRightValue : this.rightValue.getValue(context);
         final boolean result = evaluateMap.get(symbol.getType()).evaluate(leftValue, rightValue, symbol);
         log.debug("条件{}--【 {} {} {} 】执行，执行结果{}", getId(), leftValue, symbol.getSymbol(), rightValue, result);
         return result;
@@ -79,6 +112,15 @@ public class DefaultCondition extends AbstractCondition {
         return symbol;
     }
 
+    /**
+     * 获取当前运算符对应的运算策略
+     *
+     * @return
+     */
+    public Evaluate getEvaluate() {
+        return evaluateMap.get(symbol.getType());
+    }
+
     public Value getLeftValue() {
         return leftValue;
     }
@@ -87,16 +129,44 @@ public class DefaultCondition extends AbstractCondition {
         return rightValue;
     }
 
+    public StringPatternIndex getPatternIndex() {
+        final PatternBinding patternBinding = this.patternBinding;
+        return patternBinding == null ? null : patternBinding.index;
+    }
+
+    void bindPatternIndex(StringPatternIndex patternIndex, int patternSlot) {
+        this.patternBinding = new PatternBinding(patternIndex, patternSlot);
+    }
+
     public void setLeftValue(Value leftValue) {
+        if (!Objects.equals(this.leftValue, leftValue)) {
+            this.patternBinding = null;
+        }
         this.leftValue = leftValue;
     }
 
     public void setSymbol(Symbol symbol) {
+        if (this.symbol != symbol) {
+            this.patternBinding = null;
+        }
         this.symbol = symbol;
+        prepareRightValue();
     }
 
     public void setRightValue(Value rightValue) {
+        if (!Objects.equals(this.rightValue, rightValue)) {
+            this.patternBinding = null;
+        }
         this.rightValue = rightValue;
+        prepareRightValue();
+    }
+
+    private void prepareRightValue() {
+        if (symbol != null && rightValue != null && rightValue.getClass() == Constant.class) {
+            this.preparedRightValue = getEvaluate().prepare(((Constant) rightValue).getValue(), symbol);
+        } else {
+            this.preparedRightValue = null;
+        }
     }
 
     @Override
@@ -129,4 +199,17 @@ public class DefaultCondition extends AbstractCondition {
     public int getWeight() {
         return leftValue.getWeight() + rightValue.getWeight();
     }
-}
\ No newline at end of file
+
+    /**
+     * 条件绑定的前后缀索引及在索引中的编号
+     */
+    private static final class PatternBinding {
+        private final StringPatternIndex index;
+        private final int slot;
+
+        private PatternBinding(StringPatternIndex index, int slot) {
+            this.index = index;
+            this.slot = slot;
+        }
+    }
+}
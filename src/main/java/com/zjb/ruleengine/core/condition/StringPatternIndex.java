@@ -0,0 +1,258 @@
+package com.zjb.ruleengine.core.condition;
+
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.ExecutionMemo;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.value.Constant;
+import com.zjb.ruleengine.core.value.Value;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 同一个左值的前缀、后缀条件（startWith、notStartWith、endWith、notEndWith）的字典树索引
+ * <p>
+ * 规则集构建时，把同一个左值、右值为字符串常量的这类条件合并为一个索引：前缀放入正序的字典树，后缀放入逆序的字典树，
+ * 执行时左值只遍历一次（正序、逆序各一次，长度不超过最长的前后缀）得到所有前后缀的匹配结果，
+ * 结果放在{@link ExecutionMemo}中，条件执行时直接读取
+ * <p>
+ * indexOf的语义是右值包含左值，不是左值包含右值，不能用多模式匹配，不在索引中
+ *
+ * @author 赵静波
+ * @date 2026-10-18 19:42:37
+ */
+public final class StringPatternIndex {
+    private static final Logger log = LogManager.getLogger();
+
+    /**
+     * 同一个左值的条件数量不少于该值时才建立索引
+     */
+    public static final int MIN_SIZE = 4;
+
+    /**
+     * 左值为null时的结果，条件都为false
+     */
+    private static final long[] NULL_LEFT = new long[0];
+
+    private final Value leftValue;
+    private final Trie prefixes;
+    private final Trie suffixes;
+    private final int slotCount;
+
+    /**
+     * @param conditionSlots 输出参数，条件在索引中的编号
+     */
+    private StringPatternIndex(Value leftValue, List<DefaultCondition> conditions, int[] conditionSlots) {
+        this.leftValue = leftValue;
+        final Map<String, Integer> prefixSlots = new HashMap<>();
+        final Map<String, Integer> suffixSlots = new HashMap<>();
+        int slot = 0;
+        for (int i = 0; i < conditions.size(); i++) {
+            final DefaultCondition condition = conditions.get(i);
+            final String pattern = (String) ((Constant) condition.getRightValue()).getValue();
+            final Map<String, Integer> slots = isPrefix(condition.getSymbol()) ? prefixSlots : suffixSlots;
+            Integer conditionSlot = slots.get(pattern);
+            if (conditionSlot == null) {
+                conditionSlot = slot++;
+                slots.put(pattern, conditionSlot);
+            }
+            conditionSlots[i] = conditionSlot;
+        }
+        this.slotCount = slot;
+        this.prefixes = new Trie(prefixSlots, false);
+        this.suffixes = new Trie(suffixSlots, true);
+    }
+
+    /**
+     * 为条件建立索引，同一个左值的条件不少于{@link #MIN_SIZE}时建立一个索引，已经在其它索引中的条件不再处理
+     *
+     * @param conditions 规则集中的条件
+     * @return 建立的索引数量
+     */
+    public static int bind(Collection<? extends DefaultCondition> conditions) {
+        final Set<DefaultCondition> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Map<Value, List<DefaultCondition>> groups = new LinkedHashMap<>();
+        for (DefaultCondition condition : conditions) {
+            if (visited.add(condition) && condition.getPatternIndex() == null && isIndexable(condition)) {
+                groups.computeIfAbsent(condition.getLeftValue(), key -> new ArrayList<>()).add(condition);
+            }
+        }
+        int count = 0;
+        for (Map.Entry<Value, List<DefaultCondition>> entry : groups.entrySet()) {
+            if (entry.getValue().size() >= MIN_SIZE) {
+                final List<DefaultCondition> group = entry.getValue();
+                final int[] conditionSlots = new int[group.size()];
+                final StringPatternIndex index = new StringPatternIndex(entry.getKey(), group, conditionSlots);
+                //索引构建完成后再绑定到条件，并发执行的规则不会读到未构建完成的索引
+                for (int i = 0; i < group.size(); i++) {
+                    group.get(i).bindPatternIndex(index, conditionSlots[i]);
+                }
+                count++;
+                log.debug("左值{}的{}个前后缀条件建立索引", entry.getKey().getId(), entry.getValue().size());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 条件是否可以建立索引：前后缀运算符、左值在一次执行中确定、右值是字符串常量
+     */
+    public static boolean isIndexable(DefaultCondition condition) {
+        switch (condition.getSymbol()) {
+            case str_start_with:
+            case str_not_start_with:
+            case str_end_with:
+            case str_not_end_with:
+                break;
+            default:
+                return false;
+        }
+        final Value right = condition.getRightValue();
+        return right.getClass() == Constant.class && ((Constant) right).getValue() instanceof String
+                && condition.getLeftValue().isDeterministic();
+    }
+
+    /**
+     * 读取条件的结果，同一次执行中左值只匹配一次
+     *
+     * @param slot    条件在索引中的编号
+     * @param symbol  条件的运算符
+     * @param context
+     * @return 没有{@link ExecutionMemo}或左值不是字符串时返回null，由条件自己执行
+     */
+    Boolean evaluate(int slot, Symbol symbol, Context context) {
+        final ExecutionMemo memo = context.getMemo();
+        if (memo == null) {
+            return null;
+        }
+        final long[] matched = memo.get(this, () -> match(leftValue.getValue(context)));
+        if (matched == null) {
+            return null;
+        }
+        if (matched == NULL_LEFT) {
+            return false;
+        }
+        final boolean hit = (matched[slot >>> 6] & (1L << slot)) != 0;
+        return isNegative(symbol) != hit;
+    }
+
+    /**
+     * 左值与所有前后缀匹配
+     *
+     * @return 按编号记录是否匹配的位图
+     */
+    private long[] match(Object value) {
+        if (value == null) {
+            return NULL_LEFT;
+        }
+        if (!(value instanceof String)) {
+            return null;
+        }
+        final String input = (String) value;
+        final long[] matched = new long[(slotCount + 63) >>> 6];
+        prefixes.match(input, matched);
+        suffixes.match(input, matched);
+        return matched;
+    }
+
+    public Value getLeftValue() {
+        return leftValue;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    private static boolean isPrefix(Symbol symbol) {
+        return symbol == Symbol.str_start_with || symbol == Symbol.str_not_start_with;
+    }
+
+    private static boolean isNegative(Symbol symbol) {
+        return symbol == Symbol.str_not_start_with || symbol == Symbol.str_not_end_with;
+    }
+
+    /**
+     * 字典树，每个节点的子节点按字符排序后二分查找
+     */
+    private static final class Trie {
+        private final char[][] keys;
+        private final int[][] children;
+        /**
+         * 节点对应的前后缀编号，不是前后缀的结尾时为-1
+         */
+        private final int[] slots;
+        private final boolean reversed;
+
+        private Trie(Map<String, Integer> patterns, boolean reversed) {
+            this.reversed = reversed;
+            final List<TreeMap<Character, Integer>> nodes = new ArrayList<>();
+            final List<Integer> nodeSlots = new ArrayList<>();
+            nodes.add(new TreeMap<>());
+            nodeSlots.add(-1);
+            for (Map.Entry<String, Integer> entry : patterns.entrySet()) {
+                final String pattern = entry.getKey();
+                int node = 0;
+                for (int i = 0; i < pattern.length(); i++) {
+                    final char c = pattern.charAt(reversed ? pattern.length() - 1 - i : i);
+                    Integer child = nodes.get(node).get(c);
+                    if (child == null) {
+                        child = nodes.size();
+                        nodes.add(new TreeMap<>());
+                        nodeSlots.add(-1);
+                        nodes.get(node).put(c, child);
+                    }
+                    node = child;
+                }
+                nodeSlots.set(node, entry.getValue());
+            }
+            this.keys = new char[nodes.size()][];
+            this.children = new int[nodes.size()][];
+            this.slots = new int[nodes.size()];
+            for (int node = 0; node < nodes.size(); node++) {
+                final TreeMap<Character, Integer> next = nodes.get(node);
+                keys[node] = new char[next.size()];
+                children[node] = new int[next.size()];
+                int i = 0;
+                for (Map.Entry<Character, Integer> entry : next.entrySet()) {
+                    keys[node][i] = entry.getKey();
+                    children[node][i] = entry.getValue();
+                    i++;
+                }
+                slots[node] = nodeSlots.get(node);
+            }
+        }
+
+        private void match(String input, long[] matched) {
+            int node = 0;
+            mark(node, matched);
+            final int length = input.length();
+            for (int i = 0; i < length; i++) {
+                final char c = input.charAt(reversed ? length - 1 - i : i);
+                final int index = Arrays.binarySearch(keys[node], c);
+                if (index < 0) {
+                    return;
+                }
+                node = children[node][index];
+                mark(node, matched);
+            }
+        }
+
+        private void mark(int node, long[] matched) {
+            final int slot = slots[node];
+            if (slot >= 0) {
+                matched[slot >>> 6] |= 1L << slot;
+            }
+        }
+    }
+}
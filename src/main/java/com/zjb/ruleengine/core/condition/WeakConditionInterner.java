@@ -0,0 +1,110 @@
+package com.zjb.ruleengine.core.condition;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 弱引用的驻留服务，驻留的实例没有其它引用时被回收，之后的调用清理被回收的实例
+ * <p>
+ * 只保存实例的弱引用及计算key的函数，key在比较时由实例计算，不保存key，避免key强引用实例
+ * <p>
+ * 线程安全，只在注册规则时调用，使用synchronized
+ *
+ * @author 赵静波
+ * @date 2026-10-18 20:58:14
+ */
+public class WeakConditionInterner implements ConditionInterner {
+    private static final long serialVersionUID = 4151320727734851607L;
+
+    /**
+     * key=key的hash
+     */
+    private final transient Map<Integer, List<Entry>> buckets = new HashMap<>();
+    private final transient ReferenceQueue<Object> released = new ReferenceQueue<>();
+    private int size;
+    private long requestCount;
+    private long hitCount;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T intern(Object key, T candidate, Function<? super T, ?> keyOf) {
+        expunge();
+        requestCount++;
+        final int hash = key.hashCode();
+        final List<Entry> bucket = buckets.computeIfAbsent(hash, h -> new ArrayList<>(1));
+        for (Entry entry : bucket) {
+            final Object existing = entry.get();
+            if (existing != null && key.equals(((Function<Object, ?>) entry.keyOf).apply(existing))) {
+                hitCount++;
+                return (T) existing;
+            }
+        }
+        bucket.add(new Entry(candidate, hash, keyOf, released));
+        size++;
+        return candidate;
+    }
+
+    @Override
+    public synchronized int size() {
+        expunge();
+        return size;
+    }
+
+    @Override
+    public synchronized long getRequestCount() {
+        return requestCount;
+    }
+
+    @Override
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    @Override
+    public synchronized void clear() {
+        buckets.clear();
+        size = 0;
+        //清空后被回收的实例不再处理
+        while (released.poll() != null) {
+        }
+    }
+
+    /**
+     * 清理被回收的实例
+     */
+    private void expunge() {
+        Entry entry;
+        while ((entry = (Entry) released.poll()) != null) {
+            final List<Entry> bucket = buckets.get(entry.hash);
+            if (bucket != null && bucket.remove(entry)) {
+                size--;
+                if (bucket.isEmpty()) {
+                    buckets.remove(entry.hash);
+                }
+            }
+        }
+    }
+
+    /**
+     * 反序列化为空的驻留服务
+     */
+    private Object readResolve() {
+        return new WeakConditionInterner();
+    }
+
+    private static final class Entry extends WeakReference<Object> {
+        private final int hash;
+        private final Function<?, ?> keyOf;
+
+        private Entry(Object referent, int hash, Function<?, ?> keyOf, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = hash;
+            this.keyOf = keyOf;
+        }
+    }
+}
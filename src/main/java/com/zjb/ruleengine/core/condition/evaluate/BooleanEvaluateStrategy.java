@@ -59,19 +59,41 @@ public class BooleanEvaluateStrategy implements Evaluate {
         }
     }
 
+    @Override
+    public Object prepare(Object rightValue, Symbol operatorType) {
+        if (operatorType == Symbol.boolean_in || operatorType == Symbol.boolean_not_in) {
+            return prepareIn(rightValue);
+        }
+        return rightValue;
+    }
+
     public boolean in(Object rightValue, Object leftValue) {
+        if (rightValue instanceof PreparedInSet) {
+            return ((PreparedInSet) rightValue).contains(leftValue);
+        }
         if (!(rightValue instanceof Collection)) {
             throw new RuleEngineException(StrFormatter.format("右值:{} 不是集合类型", rightValue));
         }
         Collection right = (Collection) rightValue;
+        final String left = leftValue + "";
         for (Object o : right) {
-            if (Objects.equals(o + "", leftValue + "")) {
+            if (Objects.equals(o + "", left)) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * 常量集合预处理为{@link PreparedInSet}，不是集合时返回原值，执行时保持原来的异常
+     */
+    public Object prepareIn(Object rightValue) {
+        if (rightValue instanceof Collection) {
+            return new PreparedInSet((Collection<?>) rightValue);
+        }
+        return rightValue;
+    }
+
     public static void main(String[] args) {
         System.out.println(strategy.evaluate(true, Arrays.asList(true, false), Symbol.boolean_in));
         System.out.println(strategy.evaluate(false, Arrays.asList(false), Symbol.boolean_not_in));
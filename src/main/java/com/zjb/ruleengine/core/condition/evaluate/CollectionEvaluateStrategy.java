@@ -8,7 +8,6 @@ import com.zjb.ruleengine.core.exception.RuleEngineException;
 import org.apache.commons.lang3.math.NumberUtils;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static com.zjb.ruleengine.core.condition.evaluate.BooleanEvaluateStrategy.FALSE_STRING;
 import static com.zjb.ruleengine.core.condition.evaluate.BooleanEvaluateStrategy.TRUE_STRING;
@@ -26,6 +25,11 @@ public class CollectionEvaluateStrategy implements Evaluate {
         return strategy;
     }
 
+    /**
+     * 两个集合元素数量的乘积不超过该值时逐个比较，否则排序后归并比较
+     */
+    private static final int LINEAR_SCAN_LIMIT = 64;
+
     @Override
     public boolean evaluate(Object leftValue, Object rightValue, Symbol operatorType) {
 
@@ -38,19 +42,19 @@ public class CollectionEvaluateStrategy implements Evaluate {
         Collection leftValueColl = (Collection) leftValue;
         switch (operatorType) {
             case collection_in:
-                if (!(rightValue instanceof Collection)) {
+                if (!isCollection(rightValue)) {
                     throw new RuleEngineException("collection中in操作右值必须是collection");
                 }
-                return collectionContainCollection((Collection) leftValue, (Collection) rightValue);
+                return collectionContainCollection(leftValue, rightValue);
             case collection_not_in:
-                if (!(rightValue instanceof Collection)) {
+                if (!isCollection(rightValue)) {
                     throw new RuleEngineException("collection中notIn操作右值必须是collection");
                 }
-                return !collectionContainCollection((Collection) leftValue, (Collection) rightValue);
+                return !collectionContainCollection(leftValue, rightValue);
             case set_eq:
                 return setEq(rightValue, leftValueColl);
             case collection_contain:
-                if (rightValue instanceof Collection) {
+                if (isCollection(rightValue)) {
                     return collectionContainCollection(rightValue, leftValueColl);
                 }
                 return listContain(rightValue, leftValueColl);
@@ -58,7 +62,7 @@ public class CollectionEvaluateStrategy implements Evaluate {
                 if (!(leftValue instanceof Collection)) {
                     throw new RuleEngineException("左值必须是Collection");
                 }
-                if (rightValue instanceof Collection) {
+                if (isCollection(rightValue)) {
                     return !collectionContainCollection(rightValue, leftValueColl);
                 }
                 return !listContain(rightValue, leftValueColl);
@@ -69,81 +73,190 @@ public class CollectionEvaluateStrategy implements Evaluate {
     }
 
     /**
-     * collection 包含 collection
+     * 常量集合预先转换为字符串集合
+     */
+    @Override
+    public Object prepare(Object rightValue, Symbol operatorType) {
+        if (rightValue instanceof Collection) {
+            return new PreparedInSet((Collection<?>) rightValue);
+        }
+        return rightValue;
+    }
+
+    private static boolean isCollection(Object value) {
+        return value instanceof Collection || value instanceof PreparedInSet;
+    }
+
+    private static boolean isEmpty(Object collection) {
+        return collection instanceof PreparedInSet ? ((PreparedInSet) collection).size() == 0 : CollUtil.isEmpty((Collection) collection);
+    }
+
+    /**
+     * collection 包含 collection，按元素的字符串比较
      * 空集 包含 空集 =false
      * 非空集 包含 空集 =false
      *
-     * @param rightValue
-     * @param leftValueColl
+     * @param contained 被包含的集合
+     * @param container 包含的集合
      * @return
      */
-    private boolean collectionContainCollection(Object rightValue, Collection leftValueColl) {
-        Collection rightValueColl = (Collection) rightValue;
-        if (CollUtil.isEmpty(leftValueColl) || CollUtil.isEmpty(rightValueColl)) {
+    private boolean collectionContainCollection(Object contained, Object container) {
+        if (isEmpty(contained) || isEmpty(container)) {
             return false;
         }
-        Set rightSet = (Set) rightValueColl.stream().map(val -> val + "").collect(Collectors.toSet());
-        Set leftSet = (Set) leftValueColl.stream().map(val -> val + "").collect(Collectors.toSet());
-        int leftSize = leftSet.size();
-        leftSet.addAll(rightSet);
-        if (leftSet.size() == leftSize) {
-            return true;
+        if (container instanceof PreparedInSet) {
+            return allIn((Collection) contained, (PreparedInSet) container);
         }
-        return false;
+        if (contained instanceof PreparedInSet) {
+            return coverAll((Collection) container, (PreparedInSet) contained, false);
+        }
+        final Collection containedColl = (Collection) contained;
+        final Collection containerColl = (Collection) container;
+        if ((long) containedColl.size() * containerColl.size() <= LINEAR_SCAN_LIMIT) {
+            return linearContainAll(containerColl, containedColl);
+        }
+        return sortedContainAll(sortedStrings(containerColl), sortedStrings(containedColl));
     }
 
     private boolean listContain(Object rightValue, Collection leftValueColl) {
-        List leftValues = getLeftVal(leftValueColl, rightValue);
-        return leftValues.contains(rightValue);
+        for (Object leftVal : leftValueColl) {
+            if (rightValue.equals(convertLeftVal(leftVal, rightValue))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private boolean setEq(Object rightValue, Collection leftValueColl) {
-        if (!(rightValue instanceof Collection)) {
+        if (!isCollection(rightValue)) {
             throw new RuleEngineException("collection=collection 右值必须是collection");
         }
+        if (rightValue instanceof PreparedInSet) {
+            return coverAll(leftValueColl, (PreparedInSet) rightValue, true);
+        }
         Collection rightValueColl = (Collection) rightValue;
+        if ((long) leftValueColl.size() * rightValueColl.size() <= LINEAR_SCAN_LIMIT) {
+            return linearContainAll(leftValueColl, rightValueColl) && linearContainAll(rightValueColl, leftValueColl);
+        }
+        return Arrays.equals(distinct(sortedStrings(leftValueColl)), distinct(sortedStrings(rightValueColl)));
+    }
 
-        Set rightValueSet = (Set) rightValueColl.stream().map(val -> val + "").collect(Collectors.toSet());
-        Set leftValueSet = (Set) leftValueColl.stream().map(val -> val + "").collect(Collectors.toSet());
-
-        if (leftValueSet.size() != rightValueSet.size()) {
-            return false;
+    /**
+     * collection中的元素都在set中
+     */
+    private static boolean allIn(Collection collection, PreparedInSet set) {
+        for (Object element : collection) {
+            if (!set.containsString(String.valueOf(element))) {
+                return false;
+            }
         }
-        // 如果set.addAll(set) size相等，则两个set必然相等
-        leftValueSet.addAll(rightValueSet);
-        if (leftValueSet.size() == rightValueSet.size()) {
-            return true;
+        return true;
+    }
+
+    /**
+     * collection包含set中的所有元素，只记录命中的元素
+     *
+     * @param exact 为true时collection中的元素还必须都在set中（集合相等）
+     */
+    private static boolean coverAll(Collection collection, PreparedInSet set, boolean exact) {
+        final int size = set.size();
+        Set<String> found = null;
+        for (Object element : collection) {
+            final String string = String.valueOf(element);
+            if (!set.containsString(string)) {
+                if (exact) {
+                    return false;
+                }
+                continue;
+            }
+            if (found == null) {
+                found = new HashSet<>();
+            }
+            if (found.add(string) && found.size() == size && !exact) {
+                return true;
+            }
         }
-        return false;
+        return (found == null ? 0 : found.size()) == size;
     }
 
-    private List getLeftVal(Collection leftValue, Object rightValue) {
-        Collection leftValueColl = leftValue;
-        // 保证collection中的元素 class和rightValue class相同
-        List leftValues = new ArrayList(leftValueColl.size());
-        for (Object leftVal : leftValueColl) {
-            if (leftVal.getClass() != rightValue.getClass()) {
-                if (rightValue instanceof Boolean) {
-                    //因为Boolean.valueOf(任意非boolean的字符) 都为false，所以需要判断是否 eq "true" 或 "false"
-                    leftVal += "";
-                    if (Objects.equals(leftVal, TRUE_STRING)) {
-                        leftVal = true;
-                    } else if (Objects.equals(leftVal, FALSE_STRING)) {
-                        leftVal = false;
-                    }
-                } else if (rightValue instanceof Number) {
-                    if (NumberUtils.isDigits(leftVal + "")) {
-                        leftVal = NumberUtils.createNumber(leftVal + "");
-                    }
-                } else if (rightValue instanceof String) {
-                    leftVal += "";
-                } else {
-                    throw new RuleEngineException(StrFormatter.format("类型转换失败{}", rightValue.getClass().getName()));
+    private static boolean linearContainAll(Collection container, Collection contained) {
+        for (Object element : contained) {
+            final String string = String.valueOf(element);
+            boolean exists = false;
+            for (Object other : container) {
+                if (string.equals(String.valueOf(other))) {
+                    exists = true;
+                    break;
                 }
             }
-            leftValues.add(leftVal);
+            if (!exists) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 两个有序数组归并，contained中的元素都在container中
+     */
+    private static boolean sortedContainAll(String[] container, String[] contained) {
+        int j = 0;
+        for (String string : contained) {
+            while (j < container.length && container[j].compareTo(string) < 0) {
+                j++;
+            }
+            if (j == container.length || !container[j].equals(string)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] sortedStrings(Collection collection) {
+        final String[] strings = new String[collection.size()];
+        int i = 0;
+        for (Object element : collection) {
+            strings[i++] = String.valueOf(element);
+        }
+        Arrays.sort(strings);
+        return strings;
+    }
+
+    private static String[] distinct(String[] sorted) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || !sorted[size - 1].equals(sorted[i])) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * 保证collection中的元素 class和rightValue class相同
+     */
+    private static Object convertLeftVal(Object leftVal, Object rightValue) {
+        if (leftVal.getClass() == rightValue.getClass()) {
+            return leftVal;
+        }
+        if (rightValue instanceof Boolean) {
+            //因为Boolean.valueOf(任意非boolean的字符) 都为false，所以需要判断是否 eq "true" 或 "false"
+            leftVal += "";
+            if (Objects.equals(leftVal, TRUE_STRING)) {
+                return true;
+            } else if (Objects.equals(leftVal, FALSE_STRING)) {
+                return false;
+            }
+            return leftVal;
+        } else if (rightValue instanceof Number) {
+            if (NumberUtils.isDigits(leftVal + "")) {
+                return NumberUtils.createNumber(leftVal + "");
+            }
+            return leftVal;
+        } else if (rightValue instanceof String) {
+            return leftVal + "";
         }
-        return leftValues;
+        throw new RuleEngineException(StrFormatter.format("类型转换失败{}", rightValue.getClass().getName()));
     }
 
     public static void main(String[] args) {
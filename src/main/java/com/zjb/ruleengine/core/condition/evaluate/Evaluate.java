@@ -1,4 +1,3 @@
-
 package com.zjb.ruleengine.core.condition.evaluate;
 
 import com.zjb.ruleengine.core.enums.Symbol;
@@ -12,4 +11,15 @@ import java.io.Serializable;
 public interface Evaluate extends Serializable {
 
     boolean evaluate(Object leftValue, Object rightValue, Symbol operatorType);
-}
\ No newline at end of file
+
+    /**
+     * 构建时预处理常量右值，返回值在执行时代替右值传给{@link #evaluate(Object, Object, Symbol)}
+     *
+     * @param rightValue   常量右值
+     * @param operatorType 运算符
+     * @return 默认不处理，返回原值
+     */
+    default Object prepare(Object rightValue, Symbol operatorType) {
+        return rightValue;
+    }
+}
@@ -9,6 +9,7 @@ import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -27,6 +28,8 @@ public class NumberEvaluateStrategy implements Evaluate {
 
     private static final String BLANK_STRING = "null";
 
+    private static final long EXACT_LONG = 1L << 53;
+
     @Override
     @SuppressWarnings("unchecked")
     public boolean evaluate(Object leftValue, Object rightValue, Symbol operatorType) {
@@ -42,14 +45,84 @@ public class NumberEvaluateStrategy implements Evaluate {
         } else if (operatorType == Symbol.not_in) {
             return !BooleanEvaluateStrategy.getInstance().in(rightValue, leftValue);
         }
+        if (rightValue instanceof PreparedNumber) {
+            return test(compare(leftValue, (PreparedNumber) rightValue), operatorType);
+        }
         if (!(rightValue instanceof Number)) {
             throw new RuleEngineException("右值必须是number");
         }
+        return test(compare(leftValue, rightValue), operatorType);
+    }
+
+    /**
+     * 常量右值预先解析为long、double、BigDecimal，不能解析时（NaN、无穷大）返回原值，执行时保持原来的异常；
+     * in、notIn的常量集合预处理为{@link PreparedInSet}
+     */
+    @Override
+    public Object prepare(Object rightValue, Symbol operatorType) {
+        if (operatorType == Symbol.number_in || operatorType == Symbol.not_in) {
+            return BooleanEvaluateStrategy.getInstance().prepareIn(rightValue);
+        }
+        if (!(rightValue instanceof Number)) {
+            return rightValue;
+        }
+        try {
+            return new PreparedNumber((Number) rightValue);
+        } catch (NumberFormatException e) {
+            return rightValue;
+        }
+    }
 
+    /**
+     * 与new BigDecimal(String.valueOf(x))的比较结果一致
+     * <p>
+     * 整数之间按long比较；double（及不超过2^53的整数）按double比较，
+     * 因为Double.toString得到的十进制数与double的大小顺序一致；float之间按float比较；
+     * 其他情况按BigDecimal比较，BigDecimal、BigInteger不经过字符串转换
+     */
+    static int compare(Object left, Object right) {
+        if (isLong(left)) {
+            final long leftLong = ((Number) left).longValue();
+            if (isLong(right)) {
+                return Long.compare(leftLong, ((Number) right).longValue());
+            }
+            if (right instanceof Double && isExactDouble(leftLong) && isFinite((Double) right)) {
+                return compareDouble(leftLong, (Double) right);
+            }
+        } else if (left instanceof Double && isFinite((Double) left)) {
+            final double leftDouble = (Double) left;
+            if (right instanceof Double && isFinite((Double) right)) {
+                return compareDouble(leftDouble, (Double) right);
+            }
+            if (isLong(right) && isExactDouble(((Number) right).longValue())) {
+                return compareDouble(leftDouble, ((Number) right).longValue());
+            }
+        } else if (left instanceof Float && right instanceof Float && isFinite((Float) left) && isFinite((Float) right)) {
+            return compareDouble((Float) left, (Float) right);
+        }
+        return toBigDecimal(left).compareTo(toBigDecimal(right));
+    }
 
-        BigDecimal left = new BigDecimal(String.valueOf(leftValue));
-        BigDecimal right = new BigDecimal(String.valueOf(rightValue));
-        int compare = left.compareTo(right);
+    static int compare(Object left, PreparedNumber right) {
+        if (isLong(left)) {
+            final long leftLong = ((Number) left).longValue();
+            if (right.kind == PreparedNumber.LONG) {
+                return Long.compare(leftLong, right.longValue);
+            }
+            if (right.kind == PreparedNumber.DOUBLE && isExactDouble(leftLong)) {
+                return compareDouble(leftLong, right.doubleValue);
+            }
+        } else if (left instanceof Double && isFinite((Double) left)) {
+            if (right.kind == PreparedNumber.DOUBLE || right.kind == PreparedNumber.LONG && isExactDouble(right.longValue)) {
+                return compareDouble((Double) left, right.doubleValue);
+            }
+        } else if (left instanceof Float && right.kind == PreparedNumber.FLOAT && isFinite((Float) left)) {
+            return compareDouble((Float) left, right.doubleValue);
+        }
+        return toBigDecimal(left).compareTo(right.decimal);
+    }
+
+    private static boolean test(int compare, Symbol operatorType) {
         switch (operatorType) {
             case number_eq:
                 return compare == 0;
@@ -69,5 +142,84 @@ public class NumberEvaluateStrategy implements Evaluate {
         }
     }
 
+    private static boolean isLong(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * 绝对值不超过2^53的long转换为double没有精度损失
+     */
+    private static boolean isExactDouble(long value) {
+        return value >= -EXACT_LONG && value <= EXACT_LONG;
+    }
 
-}
\ No newline at end of file
+    private static boolean isFinite(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+
+    /**
+     * -0.0与0.0相等
+     */
+    private static int compareDouble(double left, double right) {
+        return left < right ? -1 : (left > right ? 1 : 0);
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        return new BigDecimal(String.valueOf(value));
+    }
+
+    /**
+     * 预先解析的常量右值
+     */
+    public static final class PreparedNumber implements Serializable {
+        private static final long serialVersionUID = 2873411593146470021L;
+
+        static final int LONG = 0;
+        static final int DOUBLE = 1;
+        static final int FLOAT = 2;
+        static final int DECIMAL = 3;
+
+        private final Number value;
+        private final int kind;
+        private final long longValue;
+        private final double doubleValue;
+        private final BigDecimal decimal;
+
+        PreparedNumber(Number value) {
+            this.value = value;
+            this.decimal = toBigDecimal(value);
+            if (isLong(value)) {
+                this.kind = LONG;
+                this.longValue = value.longValue();
+                this.doubleValue = longValue;
+            } else if (value instanceof Double) {
+                this.kind = DOUBLE;
+                this.longValue = 0;
+                this.doubleValue = value.doubleValue();
+            } else if (value instanceof Float) {
+                this.kind = FLOAT;
+                this.longValue = 0;
+                this.doubleValue = value.floatValue();
+            } else {
+                this.kind = DECIMAL;
+                this.longValue = 0;
+                this.doubleValue = 0;
+            }
+        }
+
+        public Number getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.zjb.ruleengine.core.condition.evaluate;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * in、notIn运算符以及集合运算符预处理的常量集合
+ * <p>
+ * 与{@link BooleanEvaluateStrategy#in(Object, Object)}一致，按String.valueOf(x)比较：
+ * 集合元素预先转换为字符串放入HashSet；其中是整数的元素另外放入有序的long[]，
+ * Integer、Long、Short、Byte的左值二分查找，不需要转换为字符串
+ *
+ * @author 赵静波
+ * @date 2026-10-18 19:06:12
+ */
+public final class PreparedInSet implements Serializable {
+    private static final long serialVersionUID = -4710376602317845026L;
+
+    private final Collection<?> source;
+    private final Set<String> strings;
+    private final long[] longs;
+
+    public PreparedInSet(Collection<?> source) {
+        this.source = source;
+        this.strings = new HashSet<>(Math.max(16, (int) (source.size() / .75f) + 1));
+        long[] longs = new long[source.size()];
+        int size = 0;
+        for (Object element : source) {
+            final String string = String.valueOf(element);
+            strings.add(string);
+            final Long longValue = parseLong(string);
+            if (longValue != null) {
+                longs[size++] = longValue;
+            }
+        }
+        longs = Arrays.copyOf(longs, size);
+        Arrays.sort(longs);
+        this.longs = longs;
+    }
+
+    public boolean contains(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return Arrays.binarySearch(longs, ((Number) value).longValue()) >= 0;
+        }
+        return strings.contains(String.valueOf(value));
+    }
+
+    boolean containsString(String value) {
+        return strings.contains(value);
+    }
+
+    public Collection<?> getSource() {
+        return source;
+    }
+
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * 字符串与Long.toString的结果完全一致时才转换，如"01"、"+1"不是整数的字符串形式
+     */
+    private static Long parseLong(String string) {
+        if (string.isEmpty() || string.length() > 20) {
+            return null;
+        }
+        try {
+            final long value = Long.parseLong(string);
+            return Long.toString(value).equals(string) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(source);
+    }
+}
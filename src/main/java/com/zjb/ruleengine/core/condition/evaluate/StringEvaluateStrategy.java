@@ -20,6 +20,14 @@ public class StringEvaluateStrategy implements Evaluate {
         return strategy;
     }
 
+    @Override
+    public Object prepare(Object rightValue, Symbol operatorType) {
+        if (operatorType == Symbol.str_in || operatorType == Symbol.str_not_in) {
+            return BooleanEvaluateStrategy.getInstance().prepareIn(rightValue);
+        }
+        return rightValue;
+    }
+
     @Override
     public boolean evaluate(Object leftValue, Object rightValue, Symbol operatorType) {
         if (leftValue == null || rightValue == null) {
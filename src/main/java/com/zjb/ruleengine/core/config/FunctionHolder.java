@@ -18,6 +18,11 @@ public class FunctionHolder {
     private static final Logger log = LogManager.getLogger();
     private Map<String, Function> functions = Maps.newHashMap();
 
+    /**
+     * 注册函数的版本，每次注册加一；调用方缓存函数及其调用器，版本变化时才重新查找
+     */
+    private volatile int version;
+
     /**
      * 注册function
      *
@@ -27,10 +32,12 @@ public class FunctionHolder {
         final String functionName = getFunctionName(function);
         if (!containFunction(function)) {
             functions.put(functionName, function);
+            version++;
             return;
         }
         log.warn("Function:{} Already exists and will be replace", functionName);
         functions.put(functionName, function);
+        version++;
     }
 
     /**
@@ -57,6 +64,13 @@ public class FunctionHolder {
         return functions.get(functionName);
     }
 
+    /**
+     * @return 注册函数的版本，函数被注册或替换后变化
+     */
+    public int getVersion() {
+        return version;
+    }
+
     public String getFunctionName(Function function) {
         if (Objects.isNull(function)) {
             throw new RuleLoadException("function is not null");
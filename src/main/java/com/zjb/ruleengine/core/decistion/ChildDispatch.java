@@ -0,0 +1,115 @@
+package com.zjb.ruleengine.core.decistion;
+
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.value.Constant;
+import com.zjb.ruleengine.core.value.Value;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 决策树中相邻兄弟节点的索引，兄弟节点的条件都是同一个左值与常量比较时，
+ * 左值只计算一次，直接查找条件为true的节点，不再逐个执行条件：
+ * 1. {@link EqualityDispatch}：等值比较，hash查找
+ * 2. {@link RangeDispatch}：数字的大小比较，二分查找
+ * <p>
+ * 左值的类型不能用索引比较时返回null，由调用方逐个执行条件（抛出与逐个执行相同的异常）
+ *
+ * @author 赵静波
+ * @date 2026-10-18 18:12:09
+ */
+public abstract class ChildDispatch implements Serializable {
+    private static final long serialVersionUID = 4470162936851370178L;
+
+    /**
+     * 相邻的兄弟节点数量不少于该值时才建立索引
+     */
+    public static final int MIN_SIZE = 4;
+
+    protected static final int[] NONE = new int[0];
+
+    protected final Value leftValue;
+
+    /**
+     * 索引的节点数量
+     */
+    protected final int size;
+
+    protected ChildDispatch(Value leftValue, List<TreeNodeCondition> children) {
+        this.leftValue = leftValue;
+        this.size = children.size();
+    }
+
+    /**
+     * 把子节点分段，相邻的可以索引的节点合并为一个索引，优先使用等值索引
+     *
+     * @param children 子节点
+     * @return 按顺序排列的{@link TreeNodeCondition}或{@link ChildDispatch}，没有可以索引的节点时返回null
+     */
+    public static Object[] segment(List<TreeNodeCondition> children) {
+        final List<Object> segments = new ArrayList<>(children.size());
+        boolean indexed = false;
+        int from = 0;
+        while (from < children.size()) {
+            int to = EqualityDispatch.runEnd(children, from);
+            if (to - from >= MIN_SIZE) {
+                segments.add(new EqualityDispatch(children.subList(from, to)));
+                indexed = true;
+                from = to;
+                continue;
+            }
+            to = RangeDispatch.runEnd(children, from);
+            if (to - from >= MIN_SIZE) {
+                segments.add(new RangeDispatch(children.subList(from, to)));
+                indexed = true;
+                from = to;
+                continue;
+            }
+            segments.add(children.get(from++));
+        }
+        return indexed ? segments.toArray() : null;
+    }
+
+    /**
+     * 查找条件为true的节点
+     *
+     * @param context
+     * @return 条件为true的节点在索引的节点中的位置，升序，不能修改；左值的类型不能用索引比较时返回null
+     */
+    public abstract int[] match(Context context);
+
+    public int size() {
+        return size;
+    }
+
+    public Value getLeftValue() {
+        return leftValue;
+    }
+
+    /**
+     * 条件是否为左值与常量的比较，左值的结果必须在一次执行中确定（只计算一次）
+     */
+    static boolean isConstantComparison(AbstractCondition condition) {
+        if (condition == null) {
+            return false;
+        }
+        final Class<? extends AbstractCondition> clazz = condition.getClass();
+        if (clazz != DefaultCondition.class && clazz != DecisionCondition.class) {
+            return false;
+        }
+        final DefaultCondition defaultCondition = (DefaultCondition) condition;
+        return defaultCondition.getRightValue().getClass() == Constant.class && defaultCondition.getLeftValue().isDeterministic();
+    }
+
+    static boolean sameLeft(AbstractCondition first, AbstractCondition other) {
+        return Objects.equals(((DefaultCondition) first).getLeftValue(), ((DefaultCondition) other).getLeftValue());
+    }
+
+    static Object rightValue(TreeNodeCondition child) {
+        return ((Constant) ((DefaultCondition) child.getNodeCondition()).getRightValue()).getValue();
+    }
+}
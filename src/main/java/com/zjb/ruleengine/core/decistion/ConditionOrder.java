@@ -0,0 +1,73 @@
+package com.zjb.ruleengine.core.decistion;
+
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 决策表中条件的全局顺序，用于调整每条路径上条件的顺序，使更多的路径有相同的前缀
+ * <p>
+ * 条件按属性（{@link DefaultCondition}的左值，其它条件为条件本身）分组，属性的顺序为：
+ * 1. 基数（所有路径中该属性不同条件的数量）小的在前，基数小的属性放在上层时分叉少、共享的前缀多
+ * 2. 基数相同时weight小的在前，先执行成本低的条件
+ * 3. 都相同时按第一次出现的顺序
+ * <p>
+ * 同一个属性的条件在路径中的先后顺序不变。合取项中条件的顺序不影响规则是否满足，
+ * 但会改变ONE（每层进入第一个为true的子节点）的结果，只能在ALL时使用
+ *
+ * @author 赵静波
+ * @date 2026-10-18 23:02:15
+ */
+public class ConditionOrder {
+
+    private final Map<Object, Integer> rank = new HashMap<>();
+
+    /**
+     * @param terms 所有规则展开后的合取项
+     */
+    public ConditionOrder(Collection<List<AbstractCondition>> terms) {
+        final Map<Object, Set<AbstractCondition>> distinct = new HashMap<>();
+        final Map<Object, Integer> weight = new HashMap<>();
+        final Map<Object, Integer> firstSeen = new HashMap<>();
+        for (List<AbstractCondition> term : terms) {
+            for (AbstractCondition condition : term) {
+                final Object attribute = attribute(condition);
+                distinct.computeIfAbsent(attribute, key -> new HashSet<>()).add(condition);
+                weight.merge(attribute, condition == null ? 0 : condition.getWeight(), Math::max);
+                firstSeen.putIfAbsent(attribute, firstSeen.size());
+            }
+        }
+        final List<Object> attributes = new ArrayList<>(firstSeen.keySet());
+        attributes.sort(Comparator.<Object>comparingInt(attribute -> distinct.get(attribute).size())
+                .thenComparingInt(weight::get)
+                .thenComparingInt(firstSeen::get));
+        for (int i = 0; i < attributes.size(); i++) {
+            rank.put(attributes.get(i), i);
+        }
+    }
+
+    /**
+     * @param term 合取项
+     * @return 按属性的顺序排列的新的合取项，同一个属性的条件顺序不变
+     */
+    public List<AbstractCondition> sort(List<AbstractCondition> term) {
+        final List<AbstractCondition> sorted = new ArrayList<>(term);
+        sorted.sort(Comparator.comparingInt(condition -> rank.getOrDefault(attribute(condition), Integer.MAX_VALUE)));
+        return sorted;
+    }
+
+    private static Object attribute(AbstractCondition condition) {
+        if (condition instanceof DefaultCondition) {
+            return ((DefaultCondition) condition).getLeftValue();
+        }
+        return condition;
+    }
+}
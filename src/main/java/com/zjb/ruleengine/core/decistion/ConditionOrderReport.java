@@ -0,0 +1,56 @@
+package com.zjb.ruleengine.core.decistion;
+
+import java.io.Serializable;
+
+/**
+ * 调整条件顺序（见{@link ConditionOrder}）前后决策树的节点数量和估算成本（见{@link DecisionTree#getEstimatedCost()}）
+ *
+ * @author 赵静波
+ * @date 2026-10-18 23:06:41
+ */
+public class ConditionOrderReport implements Serializable {
+    private static final long serialVersionUID = 8120364581938722510L;
+
+    private final int originalNodeCount;
+    private final long originalCost;
+    private final int nodeCount;
+    private final long cost;
+
+    /**
+     * 是否使用了调整顺序后的树，调整后成本更高时使用原来的树
+     */
+    private final boolean applied;
+
+    public ConditionOrderReport(DecisionTree original, DecisionTree reordered, boolean applied) {
+        this.originalNodeCount = original.getNodeCount();
+        this.originalCost = original.getEstimatedCost();
+        this.nodeCount = reordered.getNodeCount();
+        this.cost = reordered.getEstimatedCost();
+        this.applied = applied;
+    }
+
+    public int getOriginalNodeCount() {
+        return originalNodeCount;
+    }
+
+    public long getOriginalCost() {
+        return originalCost;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public long getCost() {
+        return cost;
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    @Override
+    public String toString() {
+        return "节点数量：" + originalNodeCount + " -> " + nodeCount + "，估算成本：" + originalCost + " -> " + cost + (applied ? "" : "（未使用）");
+    }
+}
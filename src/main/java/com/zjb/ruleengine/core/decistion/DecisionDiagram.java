@@ -0,0 +1,416 @@
+package com.zjb.ruleengine.core.decistion;
+
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.enums.RuleResultEnum;
+import com.zjb.ruleengine.core.enums.RuleSetExecutePolicyEnum;
+import com.zjb.ruleengine.core.value.Value;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 决策表的有序、约简的多终端决策图，由{@link DecisionTree}编译而来，不可修改
+ * <p>
+ * 变量为决策树条件表中的条件（相等的条件是同一个变量），按条件表的下标排序；
+ * 终端为结果表下标的序列，ONE时最多一个，ALL时按决策树返回结果的顺序（见{@link DecisionTree#executeAll}，同一个规则的结果只保留第一个）。
+ * 对于任意一组条件的结果，决策图与决策树执行的结果相同
+ * <p>
+ * 执行时从根节点开始，每个节点执行一个条件，为true时进入high，否则进入low，直到终端；
+ * 一条路径上变量的顺序严格递增，所以每个条件最多执行一次。与决策树不同的是，执行的条件可能是决策树不会执行的条件（条件不能有副作用），
+ * 也不使用{@link ChildDispatch}索引
+ * <p>
+ * 相同的子函数只有一个节点，变量或节点数量超过上限时不能编译
+ *
+ * @author 赵静波
+ * @date 2026-10-18 23:34:52
+ */
+public class DecisionDiagram implements Serializable {
+    private static final long serialVersionUID = -2719302481716932704L;
+
+    /**
+     * 默认的节点数量上限
+     */
+    public static final int MAX_NODES = 1 << 16;
+
+    /**
+     * 变量（不同的条件）数量上限，编译时递归的深度不超过变量数量
+     */
+    public static final int MAX_VARIABLES = 4096;
+
+    private final AbstractCondition[] conditions;
+    private final Value[] results;
+
+    /**
+     * 内部节点的变量、low、high，节点的引用：大于等于0为内部节点，小于0为终端-(下标+1)
+     */
+    private final int[] vars;
+    private final int[] lows;
+    private final int[] highs;
+
+    /**
+     * 终端的结果表下标
+     */
+    private final int[][] terminals;
+
+    private final int root;
+
+    private final boolean one;
+
+    private DecisionDiagram(Builder builder, int root, boolean one) {
+        final DecisionTree tree = builder.tree;
+        this.conditions = new AbstractCondition[tree.getConditionCount()];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = tree.condition(i);
+        }
+        final int resultCount = tree.resultEnd(tree.getNodeCount() - 1);
+        this.results = new Value[resultCount];
+        for (int i = 0; i < resultCount; i++) {
+            results[i] = tree.result(i);
+        }
+        //只保留根节点可以到达的节点
+        final Map<Integer, Integer> reachable = new HashMap<>();
+        final Map<Integer, Integer> reachableTerminals = new HashMap<>();
+        final List<Integer> order = new ArrayList<>();
+        final List<int[]> terminalList = new ArrayList<>();
+        final List<Integer> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            final int ref = stack.remove(stack.size() - 1);
+            if (ref < 0) {
+                if (!reachableTerminals.containsKey(ref)) {
+                    reachableTerminals.put(ref, -(terminalList.size() + 1));
+                    terminalList.add(builder.terminals.get(-ref - 1));
+                }
+            } else if (!reachable.containsKey(ref)) {
+                reachable.put(ref, order.size());
+                order.add(ref);
+                stack.add(builder.highs[ref]);
+                stack.add(builder.lows[ref]);
+            }
+        }
+        this.vars = new int[order.size()];
+        this.lows = new int[order.size()];
+        this.highs = new int[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            final int ref = order.get(i);
+            vars[i] = builder.vars[ref];
+            lows[i] = builder.lows[ref] < 0 ? reachableTerminals.get(builder.lows[ref]) : reachable.get(builder.lows[ref]);
+            highs[i] = builder.highs[ref] < 0 ? reachableTerminals.get(builder.highs[ref]) : reachable.get(builder.highs[ref]);
+        }
+        this.terminals = terminalList.toArray(new int[0][]);
+        this.root = root < 0 ? reachableTerminals.get(root) : reachable.get(root);
+        this.one = one;
+    }
+
+    /**
+     * 编译决策树
+     *
+     * @param tree     决策树
+     * @param policy   执行策略，只支持ONE、ALL
+     * @param maxNodes 节点数量上限
+     * @return 不支持的执行策略、变量或节点数量超过上限时返回null
+     */
+    public static DecisionDiagram compile(DecisionTree tree, RuleSetExecutePolicyEnum policy, int maxNodes) {
+        if (policy != RuleSetExecutePolicyEnum.ONE && policy != RuleSetExecutePolicyEnum.ALL) {
+            return null;
+        }
+        if (tree.getConditionCount() > MAX_VARIABLES) {
+            return null;
+        }
+        final boolean one = policy == RuleSetExecutePolicyEnum.ONE;
+        final Builder builder = new Builder(tree, maxNodes);
+        try {
+            final int root = one ? builder.one(0) : builder.all(0);
+            return new DecisionDiagram(builder, root, one);
+        } catch (TooManyNodesException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return ONE时为结果或{@link RuleResultEnum#NULL}，ALL时为结果的list或{@link RuleResultEnum#NULL}
+     */
+    public Object execute(Context context) {
+        int ref = root;
+        while (ref >= 0) {
+            ref = conditions[vars[ref]].evaluateShared(context) ? highs[ref] : lows[ref];
+        }
+        final int[] terminal = terminals[-ref - 1];
+        if (terminal.length == 0) {
+            return RuleResultEnum.NULL;
+        }
+        if (one) {
+            return results[terminal[0]].getValue(context);
+        }
+        final List<Object> result = new ArrayList<>(terminal.length);
+        for (int index : terminal) {
+            result.add(results[index].getValue(context));
+        }
+        return result;
+    }
+
+    public int getNodeCount() {
+        return vars.length;
+    }
+
+    public int getTerminalCount() {
+        return terminals.length;
+    }
+
+    /**
+     * 编译时的节点表，节点按(变量, low, high)唯一
+     */
+    private static final class Builder {
+        private static final int[] NONE = new int[0];
+
+        private final DecisionTree tree;
+        private final int maxNodes;
+
+        private int[] vars = new int[64];
+        private int[] lows = new int[64];
+        private int[] highs = new int[64];
+        private int size;
+        private final Map<Triple, Integer> unique = new HashMap<>();
+
+        private final List<int[]> terminals = new ArrayList<>();
+        private final Map<Sequence, Integer> terminalIds = new HashMap<>();
+
+        private final Map<Triple, Integer> iteCache = new HashMap<>();
+        private final Map<Long, Integer> unionCache = new HashMap<>();
+
+        private final int empty;
+
+        Builder(DecisionTree tree, int maxNodes) {
+            this.tree = tree;
+            this.maxNodes = maxNodes;
+            this.empty = terminal(NONE);
+        }
+
+        /**
+         * 每层进入第一个条件为true的子节点，到达叶子节点时为第一个结果
+         */
+        int one(int node) {
+            if (tree.isLeaf(node)) {
+                return terminal(new int[]{tree.resultStart(node)});
+            }
+            final List<Integer> children = children(node);
+            int result = empty;
+            for (int i = children.size() - 1; i >= 0; i--) {
+                final int child = children.get(i);
+                result = ite(tree.conditionId(child), one(child), result);
+            }
+            return result;
+        }
+
+        /**
+         * 节点的结果，合并条件为true的子节点的结果
+         */
+        int all(int node) {
+            final int[] own = new int[tree.resultEnd(node) - tree.resultStart(node)];
+            for (int i = 0; i < own.length; i++) {
+                own[i] = tree.resultStart(node) + i;
+            }
+            int result = terminal(Arrays.stream(own).boxed().sorted(Comparator.comparingInt(tree::resultOrder)).mapToInt(Integer::intValue).toArray());
+            for (int child : children(node)) {
+                result = union(result, ite(tree.conditionId(child), all(child), empty));
+            }
+            return result;
+        }
+
+        private List<Integer> children(int node) {
+            final List<Integer> children = new ArrayList<>();
+            for (int child = tree.firstChild(node); child >= 0; child = tree.nextSibling(child)) {
+                children.add(child);
+            }
+            return children;
+        }
+
+        /**
+         * var ? high : low
+         */
+        private int ite(int var, int high, int low) {
+            if (high == low) {
+                return high;
+            }
+            final int top = Math.min(var, Math.min(var(high), var(low)));
+            if (top == var) {
+                return mk(var, cofactor(low, var, false), cofactor(high, var, true));
+            }
+            final Triple key = new Triple(var, high, low);
+            final Integer cached = iteCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            final int result = mk(top, ite(var, cofactor(high, top, false), cofactor(low, top, false)),
+                    ite(var, cofactor(high, top, true), cofactor(low, top, true)));
+            iteCache.put(key, result);
+            return result;
+        }
+
+        /**
+         * 终端按结果的顺序合并，同一个规则的结果只保留第一个
+         */
+        private int union(int first, int second) {
+            if (first == empty) {
+                return second;
+            }
+            if (second == empty) {
+                return first;
+            }
+            if (first < 0 && second < 0) {
+                return terminal(merge(terminals.get(-first - 1), terminals.get(-second - 1)));
+            }
+            final Long key = ((long) first << 32) | (second & 0xFFFFFFFFL);
+            final Integer cached = unionCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            final int top = Math.min(var(first), var(second));
+            final int result = mk(top, union(cofactor(first, top, false), cofactor(second, top, false)),
+                    union(cofactor(first, top, true), cofactor(second, top, true)));
+            unionCache.put(key, result);
+            return result;
+        }
+
+        private int[] merge(int[] first, int[] second) {
+            final int[] merged = new int[first.length + second.length];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+            while (i < first.length || j < second.length) {
+                final int index;
+                if (j >= second.length || i < first.length && tree.resultOrder(first[i]) <= tree.resultOrder(second[j])) {
+                    index = first[i++];
+                } else {
+                    index = second[j++];
+                }
+                if (!containsRule(merged, size, tree.resultRule(index))) {
+                    merged[size++] = index;
+                }
+            }
+            return Arrays.copyOf(merged, size);
+        }
+
+        private boolean containsRule(int[] indexes, int size, int rule) {
+            for (int i = 0; i < size; i++) {
+                if (tree.resultRule(indexes[i]) == rule) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int var(int ref) {
+            return ref < 0 ? Integer.MAX_VALUE : vars[ref];
+        }
+
+        private int cofactor(int ref, int var, boolean value) {
+            if (ref < 0 || vars[ref] != var) {
+                return ref;
+            }
+            return value ? highs[ref] : lows[ref];
+        }
+
+        private int mk(int var, int low, int high) {
+            if (low == high) {
+                return low;
+            }
+            final Triple key = new Triple(var, low, high);
+            final Integer existing = unique.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (size >= maxNodes) {
+                throw TooManyNodesException.INSTANCE;
+            }
+            if (size == vars.length) {
+                vars = Arrays.copyOf(vars, size * 2);
+                lows = Arrays.copyOf(lows, size * 2);
+                highs = Arrays.copyOf(highs, size * 2);
+            }
+            vars[size] = var;
+            lows[size] = low;
+            highs[size] = high;
+            unique.put(key, size);
+            return size++;
+        }
+
+        private int terminal(int[] indexes) {
+            final Sequence key = new Sequence(indexes);
+            final Integer existing = terminalIds.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            terminals.add(indexes);
+            final int ref = -terminals.size();
+            terminalIds.put(key, ref);
+            return ref;
+        }
+    }
+
+    private static final class Triple {
+        private final int a;
+        private final int b;
+        private final int c;
+
+        Triple(int a, int b, int c) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Triple)) {
+                return false;
+            }
+            final Triple that = (Triple) o;
+            return a == that.a && b == that.b && c == that.c;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(a, b, c);
+        }
+    }
+
+    private static final class Sequence {
+        private final int[] values;
+
+        Sequence(int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Sequence && Arrays.equals(values, ((Sequence) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+
+    /**
+     * 节点数量超过上限
+     */
+    private static final class TooManyNodesException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private static final TooManyNodesException INSTANCE = new TooManyNodesException();
+
+        private TooManyNodesException() {
+            super("决策图节点数量超过上限", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,559 @@
+package com.zjb.ruleengine.core.decistion;
+
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.enums.RuleResultEnum;
+import com.zjb.ruleengine.core.exception.RuleExecuteException;
+import com.zjb.ruleengine.core.value.Value;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 决策树的数组编码，由建立索引（{@link TreeNodeCondition#buildIndex()}）后的树转换而来，不可修改
+ * <p>
+ * 节点按层编号，根节点为0，同一个节点的子节点编号连续，每个节点的数据保存在下标为节点编号的数组中：
+ * 1. firstChild/nextSibling：第一个子节点、下一个兄弟节点，没有时为-1
+ * 2. conditionIds：节点的条件在条件表中的下标，相等的条件只保存一次
+ * 3. resultOffsets：节点的结果在结果表中的范围[resultOffsets[i], resultOffsets[i+1])，范围不为空的是叶子节点
+ * 4. dispatchIds：从该节点开始的相邻兄弟节点的索引（见{@link ChildDispatch}）在索引表中的下标，没有时为-1
+ * <p>
+ * 结果表中记录结果所属的规则（见{@link TreeNodeCondition#addResult(Value, int)}），
+ * 执行ALL时一个规则的结果只收集一次（条件展开为多条路径的规则可能到达多个叶子节点）。
+ * 结果默认按深度优先经过叶子节点的顺序返回；ruleOrder时按规则的顺序返回，与树的形状无关（调整条件顺序时使用）
+ * <p>
+ * 执行时不递归，条件的结果按条件表的下标缓存在线程复用的bitset中，一次执行中相等的条件只执行一次
+ *
+ * @author 赵静波
+ * @date 2026-10-18 22:06:37
+ */
+public class DecisionTree implements Serializable {
+    private static final long serialVersionUID = -6409271618398021554L;
+
+    private static final ThreadLocal<Walker> WALKERS = ThreadLocal.withInitial(Walker::new);
+
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] conditionIds;
+    private final int[] resultOffsets;
+    private final int[] dispatchIds;
+
+    private final AbstractCondition[] conditions;
+    private final Value[] results;
+    private final ChildDispatch[] dispatches;
+
+    /**
+     * 结果所属的规则，没有规则的结果按节点编号排在所有规则之后
+     */
+    private final int[] resultRules;
+
+    /**
+     * 规则的结果，下标为规则
+     */
+    private final Value[] ruleResults;
+
+    /**
+     * 执行ALL时结果是否按规则的顺序返回，否则按深度优先经过叶子节点的顺序
+     */
+    private final boolean ruleOrder;
+
+    /**
+     * 结果的顺序：ruleOrder时为所属的规则，否则为深度优先访问的顺序
+     */
+    private final int[] resultOrders;
+
+    /**
+     * 估算的执行成本，见{@link #getEstimatedCost()}
+     */
+    private final long estimatedCost;
+
+    /**
+     * 叶子节点的最大深度，执行ALL时栈的大小
+     */
+    private final int depth;
+
+    private DecisionTree(int[] firstChild, int[] nextSibling, int[] conditionIds, int[] resultOffsets, int[] dispatchIds,
+                         AbstractCondition[] conditions, Value[] results, ChildDispatch[] dispatches, int[] resultRules, int depth,
+                         boolean ruleOrder) {
+        this.firstChild = firstChild;
+        this.nextSibling = nextSibling;
+        this.conditionIds = conditionIds;
+        this.resultOffsets = resultOffsets;
+        this.dispatchIds = dispatchIds;
+        this.conditions = conditions;
+        this.results = results;
+        this.dispatches = dispatches;
+        this.resultRules = resultRules;
+        this.ruleResults = new Value[Arrays.stream(resultRules).max().orElse(-1) + 1];
+        for (int i = 0; i < resultRules.length; i++) {
+            ruleResults[resultRules[i]] = results[i];
+        }
+        this.depth = depth;
+        this.ruleOrder = ruleOrder;
+        this.resultOrders = ruleOrder ? resultRules : depthFirstOrders();
+        this.estimatedCost = estimateCost();
+    }
+
+    /**
+     * 转换为数组编码，ALL的结果按深度优先经过叶子节点的顺序返回
+     *
+     * @param root 根节点，根节点的条件不执行
+     * @return
+     */
+    public static DecisionTree of(TreeNodeCondition root) {
+        return of(root, false);
+    }
+
+    /**
+     * 转换为数组编码
+     *
+     * @param root      根节点，根节点的条件不执行
+     * @param ruleOrder ALL的结果是否按规则的顺序返回
+     * @return
+     */
+    public static DecisionTree of(TreeNodeCondition root, boolean ruleOrder) {
+        //按层编号，叶子节点也可以有子节点（一条规则的路径是另一条规则的路径的前缀）
+        final List<TreeNodeCondition> nodes = new ArrayList<>();
+        final List<Integer> parents = new ArrayList<>();
+        final List<Integer> depths = new ArrayList<>();
+        nodes.add(root);
+        parents.add(-1);
+        depths.add(0);
+        for (int i = 0; i < nodes.size(); i++) {
+            for (TreeNodeCondition child : children(nodes.get(i))) {
+                nodes.add(child);
+                parents.add(i);
+                depths.add(depths.get(i) + 1);
+            }
+        }
+
+        final int nodeCount = nodes.size();
+        final int[] firstChild = new int[nodeCount];
+        final int[] nextSibling = new int[nodeCount];
+        final int[] conditionIds = new int[nodeCount];
+        final int[] resultOffsets = new int[nodeCount + 1];
+        final int[] dispatchIds = new int[nodeCount];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        Arrays.fill(dispatchIds, -1);
+        final Map<AbstractCondition, Integer> conditionTable = new HashMap<>(nodeCount * 2);
+        final List<Value> results = new ArrayList<>();
+        final List<ChildDispatch> dispatches = new ArrayList<>();
+        final List<Integer> rules = new ArrayList<>();
+        int depth = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            final TreeNodeCondition node = nodes.get(i);
+            conditionIds[i] = conditionTable.computeIfAbsent(node.getNodeCondition(), condition -> conditionTable.size());
+            resultOffsets[i] = results.size();
+            if (node.isLeaf()) {
+                for (int j = 0; j < node.getResults().size(); j++) {
+                    results.add(node.getResults().get(j));
+                    rules.add(node.getResultRule(j));
+                }
+            }
+            depth = Math.max(depth, depths.get(i));
+            final int parent = parents.get(i);
+            if (parent < 0) {
+                continue;
+            }
+            if (firstChild[parent] >= 0) {
+                nextSibling[i - 1] = i;
+                continue;
+            }
+            firstChild[parent] = i;
+            //子节点编号连续，按分段标记索引开始的节点
+            int child = i;
+            for (Object segment : segments(nodes.get(parent))) {
+                if (segment instanceof ChildDispatch) {
+                    dispatchIds[child] = dispatches.size();
+                    dispatches.add((ChildDispatch) segment);
+                    child += ((ChildDispatch) segment).size();
+                } else {
+                    child++;
+                }
+            }
+        }
+        resultOffsets[nodeCount] = results.size();
+        final int[] resultRules = rules.stream().mapToInt(Integer::intValue).toArray();
+        int nextRule = Arrays.stream(resultRules).max().orElse(-1) + 1;
+        for (int i = 0; i < resultRules.length; i++) {
+            if (resultRules[i] < 0) {
+                resultRules[i] = nextRule++;
+            }
+        }
+        final AbstractCondition[] conditions = new AbstractCondition[conditionTable.size()];
+        conditionTable.forEach((condition, id) -> conditions[id] = condition);
+        return new DecisionTree(firstChild, nextSibling, conditionIds, resultOffsets, dispatchIds,
+                conditions, results.toArray(new Value[0]), dispatches.toArray(new ChildDispatch[0]),
+                resultRules, depth, ruleOrder);
+    }
+
+    /**
+     * 从根节点开始，每层进入第一个条件为true的子节点，返回到达的叶子节点的第一个结果
+     *
+     * @param context
+     * @return 某一层没有条件为true的子节点时返回{@link RuleResultEnum#NULL}
+     */
+    public Object executeOne(Context context) {
+        final Walker walker = acquire(context, 1);
+        int node = 0;
+        try {
+            while (!isLeaf(node)) {
+                walker.enter(0, node);
+                node = walker.next(0);
+                if (node < 0) {
+                    return RuleResultEnum.NULL;
+                }
+            }
+        } finally {
+            walker.release();
+        }
+        return results[resultOffsets[node]].getValue(context);
+    }
+
+    /**
+     * 按深度优先的顺序访问所有条件为true的路径，收集经过的叶子节点的规则
+     *
+     * @param context
+     * @param result  经过的叶子节点的结果，按深度优先的顺序或规则的顺序，见{@link #of(TreeNodeCondition, boolean)}
+     */
+    public void executeAll(Context context, List<Object> result) {
+        final Walker walker = acquire(context, depth);
+        try {
+            walker.collect(0, result);
+            int frame = 0;
+            if (firstChild[0] >= 0) {
+                walker.enter(0, 0);
+            } else {
+                frame = -1;
+            }
+            while (frame >= 0) {
+                final int node = walker.next(frame);
+                if (node < 0) {
+                    frame--;
+                    continue;
+                }
+                walker.collect(node, result);
+                if (firstChild[node] >= 0) {
+                    walker.enter(++frame, node);
+                }
+            }
+            if (ruleOrder) {
+                walker.emit(result);
+            }
+        } finally {
+            walker.release();
+        }
+    }
+
+    public int getNodeCount() {
+        return firstChild.length;
+    }
+
+    public int getConditionCount() {
+        return conditions.length;
+    }
+
+    /**
+     * 所有条件都为true时访问全部节点的成本：不在索引中的节点为条件的weight+1，一个索引为1
+     */
+    public long getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    /**
+     * 按深度优先（先节点、再按顺序访问子节点）给结果编号
+     */
+    private int[] depthFirstOrders() {
+        final int[] orders = new int[results.length];
+        final int[] stack = new int[firstChild.length];
+        int top = 0;
+        int order = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            final int node = stack[--top];
+            for (int i = resultOffsets[node]; i < resultOffsets[node + 1]; i++) {
+                orders[i] = order++;
+            }
+            //子节点逆序入栈，出栈时按顺序访问
+            final int mark = top;
+            for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                stack[top++] = child;
+            }
+            for (int i = mark, j = top - 1; i < j; i++, j--) {
+                final int swap = stack[i];
+                stack[i] = stack[j];
+                stack[j] = swap;
+            }
+        }
+        return orders;
+    }
+
+    private long estimateCost() {
+        long cost = 0;
+        for (int parent = 0; parent < firstChild.length; parent++) {
+            int child = firstChild[parent];
+            while (child >= 0) {
+                if (dispatchIds[child] >= 0) {
+                    cost++;
+                    child = nextSibling[child + dispatches[dispatchIds[child]].size() - 1];
+                } else {
+                    final AbstractCondition condition = conditions[conditionIds[child]];
+                    cost += (condition == null ? 0 : condition.getWeight()) + 1L;
+                    child = nextSibling[child];
+                }
+            }
+        }
+        return cost;
+    }
+
+    public List<ChildDispatch> getDispatches() {
+        return Collections.unmodifiableList(Arrays.asList(dispatches));
+    }
+
+    boolean isLeaf(int node) {
+        return resultOffsets[node] < resultOffsets[node + 1];
+    }
+
+    int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    int nextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    int conditionId(int node) {
+        return conditionIds[node];
+    }
+
+    AbstractCondition condition(int conditionId) {
+        return conditions[conditionId];
+    }
+
+    /**
+     * 节点的结果在结果表中的开始下标
+     */
+    int resultStart(int node) {
+        return resultOffsets[node];
+    }
+
+    /**
+     * 节点的结果在结果表中的结束下标（不包含）
+     */
+    int resultEnd(int node) {
+        return resultOffsets[node + 1];
+    }
+
+    Value result(int index) {
+        return results[index];
+    }
+
+    /**
+     * @return 结果所属的规则
+     */
+    int resultRule(int index) {
+        return resultRules[index];
+    }
+
+    /**
+     * @return 执行ALL时结果的顺序，小的在前
+     */
+    int resultOrder(int index) {
+        return resultOrders[index];
+    }
+
+    private static List<TreeNodeCondition> children(TreeNodeCondition node) {
+        if (node.getChildrenNodeConditions() == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(node.getChildrenNodeConditions().keySet());
+    }
+
+    private static List<Object> segments(TreeNodeCondition node) {
+        final Object[] segments = node.getChildSegments();
+        return segments == null ? Collections.emptyList() : Arrays.asList(segments);
+    }
+
+    /**
+     * 获取当前线程的执行状态，正在使用时（如叶子节点的结果中再次执行决策表）创建新的
+     */
+    private Walker acquire(Context context, int frames) {
+        Walker walker = WALKERS.get();
+        if (walker.tree != null) {
+            walker = new Walker();
+        }
+        walker.bind(this, context, frames);
+        return walker;
+    }
+
+    /**
+     * 一次执行的状态，每个线程复用一个：
+     * 1. 条件的结果按条件表的下标保存在两个bitset中（是否执行过、执行结果），每次执行前只清空是否执行过
+     * 2. 每层（frame）保存正在访问的子节点
+     */
+    private static final class Walker {
+        private DecisionTree tree;
+        private Context context;
+
+        private long[] evaluated = new long[1];
+        private long[] values = new long[1];
+        /**
+         * 已经收集过结果的规则
+         */
+        private long[] collected = new long[1];
+
+        /**
+         * 下一个要访问的子节点，没有时为-1
+         */
+        private int[] cursor = new int[0];
+        /**
+         * 索引查找到的节点的位置，没有时为null
+         */
+        private int[][] matched = new int[0][];
+        private int[] matchIndex = new int[0];
+        /**
+         * 索引开始的节点
+         */
+        private int[] base = new int[0];
+        /**
+         * 索引不能使用时逐个执行到该节点（包含）
+         */
+        private int[] sequentialEnd = new int[0];
+
+        void bind(DecisionTree tree, Context context, int frames) {
+            this.tree = tree;
+            this.context = context;
+            final int words = (tree.conditions.length + 63) >>> 6;
+            if (evaluated.length < words) {
+                evaluated = new long[words];
+                values = new long[words];
+            } else {
+                Arrays.fill(evaluated, 0, words, 0L);
+            }
+            final int ruleWords = (tree.ruleResults.length + 63) >>> 6;
+            if (collected.length < ruleWords) {
+                collected = new long[ruleWords];
+            } else {
+                Arrays.fill(collected, 0, ruleWords, 0L);
+            }
+            if (cursor.length < frames) {
+                cursor = new int[frames];
+                matched = new int[frames][];
+                matchIndex = new int[frames];
+                base = new int[frames];
+                sequentialEnd = new int[frames];
+            }
+        }
+
+        void release() {
+            Arrays.fill(matched, null);
+            this.tree = null;
+            this.context = null;
+        }
+
+        /**
+         * 收集节点的结果，一个规则只收集一次；ruleOrder时只记录规则，最后由{@link #emit(List)}按规则的顺序添加
+         */
+        void collect(int node, List<Object> result) {
+            for (int i = tree.resultOffsets[node]; i < tree.resultOffsets[node + 1]; i++) {
+                final int rule = tree.resultRules[i];
+                if ((collected[rule >>> 6] & (1L << rule)) != 0) {
+                    continue;
+                }
+                collected[rule >>> 6] |= 1L << rule;
+                if (!tree.ruleOrder) {
+                    result.add(tree.results[i].getValue(context));
+                }
+            }
+        }
+
+        /**
+         * 按规则的顺序添加收集到的规则的结果
+         */
+        void emit(List<Object> result) {
+            final int words = (tree.ruleResults.length + 63) >>> 6;
+            for (int word = 0; word < words; word++) {
+                long bits = collected[word];
+                while (bits != 0) {
+                    final int rule = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    result.add(tree.ruleResults[rule].getValue(context));
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        void enter(int frame, int node) {
+            if (tree.firstChild[node] < 0) {
+                throw new RuleExecuteException(String.format("%s不是叶子节点，也没有子节点", tree.conditions[tree.conditionIds[node]].getId()));
+            }
+            cursor[frame] = tree.firstChild[node];
+            matched[frame] = null;
+            sequentialEnd[frame] = -1;
+        }
+
+        /**
+         * @return frame层下一个条件为true的子节点，没有时返回-1
+         */
+        int next(int frame) {
+            while (true) {
+                final int[] positions = matched[frame];
+                if (positions != null) {
+                    if (matchIndex[frame] < positions.length) {
+                        final int node = base[frame] + positions[matchIndex[frame]++];
+                        setValue(tree.conditionIds[node], true);
+                        return node;
+                    }
+                    matched[frame] = null;
+                }
+                final int node = cursor[frame];
+                if (node < 0) {
+                    return -1;
+                }
+                final int dispatchId = tree.dispatchIds[node];
+                if (dispatchId >= 0 && node > sequentialEnd[frame]) {
+                    final ChildDispatch dispatch = tree.dispatches[dispatchId];
+                    final int last = node + dispatch.size() - 1;
+                    final int[] found = dispatch.match(context);
+                    if (found != null) {
+                        matched[frame] = found;
+                        matchIndex[frame] = 0;
+                        base[frame] = node;
+                        cursor[frame] = tree.nextSibling[last];
+                        continue;
+                    }
+                    //左值的类型不能用索引比较，逐个执行
+                    sequentialEnd[frame] = last;
+                }
+                cursor[frame] = tree.nextSibling[node];
+                if (evaluate(node)) {
+                    return node;
+                }
+            }
+        }
+
+        private boolean evaluate(int node) {
+            final int id = tree.conditionIds[node];
+            if ((evaluated[id >>> 6] & (1L << id)) != 0) {
+                return (values[id >>> 6] & (1L << id)) != 0;
+            }
+            final boolean value = tree.conditions[id].evaluateShared(context);
+            setValue(id, value);
+            return value;
+        }
+
+        private void setValue(int id, boolean value) {
+            evaluated[id >>> 6] |= 1L << id;
+            if (value) {
+                values[id >>> 6] |= 1L << id;
+            } else {
+                values[id >>> 6] &= ~(1L << id);
+            }
+        }
+    }
+}
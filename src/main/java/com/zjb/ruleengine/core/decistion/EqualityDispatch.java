@@ -0,0 +1,121 @@
+package com.zjb.ruleengine.core.decistion;
+
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.value.Constant;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 相邻的等值兄弟节点的hash索引
+ * <p>
+ * 兄弟节点的条件都是同一个左值、同一个等值运算符（str_eq、number_eq、boolean_eq），右值都是常量时，
+ * 按左值在map中查找为true的节点
+ * <p>
+ * 数字按{@link BigDecimal}的值比较（5与5.0相等），与{@link com.zjb.ruleengine.core.condition.evaluate.NumberEvaluateStrategy}一致
+ *
+ * @author 赵静波
+ * @date 2026-10-18 17:48:26
+ */
+public class EqualityDispatch extends ChildDispatch {
+    private static final long serialVersionUID = -1733012296157604118L;
+
+    private final Symbol symbol;
+
+    /**
+     * key=右值，value=条件为true的节点的位置，升序
+     */
+    private final Map<Object, int[]> index;
+
+    EqualityDispatch(List<TreeNodeCondition> children) {
+        super(((DefaultCondition) children.get(0).getNodeCondition()).getLeftValue(), children);
+        this.symbol = ((DefaultCondition) children.get(0).getNodeCondition()).getSymbol();
+        final Map<Object, List<Integer>> positions = new HashMap<>(children.size() * 2);
+        for (int i = 0; i < children.size(); i++) {
+            positions.computeIfAbsent(key(symbol, rightValue(children.get(i))), k -> new ArrayList<>(1)).add(i);
+        }
+        this.index = new HashMap<>(positions.size() * 2);
+        positions.forEach((key, value) -> index.put(key, value.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * 从from开始可以合并为一个等值索引的节点
+     *
+     * @return 结束的下标（不包含）
+     */
+    static int runEnd(List<TreeNodeCondition> children, int from) {
+        final AbstractCondition first = children.get(from).getNodeCondition();
+        if (!isIndexable(first)) {
+            return from + 1;
+        }
+        int to = from + 1;
+        while (to < children.size()) {
+            final AbstractCondition other = children.get(to).getNodeCondition();
+            if (!isIndexable(other) || ((DefaultCondition) other).getSymbol() != ((DefaultCondition) first).getSymbol() || !sameLeft(first, other)) {
+                break;
+            }
+            to++;
+        }
+        return to;
+    }
+
+    @Override
+    public int[] match(Context context) {
+        final Object value = leftValue.getValue(context);
+        if (value == null) {
+            return NONE;
+        }
+        final Object key = key(symbol, value);
+        if (key == null) {
+            return null;
+        }
+        final int[] result = index.get(key);
+        return result == null ? NONE : result;
+    }
+
+    public Symbol getSymbol() {
+        return symbol;
+    }
+
+    private static boolean isIndexable(AbstractCondition condition) {
+        if (!isConstantComparison(condition)) {
+            return false;
+        }
+        final DefaultCondition defaultCondition = (DefaultCondition) condition;
+        final Symbol symbol = defaultCondition.getSymbol();
+        if (symbol != Symbol.str_eq && symbol != Symbol.number_eq && symbol != Symbol.boolean_eq) {
+            return false;
+        }
+        return key(symbol, ((Constant) defaultCondition.getRightValue()).getValue()) != null;
+    }
+
+    /**
+     * 索引的key，值的类型与运算符不一致时返回null
+     */
+    private static Object key(Symbol symbol, Object value) {
+        switch (symbol) {
+            case str_eq:
+                return value instanceof String ? value : null;
+            case boolean_eq:
+                return value instanceof Boolean ? value : null;
+            case number_eq:
+                if (!(value instanceof Number)) {
+                    return null;
+                }
+                try {
+                    return new BigDecimal(String.valueOf(value)).stripTrailingZeros();
+                } catch (NumberFormatException e) {
+                    //NaN、无穷大
+                    return null;
+                }
+            default:
+                return null;
+        }
+    }
+}
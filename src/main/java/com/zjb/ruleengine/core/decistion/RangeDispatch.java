@@ -0,0 +1,198 @@
+package com.zjb.ruleengine.core.decistion;
+
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.value.Constant;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 相邻的数字比较兄弟节点的区间索引
+ * <p>
+ * 兄弟节点的条件都是同一个左值与数字常量比较（number_gt、number_ge、number_lt、number_le、number_eq、number_ne）时，
+ * 常量排序去重为double[]边界，m个边界把数轴分为2m+1个区间（边界之间的开区间及每个边界本身），
+ * 预先计算每个区间中为true的节点，执行时二分查找左值所在的区间
+ * <p>
+ * 只有与{@link com.zjb.ruleengine.core.condition.evaluate.NumberEvaluateStrategy}按{@link BigDecimal}比较结果一致的数字使用double比较：
+ * 数字的十进制值必须等于某个double的{@link Double#toString(double)}，这样每个double只对应一个十进制值，
+ * 不同的double的大小关系与十进制值的大小关系一致（Integer、Short、Byte、绝对值不超过2^53的Long、有限的Double都满足）；
+ * 左值不满足时由调用方逐个执行条件
+ *
+ * @author 赵静波
+ * @date 2026-10-18 18:12:09
+ */
+public class RangeDispatch extends ChildDispatch {
+    private static final long serialVersionUID = 2931734760226043145L;
+
+    /**
+     * 一个索引最多的节点数，每个区间都持有为true的节点，内存为节点数的平方
+     */
+    static final int MAX_SIZE = 256;
+
+    /**
+     * long转为double不丢失精度的范围
+     */
+    private static final long EXACT_LONG = 1L << 53;
+
+    /**
+     * 排序去重后的边界
+     */
+    private final double[] boundaries;
+
+    /**
+     * 每个区间为true的节点的位置，升序，下标为2i+1的区间为第i个边界本身
+     */
+    private final int[][] cells;
+
+    @SuppressWarnings("unchecked")
+    RangeDispatch(List<TreeNodeCondition> children) {
+        super(((DefaultCondition) children.get(0).getNodeCondition()).getLeftValue(), children);
+        final TreeSet<Double> sorted = new TreeSet<>();
+        final double[] rights = new double[children.size()];
+        for (int i = 0; i < rights.length; i++) {
+            rights[i] = toDouble(rightValue(children.get(i)));
+            sorted.add(rights[i]);
+        }
+        this.boundaries = sorted.stream().mapToDouble(Double::doubleValue).toArray();
+        this.cells = new int[boundaries.length * 2 + 1][];
+        final List<Integer>[] matched = new List[cells.length];
+        for (int cell = 0; cell < cells.length; cell++) {
+            matched[cell] = new ArrayList<>();
+        }
+        for (int i = 0; i < rights.length; i++) {
+            final int boundaryCell = Arrays.binarySearch(boundaries, rights[i]) * 2 + 1;
+            final Symbol symbol = ((DefaultCondition) children.get(i).getNodeCondition()).getSymbol();
+            for (int cell = 0; cell < cells.length; cell++) {
+                if (test(symbol, Integer.compare(cell, boundaryCell))) {
+                    matched[cell].add(i);
+                }
+            }
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = matched[cell].isEmpty() ? NONE : matched[cell].stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * 从from开始可以合并为一个区间索引的节点
+     *
+     * @return 结束的下标（不包含）
+     */
+    static int runEnd(List<TreeNodeCondition> children, int from) {
+        final AbstractCondition first = children.get(from).getNodeCondition();
+        if (!isIndexable(first)) {
+            return from + 1;
+        }
+        int to = from + 1;
+        while (to < children.size() && to - from < MAX_SIZE) {
+            final AbstractCondition other = children.get(to).getNodeCondition();
+            if (!isIndexable(other) || !sameLeft(first, other)) {
+                break;
+            }
+            to++;
+        }
+        return to;
+    }
+
+    @Override
+    public int[] match(Context context) {
+        final Object value = leftValue.getValue(context);
+        if (value == null) {
+            return NONE;
+        }
+        final double key = toDouble(value);
+        if (Double.isNaN(key)) {
+            return null;
+        }
+        final int index = Arrays.binarySearch(boundaries, key);
+        return cells[index >= 0 ? index * 2 + 1 : -(index + 1) * 2];
+    }
+
+    public double[] getBoundaries() {
+        return boundaries.clone();
+    }
+
+    private static boolean isIndexable(AbstractCondition condition) {
+        if (!isConstantComparison(condition)) {
+            return false;
+        }
+        switch (((DefaultCondition) condition).getSymbol()) {
+            case number_gt:
+            case number_ge:
+            case number_lt:
+            case number_le:
+            case number_eq:
+            case number_ne:
+                return !Double.isNaN(toDouble(rightValue(condition)));
+            default:
+                return false;
+        }
+    }
+
+    private static Object rightValue(AbstractCondition condition) {
+        return ((Constant) ((DefaultCondition) condition).getRightValue()).getValue();
+    }
+
+    /**
+     * @param compare 左值所在区间与常量所在区间的比较结果
+     */
+    private static boolean test(Symbol symbol, int compare) {
+        switch (symbol) {
+            case number_gt:
+                return compare > 0;
+            case number_ge:
+                return compare >= 0;
+            case number_lt:
+                return compare < 0;
+            case number_le:
+                return compare <= 0;
+            case number_eq:
+                return compare == 0;
+            case number_ne:
+                return compare != 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 转换为与{@link BigDecimal}比较结果一致的double，-0.0转换为0.0
+     *
+     * @return 不能转换时返回NaN
+     */
+    static double toDouble(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Long) {
+            final long longValue = (Long) value;
+            return longValue >= -EXACT_LONG && longValue <= EXACT_LONG ? longValue : Double.NaN;
+        }
+        if (value instanceof Double) {
+            final double doubleValue = (Double) value;
+            return Double.isInfinite(doubleValue) ? Double.NaN : doubleValue + 0.0;
+        }
+        if (!(value instanceof Number)) {
+            return Double.NaN;
+        }
+        try {
+            final BigDecimal decimal = new BigDecimal(String.valueOf(value));
+            final double doubleValue = decimal.doubleValue();
+            if (Double.isInfinite(doubleValue)) {
+                return Double.NaN;
+            }
+            if (new BigDecimal(String.valueOf(doubleValue)).compareTo(decimal) == 0) {
+                return doubleValue + 0.0;
+            }
+            return Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
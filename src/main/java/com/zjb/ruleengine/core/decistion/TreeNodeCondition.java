@@ -4,8 +4,9 @@ import com.zjb.ruleengine.core.condition.AbstractCondition;
 import com.zjb.ruleengine.core.value.Value;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 
 
@@ -23,7 +24,7 @@ public class TreeNodeCondition implements Serializable {
      */
     private AbstractCondition nodeCondition = null;
     /**
-     * children node,it need order
+     * children node,it need order, value is the key itself
      * if there are one equals to it ,it shouldn't put
      */
     private LinkedHashMap<TreeNodeCondition, Object> childrenNodeConditions = new LinkedHashMap<>();
@@ -31,9 +32,19 @@ public class TreeNodeCondition implements Serializable {
      * result ,it need order
      * if there are one equals to it ,it shouldn't add
      */
-    private LinkedHashSet<Value> results;
+    private List<Value> results;
 
-    private static final Object PRESENT = new Object();
+    /**
+     * index of the rule that added the result at the same position, -1 if unknown;
+     * a rule reaching more than one leaf has its result collected once per execution
+     */
+    private List<Integer> resultRules;
+
+    /**
+     * children segments after {@link #buildIndex()}, each segment is a child or a {@link ChildDispatch},
+     * null if no child can be indexed
+     */
+    private Object[] childSegments;
 
     public boolean isLeaf() {
         return isLeaf;
@@ -45,10 +56,33 @@ public class TreeNodeCondition implements Serializable {
 
 
     public void addResult(Value action) {
+        addResult(action, -1);
+    }
+
+    /**
+     * a rule adds its result once; results without rule are not added if there are one equals to it
+     *
+     * @param rule index of the rule, -1 if unknown
+     */
+    public void addResult(Value action, int rule) {
         if (results == null) {
-            results = new LinkedHashSet<>();
+            results = new ArrayList<>();
+            resultRules = new ArrayList<>();
+        }
+        for (int i = 0; i < results.size(); i++) {
+            if (rule >= 0 ? resultRules.get(i) == rule : resultRules.get(i) < 0 && results.get(i).equals(action)) {
+                return;
+            }
         }
         results.add(action);
+        resultRules.add(rule);
+    }
+
+    /**
+     * @return index of the rule that added the result at the position, -1 if unknown
+     */
+    public int getResultRule(int position) {
+        return resultRules.get(position);
     }
 
     public boolean containChildNodeCondition(TreeNodeCondition condition) {
@@ -56,14 +90,34 @@ public class TreeNodeCondition implements Serializable {
     }
 
     public TreeNodeCondition getChildNodeCondition(TreeNodeCondition condition) {
-        return childrenNodeConditions.keySet().stream().filter(con -> con.equals(condition)).findFirst().get();
+        return (TreeNodeCondition) childrenNodeConditions.get(condition);
     }
 
     public void addChildNodeCondition(TreeNodeCondition condition) {
         if (childrenNodeConditions == null) {
             childrenNodeConditions = new LinkedHashMap<>();
         }
-        childrenNodeConditions.put(condition, PRESENT);
+        childrenNodeConditions.put(condition, condition);
+        childSegments = null;
+    }
+
+    /**
+     * index children of current node and all descendants, see {@link ChildDispatch}
+     */
+    public void buildIndex() {
+        if (childrenNodeConditions == null || childrenNodeConditions.isEmpty()) {
+            childSegments = null;
+            return;
+        }
+        final List<TreeNodeCondition> children = new ArrayList<>(childrenNodeConditions.keySet());
+        childSegments = ChildDispatch.segment(children);
+        for (TreeNodeCondition child : children) {
+            child.buildIndex();
+        }
+    }
+
+    public Object[] getChildSegments() {
+        return childSegments;
     }
 
     public AbstractCondition getNodeCondition() {
@@ -80,16 +134,13 @@ public class TreeNodeCondition implements Serializable {
 
     public void setChildrenNodeConditions(LinkedHashMap<TreeNodeCondition, Object> childrenNodeConditions) {
         this.childrenNodeConditions = childrenNodeConditions;
+        this.childSegments = null;
     }
 
-    public LinkedHashSet<Value> getResults() {
+    public List<Value> getResults() {
         return results;
     }
 
-    public void setResults(LinkedHashSet<Value> results) {
-        this.results = results;
-    }
-
     @Override
     public String toString() {
         return nodeCondition.getId();
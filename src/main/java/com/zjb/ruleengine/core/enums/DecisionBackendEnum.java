@@ -0,0 +1,21 @@
+package com.zjb.ruleengine.core.enums;
+
+import java.io.Serializable;
+
+/**
+ * 决策表的执行方式
+ *
+ * @author 赵静波
+ * @date 2026-10-18 23:31:08
+ */
+public enum DecisionBackendEnum implements Serializable {
+    /**
+     * 决策树，见{@link com.zjb.ruleengine.core.decistion.DecisionTree}
+     */
+    TREE,
+    /**
+     * 决策图，每个条件最多执行一次，见{@link com.zjb.ruleengine.core.decistion.DecisionDiagram}；
+     * 节点数量超过上限时使用决策树
+     */
+    DIAGRAM
+}
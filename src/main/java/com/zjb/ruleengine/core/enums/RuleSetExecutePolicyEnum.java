@@ -21,7 +21,13 @@ public enum RuleSetExecutePolicyEnum implements Serializable {
     /**
      * 获取所有 触发成功的规则结果
      */
-    ALL;
+    ALL,
+    /**
+     * 与ALL相同，规则分片后并行执行，结果仍按规则顺序；规则较少时按顺序执行。
+     * 片段中的规则读不到其它片段对上下文的修改，所有片段结束后按规则顺序写回；
+     * 决策表不并行执行，按ALL执行
+     */
+    PARALLEL_ALL;
     private static Map<String, RuleSetExecutePolicyEnum> map = new HashMap<>();
 
     static {
@@ -0,0 +1,24 @@
+package com.zjb.ruleengine.core.function;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记函数在一次执行中是确定的：参数相同，结果相同，且没有需要重复触发的副作用。
+ * <p>
+ * 标记后，同一次执行中相同的{@link com.zjb.ruleengine.core.value.Variable}只会调用一次函数，
+ * 结果缓存在{@link com.zjb.ruleengine.core.ExecutionMemo}中，执行结束后丢弃
+ *
+ * @author 赵静波
+ * @date 2026-10-18 14:05:22
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Deterministic {
+}
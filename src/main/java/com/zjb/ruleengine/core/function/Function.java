@@ -17,6 +17,7 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author 赵静波
@@ -98,6 +99,40 @@ public abstract class Function<T, R> implements Serializable {
         return "execute";
     }
 
+    /**
+     * 函数在一次执行中是否确定，确定的函数结果会在本次执行中缓存，见{@link Deterministic}
+     *
+     * @return
+     */
+    public boolean isDeterministic() {
+        return this.getClass().isAnnotationPresent(Deterministic.class);
+    }
+
+    /**
+     * 是否为远程调用（如http接口），异步执行时确定的远程函数会在规则执行前并发调用
+     *
+     * @return
+     */
+    public boolean isRemote() {
+        return false;
+    }
+
+    /**
+     * 异步执行，默认在当前线程同步执行，远程函数可以重写为非阻塞的实现
+     *
+     * @param param 参数
+     * @return
+     */
+    public CompletableFuture<R> executeAsync(T param) {
+        final CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            future.complete(execute(param));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(super.hashCode());
@@ -10,6 +10,7 @@ import org.apache.commons.lang3.Validate;
  * @author 赵静波
  * @date 2020-12-07 11:47:03
  */
+@Deterministic
 public class GetJsonPropertyFunction extends Function<GetJsonPropertyFunction.FunctionParameter, Object> {
     @Override
     public Object execute(FunctionParameter param) {
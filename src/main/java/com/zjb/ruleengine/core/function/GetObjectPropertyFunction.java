@@ -9,6 +9,7 @@ import java.util.Objects;
  * @author 赵静波
  * @date 2020-12-07 11:47:03
  */
+@Deterministic
 public class GetObjectPropertyFunction extends Function<GetObjectPropertyFunction.FunctionParameter, Object> {
     @Override
     public Object execute(FunctionParameter param) {
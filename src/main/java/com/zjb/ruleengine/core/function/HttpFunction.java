@@ -8,19 +8,59 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author 赵静波
  * @date 2020-12-07 11:09:34
  */
+@Deterministic
 public abstract class HttpFunction<T, R> extends Function<T, R> {
     private static final Logger log = LogManager.getLogger();
 
+    /**
+     * 默认的接口超时时间，毫秒
+     */
+    protected static final int DEFAULT_TIMEOUT = 5000;
+
+    /**
+     * 异步请求线程池中等待的请求数量上限
+     */
+    protected static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * 所有http函数共享的异步请求线程池，线程数即并发请求数的上限，空闲的线程会被回收；
+     * 等待的请求超过{@link #QUEUE_CAPACITY}时拒绝（{@link java.util.concurrent.RejectedExecutionException}），调用方的请求失败而不是无限排队；
+     * 连接由{@link java.net.HttpURLConnection}的keep-alive复用
+     */
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
     @Override
     public R execute(T param) {
         return post(param);
     }
 
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
+    /**
+     * 把请求转交到{@link #getExecutor()}中执行，调用线程不等待；请求本身仍是阻塞的{@link HttpUtil#post}，占用线程池中的一个线程直到返回
+     *
+     * @param param 参数
+     * @return
+     */
+    @Override
+    public CompletableFuture<R> executeAsync(T param) {
+        return CompletableFuture.supplyAsync(() -> execute(param), getExecutor());
+    }
+
     /**
      * 只支持请求参数为json的
      *
@@ -31,7 +71,7 @@ public abstract class HttpFunction<T, R> extends Function<T, R> {
         final String paramStr = getParam(param);
         final String url = getUrl();
         log.debug("接口url {},请求参数 {}", url, paramStr);
-        final String result = HttpUtil.post(url, paramStr);
+        final String result = HttpUtil.post(url, paramStr, getTimeout());
         log.debug("接口url {},请求参数 {}，返回结果 {}", url, paramStr, result);
         return parseObject(result);
 
@@ -58,4 +98,34 @@ public abstract class HttpFunction<T, R> extends Function<T, R> {
 
     protected abstract String getUrl();
 
+    /**
+     * 接口超时时间，毫秒
+     *
+     * @return
+     */
+    protected int getTimeout() {
+        return DEFAULT_TIMEOUT;
+    }
+
+    /**
+     * 异步请求使用的线程池，默认为所有http函数共享的线程池
+     *
+     * @return
+     */
+    protected Executor getExecutor() {
+        return EXECUTOR;
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        final int size = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+        final AtomicInteger index = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            final Thread thread = new Thread(runnable, "rule-engine-http-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
 }
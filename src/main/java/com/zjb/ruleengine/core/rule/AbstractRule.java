@@ -3,14 +3,19 @@ package com.zjb.ruleengine.core.rule;
 import com.google.common.collect.Sets;
 import com.zjb.ruleengine.core.Collectors;
 import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.ElementLayout;
+import com.zjb.ruleengine.core.ExecutionMemo;
+import com.zjb.ruleengine.core.IndexedContext;
 import com.zjb.ruleengine.core.Execute;
 import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.ConditionDag;
 import com.zjb.ruleengine.core.config.PostProcessor;
 import com.zjb.ruleengine.core.config.PreProcessor;
 import com.zjb.ruleengine.core.Weight;
 import com.zjb.ruleengine.core.enums.RuleResultEnum;
 import com.zjb.ruleengine.core.value.Element;
 import com.zjb.ruleengine.core.value.Value;
+import com.zjb.ruleengine.core.value.VariablePrefetcher;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -42,6 +47,32 @@ public abstract class AbstractRule implements Execute, Weight, Collectors, Seria
      */
     private List<PreProcessor> preProcessors;
 
+    /**
+     * 是否在build时把条件编译成闭包树，默认解释执行
+     */
+    private boolean compile = false;
+
+    /**
+     * 是否在build时开启条件组、条件集的自适应执行顺序，默认按权重的固定顺序
+     */
+    private boolean adaptive = false;
+
+    /**
+     * 参数的槽位布局，第一次创建上下文时生成
+     */
+    private transient volatile ElementLayout elementLayout;
+
+    /**
+     * 远程变量的预取计划，注册到规则引擎或第一次预取时生成
+     */
+    private transient volatile VariablePrefetcher prefetcher;
+
+    /**
+     * 规则（包括嵌套的规则）中共享条件的槽位，{@link #share(ConditionDag)}时生成，
+     * 最外层的规则按槽位数量创建本次执行的条件结果
+     */
+    private transient volatile ConditionDag.NodeSlots nodeSlots;
+
 
     public AbstractRule(String id) {
         Validate.notBlank(id, "id不能为空");
@@ -54,6 +85,9 @@ public abstract class AbstractRule implements Execute, Weight, Collectors, Seria
 
     /**
      * 增加后置处理器
+     * <p>
+     * 处理器可以修改上下文，每次调用处理器后清空本次执行中共享条件的结果（见{@link ConditionDag#invalidate(ExecutionMemo)}），
+     * 之后的条件重新执行；确定函数的缓存结果不清空
      *
      * @param postProcessor
      */
@@ -79,23 +113,59 @@ public abstract class AbstractRule implements Execute, Weight, Collectors, Seria
     @Override
     public Object execute(Context context) {
         log.debug("开始执行规则：{}", id);
-        if (Objects.nonNull(postProcessors)) {
-            postProcessors.forEach(postProcessor ->
-                    postProcessor.postProcessorBeforeActionExecute(this, context));
+        //最外层的规则负责创建和移除本次执行的缓存
+        final boolean memoOwner = context.getMemo() == null;
+        if (memoOwner) {
+            context.setMemo(new ExecutionMemo());
         }
+        final ExecutionMemo memo = context.getMemo();
+        final ConditionDag.NodeSlots slots = nodeSlots;
+        if (memo != null && slots != null) {
+            slots.getDag().prepare(memo, slots);
+        }
+        try {
+            if (Objects.nonNull(postProcessors)) {
+                postProcessors.forEach(postProcessor ->
+                        postProcessor.postProcessorBeforeActionExecute(this, context));
+                invalidate(memo, slots);
+            }
 
-        Object result = doExecute(context);
-        if (Objects.nonNull(postProcessors)) {
-            for (PostProcessor postProcessor : postProcessors) {
-                result = postProcessor.afterProcessorBeforeActionExecute(this, context, result);
+            Object result = doExecute(context);
+            if (Objects.nonNull(postProcessors)) {
+                for (PostProcessor postProcessor : postProcessors) {
+                    result = postProcessor.afterProcessorBeforeActionExecute(this, context, result);
+                }
+                invalidate(memo, slots);
+            }
+            log.debug("规则:{} 执行结果：{}", this.getId(), result);
+            return result;
+        } finally {
+            if (memoOwner) {
+                context.setMemo(null);
             }
         }
-        log.debug("规则:{} 执行结果：{}", this.getId(), result);
-        return result;
+    }
+
+    /**
+     * 处理器可能修改了上下文，清空已经执行的共享条件的结果
+     */
+    private static void invalidate(ExecutionMemo memo, ConditionDag.NodeSlots slots) {
+        if (memo != null && slots != null) {
+            slots.getDag().invalidate(memo);
+        }
     }
 
     protected abstract Object doExecute(Context context);
 
+    /**
+     * 是否有后置处理器
+     *
+     * @return
+     */
+    public boolean hasPostProcessor() {
+        return postProcessors != null && !postProcessors.isEmpty();
+    }
+
     @Override
     public abstract int getWeight();
 
@@ -108,6 +178,90 @@ public abstract class AbstractRule implements Execute, Weight, Collectors, Seria
 
     }
 
+    public boolean isCompile() {
+        return compile;
+    }
+
+    /**
+     * 开启后，build时会把条件编译成闭包树，见{@link com.zjb.ruleengine.core.compile.ConditionCompiler}
+     *
+     * @param compile
+     */
+    public void setCompile(boolean compile) {
+        this.compile = compile;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * 开启后，build时条件组、条件集按运行时统计的耗时及短路概率调整子条件的执行顺序，
+     * 见{@link com.zjb.ruleengine.core.condition.AdaptiveOrder}
+     *
+     * @param adaptive
+     */
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+
+    /**
+     * 获取参数的槽位布局
+     *
+     * @return
+     */
+    public ElementLayout getElementLayout() {
+        ElementLayout layout = elementLayout;
+        if (layout == null) {
+            synchronized (this) {
+                layout = elementLayout;
+                if (layout == null) {
+                    layout = ElementLayout.of(collectParameter());
+                    elementLayout = layout;
+                }
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * 获取远程变量的预取计划
+     *
+     * @return
+     */
+    public VariablePrefetcher getPrefetcher() {
+        VariablePrefetcher result = prefetcher;
+        if (result == null) {
+            synchronized (this) {
+                result = prefetcher;
+                if (result == null) {
+                    result = VariablePrefetcher.of(collectVariable());
+                    prefetcher = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 创建当前规则的上下文，元素按槽位存储在数组中，取值不再需要hash查找
+     *
+     * @return
+     */
+    public IndexedContext newContext() {
+        return getElementLayout().newContext();
+    }
+
+    /**
+     * 创建当前规则的上下文并填充参数
+     *
+     * @param parameters 参数
+     * @return
+     */
+    public IndexedContext newContext(Map<String, Object> parameters) {
+        return getElementLayout().newContext(parameters);
+    }
 
     /**
      * 编译规则
@@ -116,4 +270,24 @@ public abstract class AbstractRule implements Execute, Weight, Collectors, Seria
 
     }
 
+    /**
+     * 把规则中的值、条件合并到共享DAG中，被多个规则共享的条件在一次执行中只执行一次
+     *
+     * @param dag 规则引擎持有的共享DAG
+     */
+    public void share(ConditionDag dag) {
+
+    }
+
+    /**
+     * @return 共享条件的槽位，没有注册到规则引擎时为null
+     */
+    public ConditionDag.NodeSlots getNodeSlots() {
+        return nodeSlots;
+    }
+
+    protected void setNodeSlots(ConditionDag.NodeSlots nodeSlots) {
+        this.nodeSlots = nodeSlots;
+    }
+
 }
@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import com.zjb.ruleengine.core.Context;
 import com.zjb.ruleengine.core.value.Element;
 import com.zjb.ruleengine.core.value.Value;
+import com.zjb.ruleengine.core.value.Variable;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -21,6 +22,19 @@ public class ActionRule extends Rule {
     }
 
 
+    @Override
+    protected Object doExecute(Context context) {
+        return getAction().getValue(context);
+    }
+
+    /**
+     * 没有条件，不需要编译
+     */
+    @Override
+    public void build() {
+
+    }
+
     @Override
     public int getWeight() {
         return Integer.MAX_VALUE;
@@ -31,4 +45,9 @@ public class ActionRule extends Rule {
 
         return Collections.EMPTY_LIST;
     }
+
+    @Override
+    public Collection<Variable> collectVariable() {
+        return getAction().collectVariable();
+    }
 }
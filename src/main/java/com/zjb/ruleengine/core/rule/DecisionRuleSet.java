@@ -1,20 +1,27 @@
 package com.zjb.ruleengine.core.rule;
 
-import cn.hutool.core.collection.CollUtil;
 import com.alibaba.fastjson.annotation.JSONField;
 import com.google.common.collect.Lists;
 import com.zjb.ruleengine.core.Context;
 import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.ConditionDag;
 import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.ConditionSet;
 import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.condition.StringPatternIndex;
+import com.zjb.ruleengine.core.decistion.ConditionOrder;
+import com.zjb.ruleengine.core.decistion.ConditionOrderReport;
+import com.zjb.ruleengine.core.decistion.DecisionDiagram;
+import com.zjb.ruleengine.core.decistion.DecisionTree;
 import com.zjb.ruleengine.core.decistion.TreeNodeCondition;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.enums.DecisionBackendEnum;
 import com.zjb.ruleengine.core.enums.RuleResultEnum;
 import com.zjb.ruleengine.core.enums.RuleSetExecutePolicyEnum;
 import com.zjb.ruleengine.core.enums.Symbol;
-import com.zjb.ruleengine.core.exception.RuleExecuteException;
 import com.zjb.ruleengine.core.value.Constant;
 import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Variable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -33,13 +40,34 @@ public class DecisionRuleSet extends AbstractRule {
     public static final DefaultCondition ANY_MATCH = new DefaultCondition("root", new Constant(DataTypeEnum.BOOLEAN, true),
             Symbol.boolean_eq, new Constant(DataTypeEnum.BOOLEAN, true));
 
+    /**
+     * 一条规则的条件展开后最多的合取项（路径）数量
+     */
+    public static final int MAX_DNF_TERMS = 32;
+
     @JSONField(serialize = false)
-    private TreeNodeCondition rootCondition;
+    private DecisionTree decisionTree;
 
     private List<Rule> rules;
 
     private RuleSetExecutePolicyEnum policy = RuleSetExecutePolicyEnum.ONE;
 
+    /**
+     * 构建时是否调整每条路径上条件的顺序（见{@link ConditionOrder}），只在ALL时生效
+     */
+    private boolean reorderConditions = false;
+
+    @JSONField(serialize = false)
+    private ConditionOrderReport conditionOrderReport;
+
+    private DecisionBackendEnum backend = DecisionBackendEnum.TREE;
+
+    /**
+     * backend为DIAGRAM并且编译成功时不为null
+     */
+    @JSONField(serialize = false)
+    private DecisionDiagram decisionDiagram;
+
 
     public DecisionRuleSet(String id, List<Rule> rules) {
         super(id);
@@ -48,14 +76,15 @@ public class DecisionRuleSet extends AbstractRule {
 
     @Override
     public Object doExecute(Context context) {
-        //备忘录
-        Map<TreeNodeCondition, Boolean> memo = new HashMap<>();
+        if (decisionDiagram != null) {
+            return decisionDiagram.execute(context);
+        }
         if (policy == RuleSetExecutePolicyEnum.ONE) {
-            return recursiveExecute(rootCondition, context, memo);
+            return decisionTree.executeOne(context);
         }
         if (policy == RuleSetExecutePolicyEnum.ALL) {
             final ArrayList<Object> result = Lists.newArrayList();
-            backtrackingExecute(rootCondition, context, result, memo);
+            decisionTree.executeAll(context, result);
             if (result.size() > 0) {
                 return result;
             }
@@ -63,59 +92,6 @@ public class DecisionRuleSet extends AbstractRule {
         return RuleResultEnum.NULL;
     }
 
-    private void backtrackingExecute(TreeNodeCondition treeNodeCondition, Context context, List<Object> result, Map<TreeNodeCondition, Boolean> memo) {
-        if (treeNodeCondition == null) {
-            throw new RuleExecuteException("TreeNodeCondition不能为null");
-        }
-        if (treeNodeCondition.isLeaf()) {
-            final List<Object> collect = treeNodeCondition.getResults().stream().map(condition -> condition.getValue(context)).collect(Collectors.toList());
-            result.addAll(collect);
-            return;
-        }
-        final LinkedHashMap<TreeNodeCondition, Object> nodeConditions = treeNodeCondition.getChildrenNodeConditions();
-        if (CollUtil.isEmpty(nodeConditions)) {
-            throw new RuleExecuteException(String.format("{}不能叶子节点，也没有子节点", treeNodeCondition.getNodeCondition().getId()));
-        }
-        for (TreeNodeCondition condition : nodeConditions.keySet()) {
-            if (memo.containsKey(condition) && memo.get(condition)) {
-                backtrackingExecute(condition, context, result, memo);
-            } else {
-                final boolean evaluate = condition.getNodeCondition().evaluate(context);
-                memo.put(condition, evaluate);
-                if (evaluate) {
-                    backtrackingExecute(condition, context, result, memo);
-                }
-            }
-
-        }
-
-    }
-
-    private Object recursiveExecute(TreeNodeCondition treeNodeCondition, Context context, Map<TreeNodeCondition, Boolean> memo) {
-        if (treeNodeCondition == null) {
-            throw new RuleExecuteException("TreeNodeCondition不能为");
-        }
-        if (treeNodeCondition.isLeaf()) {
-            return Lists.newArrayList(treeNodeCondition.getResults()).get(0).getValue(context);
-        }
-        final LinkedHashMap<TreeNodeCondition, Object> nodeConditions = treeNodeCondition.getChildrenNodeConditions();
-        if (CollUtil.isEmpty(nodeConditions)) {
-            throw new RuleExecuteException(String.format("{}不能叶子节点，也没有子节点", treeNodeCondition.getNodeCondition().getId()));
-        }
-        for (TreeNodeCondition condition : nodeConditions.keySet()) {
-            if (memo.containsKey(condition) && memo.get(condition)) {
-                return recursiveExecute(condition, context, memo);
-            }
-            final boolean evaluate = condition.getNodeCondition().evaluate(context);
-            memo.put(condition, evaluate);
-            if (evaluate) {
-                return recursiveExecute(condition, context, memo);
-            }
-        }
-        return RuleResultEnum.NULL;
-    }
-
-
     @Override
     public int getWeight() {
         return rules.stream().mapToInt(AbstractRule::getWeight).sum();
@@ -127,54 +103,233 @@ public class DecisionRuleSet extends AbstractRule {
         return Collections.unmodifiableSet(collect);
     }
 
+    @Override
+    public Collection<Variable> collectVariable() {
+        final Set<Variable> collect = rules.stream().flatMap(rule -> rule.collectVariable().stream()).collect(Collectors.toCollection(LinkedHashSet::new));
+        return Collections.unmodifiableSet(collect);
+    }
+
+    @Override
+    public Collection<DefaultCondition> collectCondition() {
+        return rules.stream().flatMap(rule -> rule.collectCondition().stream()).collect(Collectors.toList());
+    }
+
     /**
-     * 构建 决策表执行树
+     * 构建 决策表执行树，构建后转换为数组编码（见{@link DecisionTree}）
      */
     @Override
     public void build() {
+        StringPatternIndex.bind(collectCondition());
 
+        //ALL时一条rule的条件展开为析取范式，每个合取项转换成一条路径；
+        //ONE时返回第一个到达的叶子节点，展开后其它规则可能共享前缀而先到达，只展开最外层的ConditionGroup
+        final List<List<List<AbstractCondition>>> ruleTerms = new ArrayList<>(rules.size());
+        for (Rule rule : this.rules) {
+            ruleTerms.add(policy == RuleSetExecutePolicyEnum.ALL ? toDnf(rule.getCondition()) : toPath(rule.getCondition()));
+        }
+        //只有一条路径的规则，路径和结果都与前面的规则相等时不加入
+        final boolean[] duplicates = new boolean[rules.size()];
+        final Set<List<Object>> singlePaths = new HashSet<>();
+        for (int i = 0; i < rules.size(); i++) {
+            duplicates[i] = ruleTerms.get(i).size() == 1 && !singlePaths.add(Arrays.asList(ruleTerms.get(i).get(0), rules.get(i).getAction()));
+        }
+        //调整条件顺序会改变树的形状，ALL的结果改为按规则的顺序返回，调整前后结果及顺序不变；不调整时按深度优先经过叶子节点的顺序返回
+        final boolean ruleOrder = reorderConditions && policy == RuleSetExecutePolicyEnum.ALL;
+        DecisionTree tree = buildTree(ruleTerms, duplicates, ruleOrder);
+        this.conditionOrderReport = null;
+        if (reorderConditions) {
+            if (policy == RuleSetExecutePolicyEnum.ALL) {
+                final ConditionOrder order = new ConditionOrder(ruleTerms.stream().flatMap(List::stream).collect(Collectors.toList()));
+                final List<List<List<AbstractCondition>>> sortedTerms = ruleTerms.stream()
+                        .map(terms -> terms.stream().map(order::sort).collect(Collectors.toList()))
+                        .collect(Collectors.toList());
+                final DecisionTree reordered = buildTree(sortedTerms, duplicates, true);
+                final boolean applied = reordered.getEstimatedCost() < tree.getEstimatedCost()
+                        || reordered.getEstimatedCost() == tree.getEstimatedCost() && reordered.getNodeCount() < tree.getNodeCount();
+                this.conditionOrderReport = new ConditionOrderReport(tree, reordered, applied);
+                log.info("决策表：{}调整条件顺序，{}", getId(), conditionOrderReport);
+                if (applied) {
+                    tree = reordered;
+                }
+            } else {
+                log.warn("决策表：{}的执行策略为{}，调整条件顺序会改变执行结果，不调整", getId(), policy);
+            }
+        }
+        this.decisionTree = tree;
+        this.decisionDiagram = null;
+        if (backend == DecisionBackendEnum.DIAGRAM) {
+            this.decisionDiagram = DecisionDiagram.compile(tree, policy, DecisionDiagram.MAX_NODES);
+            if (decisionDiagram == null) {
+                log.warn("决策表：{}不能编译为决策图（执行策略{}，条件数量{}），使用决策树执行", getId(), policy, tree.getConditionCount());
+            } else {
+                log.info("决策表：{}编译为决策图，节点数量：{}，决策树节点数量：{}", getId(), decisionDiagram.getNodeCount(), tree.getNodeCount());
+            }
+        }
+    }
+
+    private DecisionTree buildTree(List<List<List<AbstractCondition>>> ruleTerms, boolean[] duplicates, boolean ruleOrder) {
         //初始化决策森林,
-        this.rootCondition = new TreeNodeCondition();
+        final TreeNodeCondition rootCondition = new TreeNodeCondition();
         rootCondition.setNodeCondition(ANY_MATCH);
+        for (int i = 0; i < rules.size(); i++) {
+            if (duplicates[i]) {
+                continue;
+            }
+            for (List<AbstractCondition> term : ruleTerms.get(i)) {
+                TreeNodeCondition childCondition = rootCondition;
+                for (AbstractCondition abstractCondition : term) {
+                    final TreeNodeCondition treeNodeCondition = new TreeNodeCondition();
+                    treeNodeCondition.setNodeCondition(abstractCondition);
+                    if (childCondition.containChildNodeCondition(treeNodeCondition)) {
+                        childCondition = childCondition.getChildNodeCondition(treeNodeCondition);
+                    } else {
+                        childCondition.addChildNodeCondition(treeNodeCondition);
+                        childCondition = treeNodeCondition;
+                    }
+                }
+                childCondition.setLeaf(true);
+                //展开为多条路径的规则，执行ALL时结果只收集一次
+                childCondition.addResult(rules.get(i).getAction(), i);
+            }
+        }
+        rootCondition.buildIndex();
+        return DecisionTree.of(rootCondition, ruleOrder);
+    }
 
-        //一条rule转换成一个decisionRule
-        List<Rule> rules = this.rules;
-        for (Rule rule : rules) {
-            TreeNodeCondition childCondition = rootCondition;
-            final AbstractCondition condition = rule.getCondition();
-            if (condition instanceof ConditionGroup) {
-                final ConditionGroup conditionGroup = (ConditionGroup) condition;
-                final List<AbstractCondition> conditions = conditionGroup.getConditions();
-                if (CollUtil.isNotEmpty(conditions)) {
-                    for (AbstractCondition abstractCondition : conditions) {
-                        final TreeNodeCondition treeNodeCondition = new TreeNodeCondition();
-                        treeNodeCondition.setNodeCondition(abstractCondition);
-                        if (childCondition.containChildNodeCondition(treeNodeCondition)) {
-                            childCondition = childCondition.getChildNodeCondition(treeNodeCondition);
-                        } else {
-                            childCondition.addChildNodeCondition(treeNodeCondition);
-                            childCondition = treeNodeCondition;
-                        }
-
+    /**
+     * 条件展开为析取范式：{@link ConditionGroup}为合取，{@link ConditionSet}为析取，嵌套的条件逐层展开；
+     * 展开后的合取项超过{@link #MAX_DNF_TERMS}时，该条件不展开，作为一个节点
+     *
+     * @return 合取项，每个合取项是路径上按顺序排列的条件；空的合取项永远为true，没有合取项时永远为false
+     */
+    static List<List<AbstractCondition>> toDnf(AbstractCondition condition) {
+        if (condition instanceof ConditionGroup) {
+            List<List<AbstractCondition>> terms = Collections.singletonList(Collections.emptyList());
+            for (AbstractCondition child : ((ConditionGroup) condition).getConditions()) {
+                final List<List<AbstractCondition>> childTerms = toDnf(child);
+                if ((long) terms.size() * childTerms.size() > MAX_DNF_TERMS) {
+                    return Collections.singletonList(Collections.singletonList(condition));
+                }
+                final List<List<AbstractCondition>> product = new ArrayList<>(terms.size() * childTerms.size());
+                for (List<AbstractCondition> term : terms) {
+                    for (List<AbstractCondition> childTerm : childTerms) {
+                        final List<AbstractCondition> merged = new ArrayList<>(term.size() + childTerm.size());
+                        merged.addAll(term);
+                        merged.addAll(childTerm);
+                        product.add(merged);
                     }
                 }
-            } else {
-                final TreeNodeCondition treeNodeCondition = new TreeNodeCondition();
-                treeNodeCondition.setNodeCondition(condition);
-                childCondition.addChildNodeCondition(treeNodeCondition);
-                childCondition = treeNodeCondition;
+                terms = product;
             }
-            childCondition.setLeaf(true);
-            childCondition.addResult(rule.getAction());
+            return terms;
+        }
+        if (condition instanceof ConditionSet) {
+            final List<List<AbstractCondition>> terms = new ArrayList<>();
+            for (AbstractCondition child : ((ConditionSet) condition).getConditionGroups()) {
+                terms.addAll(toDnf(child));
+                if (terms.size() > MAX_DNF_TERMS) {
+                    return Collections.singletonList(Collections.singletonList(condition));
+                }
+            }
+            return terms;
+        }
+        return Collections.singletonList(Collections.singletonList(condition));
+    }
+
+    /**
+     * 不展开的路径：{@link ConditionGroup}的每个条件为一个节点，其它条件为一个节点
+     */
+    static List<List<AbstractCondition>> toPath(AbstractCondition condition) {
+        if (condition instanceof ConditionGroup) {
+            return Collections.singletonList(((ConditionGroup) condition).getConditions());
+        }
+        return Collections.singletonList(Collections.singletonList(condition));
+    }
+
+    /**
+     * 合并规则的条件，已经构建的执行树使用合并后的条件重新构建
+     *
+     * @param dag 规则引擎持有的共享DAG
+     */
+    @Override
+    public void share(ConditionDag dag) {
+        for (Rule rule : rules) {
+            rule.share(dag);
+        }
+        setNodeSlots(dag.slots(Collections.emptyList(), rules.stream().map(AbstractRule::getNodeSlots).collect(Collectors.toList())));
+        if (decisionTree != null) {
+            build();
         }
     }
 
+    @JSONField(serialize = false)
+    public DecisionTree getDecisionTree() {
+        return decisionTree;
+    }
+
     public RuleSetExecutePolicyEnum getPolicy() {
         return policy;
     }
 
+    /**
+     * 执行策略，决策表不并行执行，PARALLEL_ALL按ALL执行
+     *
+     * @param policy
+     */
     public void setPolicy(RuleSetExecutePolicyEnum policy) {
+        if (policy == RuleSetExecutePolicyEnum.PARALLEL_ALL) {
+            policy = RuleSetExecutePolicyEnum.ALL;
+        }
+        final boolean rebuild = decisionTree != null && this.policy != policy;
         this.policy = policy;
+        //条件只在ALL时展开、调整顺序，决策图按执行策略编译，策略改变后重新构建
+        if (rebuild) {
+            build();
+        }
+    }
+
+    public DecisionBackendEnum getBackend() {
+        return backend;
+    }
+
+    /**
+     * 执行方式，修改后需要重新build
+     *
+     * @param backend
+     */
+    public void setBackend(DecisionBackendEnum backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * @return 编译后的决策图，backend不是DIAGRAM或不能编译时为null
+     */
+    @JSONField(serialize = false)
+    public DecisionDiagram getDecisionDiagram() {
+        return decisionDiagram;
+    }
+
+    public boolean isReorderConditions() {
+        return reorderConditions;
+    }
+
+    /**
+     * 开启后，执行策略为ALL时，build时按{@link ConditionOrder}调整每条路径上条件的顺序，
+     * 调整后估算成本更低时使用调整后的树，前后的节点数量和估算成本见{@link #getConditionOrderReport()}；
+     * 开启后ALL的结果按规则的顺序返回（不开启时按决策树深度优先经过叶子节点的顺序），调整后结果及顺序不变
+     *
+     * @param reorderConditions
+     */
+    public void setReorderConditions(boolean reorderConditions) {
+        this.reorderConditions = reorderConditions;
+    }
+
+    /**
+     * @return 最近一次build调整条件顺序的结果，没有调整时为null
+     */
+    @JSONField(serialize = false)
+    public ConditionOrderReport getConditionOrderReport() {
+        return conditionOrderReport;
     }
 
 
@@ -2,10 +2,16 @@ package com.zjb.ruleengine.core.rule;
 
 import com.google.common.collect.Sets;
 import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.compile.CompiledCondition;
+import com.zjb.ruleengine.core.compile.ConditionCompiler;
 import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.AdaptiveOrder;
+import com.zjb.ruleengine.core.condition.ConditionDag;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
 import com.zjb.ruleengine.core.enums.RuleResultEnum;
 import com.zjb.ruleengine.core.value.Element;
 import com.zjb.ruleengine.core.value.Value;
+import com.zjb.ruleengine.core.value.Variable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -13,7 +19,9 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * @author 赵静波
@@ -26,6 +34,10 @@ public class Rule extends AbstractRule implements Serializable {
 
     private AbstractCondition condition;
 
+    /**
+     * 编译后的condition，为null时解释执行condition
+     */
+    private transient CompiledCondition compiledCondition;
 
     /**
      * 动作，如果condition==true,则执行actionValue并返回
@@ -46,9 +58,25 @@ public class Rule extends AbstractRule implements Serializable {
         return Collections.unmodifiableCollection(parameterNames);
     }
 
+    @Override
+    public Collection<Variable> collectVariable() {
+        final Set<Variable> variables = new LinkedHashSet<>();
+        if (condition != null) {
+            variables.addAll(condition.collectVariable());
+        }
+        variables.addAll(action.collectVariable());
+        return Collections.unmodifiableSet(variables);
+    }
+
+    @Override
+    public Collection<DefaultCondition> collectCondition() {
+        return condition == null ? Collections.emptyList() : condition.collectCondition();
+    }
+
     @Override
     protected Object doExecute(Context context) {
-        if (condition.evaluate(context)) {
+        final boolean hit = compiledCondition != null ? compiledCondition.evaluate(context) : condition.evaluateShared(context);
+        if (hit) {
             return action.getValue(context);
         }
         return RuleResultEnum.NULL;
@@ -62,6 +90,19 @@ public class Rule extends AbstractRule implements Serializable {
     @Override
     public void build() {
         this.condition = this.condition.build();
+        if (isAdaptive()) {
+            AdaptiveOrder.enable(this.condition);
+        }
+        this.compiledCondition = isCompile() ? ConditionCompiler.compile(this.condition) : null;
+    }
+
+    @Override
+    public void share(ConditionDag dag) {
+        this.condition = dag.share(this.condition);
+        if (this.compiledCondition != null) {
+            this.compiledCondition = ConditionCompiler.compile(this.condition);
+        }
+        setNodeSlots(dag.slots(Collections.singletonList(this.condition), Collections.emptyList()));
     }
 
     public AbstractCondition getCondition() {
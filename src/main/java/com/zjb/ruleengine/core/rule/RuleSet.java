@@ -3,14 +3,24 @@ package com.zjb.ruleengine.core.rule;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.TaskContext;
+import com.zjb.ruleengine.core.condition.ConditionDag;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.condition.StringPatternIndex;
 import com.zjb.ruleengine.core.enums.RuleResultEnum;
 import com.zjb.ruleengine.core.enums.RuleSetExecutePolicyEnum;
 import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Variable;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 
@@ -27,8 +37,29 @@ public class RuleSet extends AbstractRule {
      **/
     private List<AbstractRule> rules;
 
+    /**
+     * PARALLEL_ALL时，规则的估算成本（weight+1之和）小于该值则按顺序执行
+     */
+    public static final int PARALLEL_MIN_COST = 128;
+
+    /**
+     * 估算成本时单个规则的成本上限，weight只用于排序的规则（如{@link ActionRule}为Integer.MAX_VALUE）不会使规则集总是并行执行
+     */
+    public static final int MAX_RULE_COST = PARALLEL_MIN_COST / 4;
+
     private RuleSetExecutePolicyEnum policy = RuleSetExecutePolicyEnum.ONE;
 
+    /**
+     * ONE时同时执行的规则数量，小于等于1时按顺序执行
+     */
+    private int speculativeWindow = 0;
+
+    /**
+     * PARALLEL_ALL执行规则的线程池，默认为{@link ForkJoinPool#commonPool()}；
+     * 规则中有远程调用等阻塞操作时，可以设置为独立的线程池或虚拟线程的Executor
+     */
+    private transient Executor parallelExecutor;
+
     public RuleSet(String id, List<? extends AbstractRule> rules) {
         super(id);
         Validate.notEmpty(rules);
@@ -47,6 +78,17 @@ public class RuleSet extends AbstractRule {
         return Collections.unmodifiableSet(collect);
     }
 
+    @Override
+    public Collection<Variable> collectVariable() {
+        final Set<Variable> collect = rules.stream().flatMap(rule -> rule.collectVariable().stream()).collect(Collectors.toCollection(LinkedHashSet::new));
+        return Collections.unmodifiableSet(collect);
+    }
+
+    @Override
+    public Collection<DefaultCondition> collectCondition() {
+        return rules.stream().flatMap(rule -> rule.collectCondition().stream()).collect(Collectors.toList());
+    }
+
     @Override
     public Object doExecute(Context context) {
         log.debug("规则集：{}开始执行", this.getId());
@@ -62,6 +104,9 @@ public class RuleSet extends AbstractRule {
             //    }
             //    break;
             case ONE:
+                if (speculativeWindow > 1 && rules.size() > 1) {
+                    return executeSpeculative(context);
+                }
                 for (AbstractRule rule : rules) {
                     Object execute = rule.execute(context);
                     if (execute != RuleResultEnum.NULL) {
@@ -69,6 +114,12 @@ public class RuleSet extends AbstractRule {
                     }
                 }
                 break;
+            case PARALLEL_ALL:
+                final int parallelism = parallelism();
+                if (parallelism > 1) {
+                    return executeParallel(context, parallelism);
+                }
+                //规则较少时按顺序执行
             case ALL:
                 List<Object> result = new ArrayList<>();
                 for (AbstractRule rule : rules) {
@@ -88,6 +139,198 @@ public class RuleSet extends AbstractRule {
         return RuleResultEnum.NULL;
     }
 
+    /**
+     * 按估算成本计算的分片数量，小于等于1时按顺序执行
+     */
+    private int parallelism() {
+        long cost = 0;
+        for (AbstractRule rule : rules) {
+            cost += cost(rule);
+        }
+        if (cost < PARALLEL_MIN_COST) {
+            return 1;
+        }
+        int chunks = (int) Math.min(rules.size(), cost / (PARALLEL_MIN_COST / 2));
+        //ForkJoinPool按cpu并行，其它线程池（如阻塞调用的线程池、虚拟线程）只按成本分片
+        if (getParallelExecutor() instanceof ForkJoinPool) {
+            chunks = Math.min(chunks, ((ForkJoinPool) getParallelExecutor()).getParallelism() + 1);
+        }
+        return chunks;
+    }
+
+    /**
+     * 规则按成本分成连续的片段，当前线程执行第一个片段，其余提交到线程池；
+     * 每个片段使用自己的{@link TaskContext}，结果按规则顺序合并。
+     * <p>
+     * 与推测执行相同，上下文的修改按任务缓存，所有片段结束后按规则顺序写回结果确定的片段
+     * （到第一个抛出异常的片段为止）的修改
+     */
+    private Object executeParallel(Context context, int parallelism) {
+        final List<List<AbstractRule>> chunks = partition(parallelism);
+        final List<TaskContext> taskContexts = new ArrayList<>(chunks.size());
+        final List<CompletableFuture<List<Object>>> futures = new ArrayList<>(chunks.size() - 1);
+        taskContexts.add(new TaskContext(context));
+        for (int i = 1; i < chunks.size(); i++) {
+            final List<AbstractRule> chunk = chunks.get(i);
+            final TaskContext taskContext = new TaskContext(context);
+            taskContexts.add(taskContext);
+            futures.add(CompletableFuture.supplyAsync(() -> executeChunk(chunk, taskContext), getParallelExecutor()));
+        }
+        final List<Object> result = new ArrayList<>();
+        RuntimeException error = null;
+        int decided = chunks.size();
+        try {
+            result.addAll(executeChunk(chunks.get(0), taskContexts.get(0)));
+        } catch (RuntimeException e) {
+            error = e;
+            decided = 1;
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                final List<Object> chunkResult = futures.get(i).join();
+                if (error == null) {
+                    result.addAll(chunkResult);
+                }
+            } catch (CompletionException e) {
+                if (error == null) {
+                    error = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                    decided = i + 2;
+                }
+            }
+        }
+        //所有片段都已结束，原来的上下文不再被读取
+        for (int i = 0; i < decided; i++) {
+            taskContexts.get(i).commit();
+        }
+        if (error != null) {
+            throw error;
+        }
+        return result.isEmpty() ? RuleResultEnum.NULL : result;
+    }
+
+    /**
+     * 推测执行：前speculativeWindow个规则同时执行，按规则顺序等待结果，
+     * 一个规则失败后再提交窗口后的下一个规则；排在前面的规则都失败后返回第一个成功的结果，并取消其余规则。
+     * <p>
+     * 与PARALLEL_ALL相同，每个规则使用自己的{@link TaskContext}缓存对上下文的修改，
+     * 返回前按规则顺序写回结果确定的规则（失败的规则和返回结果的规则，或到第一个抛出异常的规则为止）的修改，
+     * 其余规则的修改丢弃。还没开始执行的规则不再执行，已开始执行的规则还在读原来的上下文及本次执行的缓存，
+     * 返回前等待它们结束后再写回，返回后不会再有任务读取上下文、发起远程调用。
+     * 规则执行时读不到排在前面的规则对上下文的修改，规则之间有依赖时不能开启
+     */
+    private Object executeSpeculative(Context context) {
+        final int size = rules.size();
+        final int window = Math.min(speculativeWindow, size);
+        final List<CompletableFuture<Object>> futures = new ArrayList<>(size);
+        final List<TaskContext> taskContexts = new ArrayList<>(size);
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        for (int i = 0; i < window; i++) {
+            submitSpeculative(context, futures, taskContexts, cancelled);
+        }
+        int index = 0;
+        try {
+            for (; index < size; index++) {
+                final Object result = joinUnwrapped(futures.get(index));
+                if (result != RuleResultEnum.NULL) {
+                    return result;
+                }
+                if (futures.size() < size) {
+                    submitSpeculative(context, futures, taskContexts, cancelled);
+                }
+            }
+            return RuleResultEnum.NULL;
+        } finally {
+            //还没开始执行的规则不再执行
+            cancelled.set(true);
+            final int last = Math.min(index, size - 1);
+            //已开始执行的规则还在读原来的上下文及缓存，等它们结束后再写回、释放缓存
+            for (int i = last + 1; i < futures.size(); i++) {
+                try {
+                    futures.get(i).join();
+                } catch (RuntimeException ignore) {
+                }
+            }
+            for (int i = 0; i <= last; i++) {
+                taskContexts.get(i).commit();
+            }
+        }
+    }
+
+    private void submitSpeculative(Context context, List<CompletableFuture<Object>> futures, List<TaskContext> taskContexts, AtomicBoolean cancelled) {
+        final AbstractRule rule = rules.get(futures.size());
+        final TaskContext taskContext = new TaskContext(context);
+        taskContexts.add(taskContext);
+        futures.add(CompletableFuture.supplyAsync(() -> cancelled.get() ? RuleResultEnum.NULL : rule.execute(taskContext), getParallelExecutor()));
+    }
+
+    private static Object joinUnwrapped(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static List<Object> executeChunk(List<AbstractRule> chunk, Context context) {
+        final List<Object> result = new ArrayList<>();
+        for (AbstractRule rule : chunk) {
+            Object execute = rule.execute(context);
+            if (execute != RuleResultEnum.NULL) {
+                result.add(execute);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按成本把规则分成parallelism个连续的片段
+     */
+    private List<List<AbstractRule>> partition(int parallelism) {
+        long total = 0;
+        for (AbstractRule rule : rules) {
+            total += cost(rule);
+        }
+        final List<List<AbstractRule>> chunks = new ArrayList<>(parallelism);
+        int from = 0;
+        long cost = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            cost += cost(rules.get(i));
+            if (cost * parallelism >= total * (chunks.size() + 1) || i == rules.size() - 1) {
+                chunks.add(rules.subList(from, i + 1));
+                from = i + 1;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * 规则的估算成本，weight+1，不超过{@link #MAX_RULE_COST}
+     */
+    private static long cost(AbstractRule rule) {
+        return Math.min(rule.getWeight() + 1L, MAX_RULE_COST);
+    }
+
+    public int getSpeculativeWindow() {
+        return speculativeWindow;
+    }
+
+    /**
+     * ONE时推测执行的窗口大小，见{@link #executeSpeculative(Context)}
+     *
+     * @param speculativeWindow 同时执行的规则数量，小于等于1时按顺序执行
+     */
+    public void setSpeculativeWindow(int speculativeWindow) {
+        this.speculativeWindow = speculativeWindow;
+    }
+
+    public Executor getParallelExecutor() {
+        return parallelExecutor == null ? ForkJoinPool.commonPool() : parallelExecutor;
+    }
+
+    public void setParallelExecutor(Executor parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
+    }
+
     public RuleSetExecutePolicyEnum getPolicy() {
         return policy;
     }
@@ -100,8 +343,28 @@ public class RuleSet extends AbstractRule {
         return ImmutableList.copyOf(this.rules);
     }
 
+    @Override
+    public void share(ConditionDag dag) {
+        for (AbstractRule rule : rules) {
+            rule.share(dag);
+        }
+        //合并后的条件可能是其它规则中的实例，重新建立前后缀索引
+        StringPatternIndex.bind(collectCondition());
+        setNodeSlots(dag.slots(Collections.emptyList(), rules.stream().map(AbstractRule::getNodeSlots).collect(Collectors.toList())));
+    }
+
     @Override
     public void build() {
-       rules.sort(Comparator.comparing(AbstractRule::getWeight));
+        StringPatternIndex.bind(collectCondition());
+        for (AbstractRule rule : rules) {
+            if (isCompile()) {
+                rule.setCompile(true);
+            }
+            if (isAdaptive()) {
+                rule.setAdaptive(true);
+            }
+            rule.build();
+        }
+        rules.sort(Comparator.comparing(AbstractRule::getWeight));
     }
 }
@@ -2,7 +2,6 @@ package com.zjb.ruleengine.core.value;
 
 import cn.hutool.core.text.StrFormatter;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.sun.javafx.binding.StringConstant;
 import com.zjb.ruleengine.core.Context;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
 import org.apache.commons.lang3.Validate;
@@ -41,6 +40,11 @@ public class Constant extends Value {
         this.dataType = dataType;
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
     @Override
     public int getWeight() {
         return HIGH;
@@ -3,6 +3,8 @@ package com.zjb.ruleengine.core.value;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.Sets;
 import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.ElementLayout;
+import com.zjb.ruleengine.core.IndexedContext;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
@@ -30,6 +32,11 @@ public class Element extends Value {
      */
     private DataTypeEnum dataType;
 
+    /**
+     * code的全局编号+1，0为还没有获取，见{@link ElementLayout#codeId(String)}
+     */
+    private transient volatile int codeId;
+
     public Element(DataTypeEnum dataType, String code) {
         super(dataType);
         Validate.notBlank(code);
@@ -44,6 +51,11 @@ public class Element extends Value {
         return Collections.unmodifiableSet(Sets.newHashSet(this));
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
     @Override
     public int getWeight() {
         return MID;
@@ -58,7 +70,13 @@ public class Element extends Value {
     @Override
     @SuppressWarnings("unchecked")
     public Object getValue(Context context) {
-        Object value = context.get(code);
+        final Object value;
+        final int slot = context instanceof IndexedContext ? ((IndexedContext) context).getLayout().slotOf(getCodeId()) : -1;
+        if (slot >= 0) {
+            value = ((IndexedContext) context).get(slot);
+        } else {
+            value = context.get(code);
+        }
         Validate.isAssignableFrom(dataType.getClazz(), value.getClass(), value.getClass() + " not cast to " + dataType.getClazz());
         return value;
     }
@@ -93,12 +111,27 @@ public class Element extends Value {
     }
 
 
+    /**
+     * code的全局编号，{@link IndexedContext}按编号在布局中查找槽位
+     *
+     * @return
+     */
+    public int getCodeId() {
+        int id = codeId;
+        if (id == 0) {
+            id = ElementLayout.codeId(code) + 1;
+            codeId = id;
+        }
+        return id - 1;
+    }
+
     public void setDataType(DataTypeEnum dataType) {
         this.dataType = dataType;
     }
 
     public void setCode(String code) {
         this.code = code;
+        this.codeId = 0;
     }
 
     public static Element stringValue(String code) {
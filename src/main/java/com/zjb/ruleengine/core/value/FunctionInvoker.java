@@ -0,0 +1,261 @@
+package com.zjb.ruleengine.core.value;
+
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.exception.RuleExecuteException;
+import com.zjb.ruleengine.core.exception.RuleValidationException;
+import com.zjb.ruleengine.core.function.Function;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * 函数调用器，在创建时完成所有反射：
+ * 1. 计算函数需要的参数，运行时不再调用{@link Function#getParamters()}
+ * 2. POJO参数的构造器、字段setter转换为{@link MethodHandle}
+ * 3. 执行方法为{@link Function#execute(Object)}时直接虚调用，否则使用{@link MethodHandle}
+ * 4. 参数的类型转换，已经是目标类型的参数（元素取值时校验过类型、变量的结果已转换）不再转换
+ *
+ * @author 赵静波
+ * @date 2026-10-18 13:20:05
+ */
+class FunctionInvoker {
+
+    private static final String EXECUTE_METHOD_NAME = "execute";
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType EXECUTE_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+
+    private final Function function;
+
+    /**
+     * 函数需要的参数，按顺序一一对应
+     */
+    private final String[] names;
+    private final Value[] values;
+
+    /**
+     * 参数的类型转换，与values一一对应
+     */
+    private final UnaryOperator<Object>[] converters;
+
+    /**
+     * 函数入参的类型
+     */
+    private final DataTypeEnum parameterType;
+
+    /**
+     * POJO入参的构造器及字段setter，setterArgIndex[i]为第i个字段对应的参数下标，-1表示没有该参数
+     */
+    private final MethodHandle constructor;
+    private final MethodHandle[] setters;
+    private final int[] setterArgIndex;
+
+    /**
+     * 非POJO、MAP入参时，方法参数对应的参数下标
+     */
+    private final int singleArgIndex;
+
+    /**
+     * 非POJO、MAP入参时，参数转换为入参类型
+     */
+    private final UnaryOperator<Object> singleArgConverter;
+
+    /**
+     * 执行方法不是execute时使用
+     */
+    private final MethodHandle executeHandle;
+
+    /**
+     * 函数是否确定，确定的函数结果在一次执行中缓存
+     */
+    private final boolean deterministic;
+
+    /**
+     * 生成时{@link com.zjb.ruleengine.core.config.FunctionHolder}的版本
+     */
+    private final int version;
+
+    FunctionInvoker(Function function, Map<String, ? extends Value> parameter, Method method, int version) {
+        this.function = function;
+        this.version = version;
+        this.deterministic = function.isDeterministic();
+        final Set<String> funParamNames = ((List<Function.Parameter>) function.getParamters()).stream().map(Function.Parameter::getName).collect(Collectors.toSet());
+        final List<String> names = new ArrayList<>(parameter.size());
+        final List<Value> values = new ArrayList<>(parameter.size());
+        for (Map.Entry<String, ? extends Value> entry : parameter.entrySet()) {
+            //只运行当前函数需要的参数，防止循环依赖
+            if (funParamNames.contains(entry.getKey())) {
+                names.add(entry.getKey());
+                values.add(entry.getValue());
+            }
+        }
+        this.names = names.toArray(new String[0]);
+        this.values = values.toArray(new Value[0]);
+        this.converters = new UnaryOperator[this.values.length];
+        for (int i = 0; i < this.values.length; i++) {
+            converters[i] = converter(this.values[i], this.values[i].getDataTypeEnum());
+        }
+
+        final Class parameterClass = function.getParameterClass();
+        this.parameterType = DataTypeEnum.getDataTypeByClass(parameterClass);
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            if (parameterType == DataTypeEnum.POJO) {
+                final Constructor declaredConstructor = parameterClass.getDeclaredConstructor();
+                declaredConstructor.setAccessible(true);
+                this.constructor = lookup.unreflectConstructor(declaredConstructor).asType(MethodType.methodType(Object.class));
+                final Field[] fields = Arrays.stream(parameterClass.getDeclaredFields()).filter(field -> !Modifier.isStatic(field.getModifiers())).toArray(Field[]::new);
+                this.setters = new MethodHandle[fields.length];
+                this.setterArgIndex = new int[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i].setAccessible(true);
+                    setters[i] = lookup.unreflectSetter(fields[i]).asType(SETTER_TYPE);
+                    setterArgIndex[i] = names.indexOf(fields[i].getName());
+                }
+            } else {
+                this.constructor = null;
+                this.setters = null;
+                this.setterArgIndex = null;
+            }
+            this.singleArgIndex = names.indexOf(method.getParameters()[0].getName());
+            this.singleArgConverter = singleArgIndex < 0 ? null : converter(this.values[singleArgIndex], parameterType);
+            if (EXECUTE_METHOD_NAME.equals(method.getName())) {
+                this.executeHandle = null;
+            } else {
+                method.setAccessible(true);
+                this.executeHandle = lookup.unreflect(method).asType(EXECUTE_TYPE);
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new RuleValidationException(e);
+        }
+    }
+
+    Function getFunction() {
+        return function;
+    }
+
+    boolean isDeterministic() {
+        return deterministic;
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * 值转换为目标类型的转换器：值的类型与目标类型相同，且取值时已经保证是该类型（元素校验类型、变量转换结果）时不转换，
+     * POJO、OBJECT总是通过json转换
+     */
+    private static UnaryOperator<Object> converter(Value value, DataTypeEnum dataType) {
+        if (dataType != DataTypeEnum.POJO && dataType != DataTypeEnum.OBJECT && value.getDataTypeEnum() == dataType
+                && (value instanceof Element || value instanceof Variable)) {
+            return UnaryOperator.identity();
+        }
+        return arg -> Variable.convert(arg, dataType);
+    }
+
+    /**
+     * 计算参数并执行函数
+     *
+     * @param context 上下文
+     * @return 函数的返回值
+     */
+    Object invoke(Context context) {
+        final Object executeParam;
+        try {
+            executeParam = createParam(context);
+        } catch (RuleExecuteException | Error e) {
+            //Error（如OutOfMemoryError、StackOverflowError）不包装，原样抛出
+            throw e;
+        } catch (Throwable e) {
+            throw new RuleExecuteException(e);
+        }
+        return execute(executeParam);
+    }
+
+    /**
+     * 在当前线程计算参数，异步执行函数
+     *
+     * @param context  上下文
+     * @param executor 执行函数的线程池，为null时使用{@link Function#executeAsync(Object)}，
+     *                 执行方法不是execute时在当前线程同步执行
+     * @return 函数的返回值
+     */
+    CompletableFuture<Object> invokeAsync(Context context, Executor executor) {
+        try {
+            final Object executeParam = createParam(context);
+            if (executor != null) {
+                return CompletableFuture.supplyAsync(() -> execute(executeParam), executor);
+            }
+            if (executeHandle == null) {
+                return function.executeAsync(executeParam);
+            }
+            return CompletableFuture.completedFuture(execute(executeParam));
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            final CompletableFuture<Object> future = new CompletableFuture<>();
+            future.completeExceptionally(e instanceof RuleExecuteException ? e : new RuleExecuteException(e));
+            return future;
+        }
+    }
+
+    private Object execute(Object executeParam) {
+        try {
+            if (executeHandle == null) {
+                return function.execute(executeParam);
+            }
+            return executeHandle.invokeExact((Object) function, executeParam);
+        } catch (RuleExecuteException | Error e) {
+            //Error（如OutOfMemoryError、StackOverflowError）不包装，原样抛出
+            throw e;
+        } catch (Throwable e) {
+            throw new RuleExecuteException(e);
+        }
+    }
+
+    /**
+     * 计算参数并生成函数的入参，单个参数时只计算该参数，不分配参数数组
+     */
+    private Object createParam(Context context) throws Throwable {
+        if (parameterType != DataTypeEnum.POJO && parameterType != DataTypeEnum.MAP) {
+            return singleArgIndex < 0 ? null : singleArgConverter.apply(arg(context, singleArgIndex));
+        }
+        final Object[] args = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            args[i] = arg(context, i);
+        }
+        if (parameterType == DataTypeEnum.POJO) {
+            final Object executeParam = constructor.invokeExact();
+            for (int i = 0; i < setters.length; i++) {
+                final int index = setterArgIndex[i];
+                setters[i].invokeExact(executeParam, index < 0 ? null : args[index]);
+            }
+            return executeParam;
+        }
+        final Map<String, Object> executeParam = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            executeParam.put(names[i], args[i]);
+        }
+        return executeParam;
+    }
+
+    private Object arg(Context context, int index) {
+        return converters[index].apply(values[index].getValue(context));
+    }
+}
@@ -32,6 +32,17 @@ public class MultipleResult extends Value {
         return Collections.unmodifiableSet(collect);
     }
 
+    @Override
+    public Collection<Variable> collectVariable() {
+        final Set<Variable> collect = multipleResult.values().stream().flatMap(value -> value.collectVariable().stream()).collect(Collectors.toCollection(LinkedHashSet::new));
+        return Collections.unmodifiableSet(collect);
+    }
+
+    @Override
+    public boolean isDeterministic() {
+        return multipleResult.values().stream().allMatch(Value::isDeterministic);
+    }
+
     @Override
     public int getWeight() {
         return multipleResult.values().stream().mapToInt(Value::getWeight).sum();
@@ -55,6 +55,15 @@ public abstract class Value implements Serializable, Weight, Collectors {
 
     public abstract Object getValue(Context context);
 
+    /**
+     * 一次执行中取值是否确定，确定的值组成的条件在一次执行中只需要执行一次
+     *
+     * @return
+     */
+    public boolean isDeterministic() {
+        return false;
+    }
+
 
 
     public DataTypeEnum getDataTypeEnum() {
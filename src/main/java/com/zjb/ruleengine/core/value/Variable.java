@@ -1,12 +1,11 @@
 package com.zjb.ruleengine.core.value;
 
-import cn.hutool.core.collection.CollUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.fasterxml.jackson.databind.util.BeanUtil;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.ExecutionMemo;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
 import com.zjb.ruleengine.core.exception.RuleExecuteException;
 import com.zjb.ruleengine.core.function.Function;
@@ -15,8 +14,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Parameter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -54,59 +51,62 @@ public class Variable extends Value {
     }
 
 
+    /**
+     * 函数确定且参数都确定时，变量才是确定的
+     *
+     * @return
+     */
     @Override
-    public int getWeight() {
-        return LOW;
+    public boolean isDeterministic() {
+        final Function fun = function.getFunctionHolder().getFunction(function.getFunctionName());
+        return fun != null && fun.isDeterministic() && function.getParameter().values().stream().allMatch(Value::isDeterministic);
     }
 
+    public VariableFunction getFunction() {
+        return function;
+    }
 
+    /**
+     * 参数中的变量在前，当前变量在最后
+     *
+     * @return
+     */
     @Override
-    public Object getValue(Context context) {
-        final Map<String, ? extends Value> varParameter = this.function.getParameter();
-        final Function function = this.function.getFunctionHolder().getFunction(this.function.getFunctionName());
-        //只运行当前函数需要的参数，防止循环依赖
-        final Set<String> funParamNames = (Set<String>) function.getParamters().stream().map(par -> ((Function.Parameter) par).getName()).collect(Collectors.toSet());
-        final HashMap<String, Object> functionParameter = Maps.newHashMap();
-        if (CollUtil.isNotEmpty(varParameter)) {
-            for (Map.Entry<String, ? extends Value> entry : varParameter.entrySet()) {
-                if (funParamNames.contains(entry.getKey())) {
-                    //final Object value = entry.getValue().getValue(context);
-                    final Object value = dataConversion(entry.getValue().getValue(context), entry.getValue().getDataTypeEnum());
-                    functionParameter.put(entry.getKey(), value);
-                }
-            }
+    public Collection<Variable> collectVariable() {
+        final Set<Variable> collect = new LinkedHashSet<>();
+        for (Value value : function.getParameter().values()) {
+            collect.addAll(value.collectVariable());
         }
+        collect.add(this);
+        return Collections.unmodifiableSet(collect);
+    }
 
+    @Override
+    public int getWeight() {
+        return LOW;
+    }
 
-        final DataTypeEnum dataTypeByClass = DataTypeEnum.getDataTypeByClass(function.getParameterClass());
-        try {
-            Object executeParam;
-            if (dataTypeByClass == DataTypeEnum.POJO) {
-                executeParam = function.getParameterClass().newInstance();
-                final Field[] declaredFields = function.getParameterClass().getDeclaredFields();
-                for (Field declaredField : declaredFields) {
-                    declaredField.setAccessible(true);
-                    declaredField.set(executeParam, functionParameter.get(declaredField.getName()));
-                    declaredField.setAccessible(false);
-                }
-            } else if (dataTypeByClass == DataTypeEnum.MAP) {
-                executeParam = functionParameter;
-            } else {
-                final Parameter parameter = this.function.getMethodParameter();
-                if (functionParameter.containsKey(parameter.getName())) {
-                    executeParam = dataConversion(functionParameter.get(parameter.getName()), dataTypeByClass);
-                } else {
-                    executeParam = null;
-                }
+
+    @Override
+    public Object getValue(Context context) {
+        final FunctionInvoker invoker = this.function.getInvoker();
+        final ExecutionMemo memo = context.getMemo();
+        if (memo != null && invoker.isDeterministic()) {
+            //相同的函数、参数在本次执行中只调用一次
+            final Object value = memo.get(this.function, () -> invoker.invoke(context));
+            if (value instanceof VariablePrefetcher.Failure) {
+                throw ((VariablePrefetcher.Failure) value).toException();
             }
-            return dataConversion(this.function.getMethod().invoke(function, executeParam), this.getDataTypeEnum());
-        } catch (Exception e) {
-            log.error("{}", e);
-            throw new RuleExecuteException(e);
+            return dataConversion(value, this.getDataTypeEnum());
         }
+        return dataConversion(invoker.invoke(context), this.getDataTypeEnum());
     }
 
     public Object dataConversion(Object value, DataTypeEnum dataType) {
+        return convert(value, dataType);
+    }
+
+    static Object convert(Object value, DataTypeEnum dataType) {
         if (Objects.isNull(value) || dataType == null) {
             return null;
         }
@@ -4,6 +4,7 @@ import cn.hutool.core.text.StrFormatter;
 import cn.hutool.core.util.ClassUtil;
 import com.zjb.ruleengine.core.config.FunctionHolder;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.exception.RuleExecuteException;
 import com.zjb.ruleengine.core.exception.RuleValidationException;
 import com.zjb.ruleengine.core.function.Function;
 import org.apache.commons.lang3.Validate;
@@ -34,6 +35,11 @@ public class VariableFunction {
     private Method method;
     private Parameter methodParameter;
 
+    /**
+     * 函数调用器，构造时生成，{@link FunctionHolder}中注册的函数变化时重新生成
+     */
+    private transient volatile FunctionInvoker invoker;
+
     public VariableFunction(String functionName, Map<String, ? extends Value> parameter, FunctionHolder functionHolder) {
 
         Validate.notBlank(functionName, "functionName is not blank");
@@ -61,16 +67,43 @@ public class VariableFunction {
         this.parameter = parameter;
         this.functionHolder = functionHolder;
 
+        this.method = getExecuteMethod(function);
+        this.methodParameter = this.method.getParameters()[0];
+        this.invoker = new FunctionInvoker(function, parameter, method, functionHolder.getVersion());
+    }
+
+    private static Method getExecuteMethod(Function function) {
+        final Method method;
         try {
-            this.method = ClassUtil.getDeclaredMethod(function.getClass(), function.getExecuteMethodName(), function.getParameterClass());
+            method = ClassUtil.getDeclaredMethod(function.getClass(), function.getExecuteMethodName(), function.getParameterClass());
         } catch (Exception e) {
             throw new RuleValidationException(e);
         }
-        final Parameter[] methodParameters = this.method.getParameters();
-        if (methodParameters.length > 1) {
+        if (method.getParameters().length > 1) {
             throw new RuleValidationException("只支持单个参数");
         }
-        this.methodParameter = methodParameters[0];
+        return method;
+    }
+
+    /**
+     * 获取函数调用器，只比较注册函数的版本，不再每次从{@link FunctionHolder}中查找函数；
+     * 版本变化（有函数被注册）时重新查找并生成
+     *
+     * @return
+     */
+    FunctionInvoker getInvoker() {
+        final FunctionInvoker current = this.invoker;
+        final int version = functionHolder.getVersion();
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+        final Function function = functionHolder.getFunction(functionName);
+        if (function == null) {
+            throw new RuleExecuteException(StrFormatter.format("not found function:{}", functionName));
+        }
+        final FunctionInvoker result = new FunctionInvoker(function, parameter, getExecuteMethod(function), version);
+        this.invoker = result;
+        return result;
     }
 
     public Method getMethod() {
@@ -103,6 +136,11 @@ public class VariableFunction {
             return false;
         }
         final VariableFunction other = (VariableFunction) obj;
-        return Objects.equals(other.parameter, this.parameter);
+        return Objects.equals(other.functionName, this.functionName) && Objects.equals(other.parameter, this.parameter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.functionName, this.parameter);
     }
 }
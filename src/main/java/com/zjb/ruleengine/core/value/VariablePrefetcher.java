@@ -0,0 +1,210 @@
+package com.zjb.ruleengine.core.value;
+
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.ExecutionMemo;
+import com.zjb.ruleengine.core.exception.RuleExecuteException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * 远程变量的预取计划，在规则注册时生成，执行时在条件执行前并发调用规则中所有的远程函数，
+ * 结果放入本次执行的{@link ExecutionMemo}，规则执行时直接读取缓存，耗时为最慢的一次调用而不是所有调用之和
+ * <p>
+ * 只预取确定的远程函数（{@link com.zjb.ruleengine.core.function.Function#isRemote()}），
+ * 参数中的变量也必须是确定的，相同的函数调用只预取一次；
+ * 参数依赖其它远程变量的按依赖分层，上一层全部返回后再调用下一层；
+ * 预取失败时缓存失败的原因，规则执行时读取该变量抛出异常，不再同步调用（避免超时的接口在一次执行中等待两次）
+ *
+ * @author 赵静波
+ * @date 2026-10-18 16:40:12
+ */
+public class VariablePrefetcher {
+    private static final Logger log = LogManager.getLogger();
+
+    private static final VariablePrefetcher EMPTY = new VariablePrefetcher(Collections.emptyList());
+
+    /**
+     * 不能预取的变量
+     */
+    private static final int NONE = -1;
+
+    /**
+     * 运行时支持虚拟线程时为每个任务一个虚拟线程的线程池，否则为null
+     */
+    private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+    /**
+     * 按依赖分层的远程变量，同一层的变量互相独立
+     */
+    private final List<Variable[]> levels;
+
+    private VariablePrefetcher(List<Variable[]> levels) {
+        this.levels = levels;
+    }
+
+    /**
+     * 生成预取计划
+     *
+     * @param variables 规则中的所有变量，见{@link com.zjb.ruleengine.core.Collectors#collectVariable()}
+     * @return
+     */
+    public static VariablePrefetcher of(Collection<Variable> variables) {
+        final Map<VariableFunction, Integer> levelMap = new HashMap<>();
+        final Map<VariableFunction, Variable> remotes = new LinkedHashMap<>();
+        int levelCount = 0;
+        for (Variable variable : variables) {
+            final int level = level(variable, levelMap);
+            if (level != NONE && !remotes.containsKey(variable.getFunction())) {
+                remotes.put(variable.getFunction(), variable);
+                levelCount = Math.max(levelCount, level + 1);
+            }
+        }
+        if (remotes.isEmpty()) {
+            return EMPTY;
+        }
+        final List<List<Variable>> levels = new ArrayList<>(levelCount);
+        for (int i = 0; i < levelCount; i++) {
+            levels.add(new ArrayList<>());
+        }
+        remotes.forEach((function, variable) -> levels.get(levelMap.get(function)).add(variable));
+        final List<Variable[]> result = new ArrayList<>(levelCount);
+        for (List<Variable> level : levels) {
+            result.add(level.toArray(new Variable[0]));
+        }
+        log.debug("远程变量预取计划，变量数{}，层数{}", remotes.size(), levelCount);
+        return new VariablePrefetcher(result);
+    }
+
+    /**
+     * 运行时支持虚拟线程（Java 21+）时返回虚拟线程的线程池，否则返回null，使用函数自己的异步实现
+     *
+     * @return
+     */
+    public static Executor defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    public boolean isEmpty() {
+        return levels.isEmpty();
+    }
+
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    public int getVariableCount() {
+        return levels.stream().mapToInt(level -> level.length).sum();
+    }
+
+    /**
+     * 并发调用远程变量，按层执行，每层全部返回后把结果写入缓存
+     * <p>
+     * 函数的参数在调用线程或上一层的回调线程中计算，计算时上下文的缓存临时设置为memo
+     *
+     * @param context  上下文，预取完成前不能用于其它执行
+     * @param memo     本次执行的缓存
+     * @param executor 执行远程调用的线程池，为null时使用{@link com.zjb.ruleengine.core.function.Function#executeAsync(Object)}
+     * @return 所有调用完成（成功或失败）时完成
+     */
+    public CompletableFuture<ExecutionMemo> prefetch(Context context, ExecutionMemo memo, Executor executor) {
+        CompletableFuture<ExecutionMemo> future = CompletableFuture.completedFuture(memo);
+        for (Variable[] level : levels) {
+            future = future.thenCompose(ignore -> prefetch(level, context, memo, executor));
+        }
+        return future;
+    }
+
+    private static CompletableFuture<ExecutionMemo> prefetch(Variable[] level, Context context, ExecutionMemo memo, Executor executor) {
+        final List<CompletableFuture<Object>> futures = new ArrayList<>(level.length);
+        final ExecutionMemo previous = context.getMemo();
+        context.setMemo(memo);
+        try {
+            for (Variable variable : level) {
+                futures.add(variable.getFunction().getInvoker().invokeAsync(context, executor));
+            }
+        } finally {
+            context.setMemo(previous);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .handle((ignore, e) -> {
+                    for (int i = 0; i < level.length; i++) {
+                        final CompletableFuture<Object> future = futures.get(i);
+                        try {
+                            memo.put(level[i].getFunction(), future.join());
+                        } catch (CompletionException failure) {
+                            log.warn("预取变量{}失败", level[i].getFunction().getFunctionName(), failure.getCause());
+                            memo.put(level[i].getFunction(), new Failure(level[i].getFunction().getFunctionName(), failure.getCause()));
+                        }
+                    }
+                    return memo;
+                });
+    }
+
+    /**
+     * 预取失败的原因，放入缓存，读取时抛出异常
+     */
+    static final class Failure {
+        private final String functionName;
+        private final Throwable cause;
+
+        Failure(String functionName, Throwable cause) {
+            this.functionName = functionName;
+            this.cause = cause;
+        }
+
+        RuleExecuteException toException() {
+            return new RuleExecuteException("预取变量" + functionName + "失败", cause);
+        }
+    }
+
+    /**
+     * 计算远程变量所在的层，参数中没有远程变量的在第0层，否则在参数中远程变量的下一层
+     *
+     * @return 不能预取时返回{@link #NONE}
+     */
+    private static int level(Variable variable, Map<VariableFunction, Integer> levelMap) {
+        final VariableFunction function = variable.getFunction();
+        final Integer cached = levelMap.get(function);
+        if (cached != null) {
+            return cached;
+        }
+        final FunctionInvoker invoker = function.getInvoker();
+        int level = invoker.isDeterministic() && invoker.getFunction().isRemote() ? 0 : NONE;
+        for (Value value : function.getParameter().values()) {
+            for (Variable dependency : value.collectVariable()) {
+                if (level == NONE) {
+                    break;
+                }
+                if (!dependency.isDeterministic()) {
+                    //参数的值不能缓存
+                    level = NONE;
+                } else if (dependency.getFunction().getInvoker().getFunction().isRemote()) {
+                    final int dependencyLevel = level(dependency, levelMap);
+                    level = dependencyLevel == NONE ? NONE : Math.max(level, dependencyLevel + 1);
+                }
+            }
+        }
+        levelMap.put(function, level);
+        return level;
+    }
+
+    private static Executor createDefaultExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.zjb.ruleengine;
+
+import com.google.common.collect.Lists;
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.columnar.ColumnBatch;
+import com.zjb.ruleengine.core.columnar.ColumnarExecutor;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.ConditionSet;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.enums.RuleSetExecutePolicyEnum;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.rule.AbstractRule;
+import com.zjb.ruleengine.core.rule.ActionRule;
+import com.zjb.ruleengine.core.rule.Rule;
+import com.zjb.ruleengine.core.rule.RuleSet;
+import com.zjb.ruleengine.core.value.Constant;
+import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * 列式执行与逐行执行的一致性测试
+ *
+ * @author 赵静波
+ * @date 2026-10-18 16:02:37
+ */
+public class ColumnarTest {
+
+    private static final String[] WORDS = {"a", "ab", "abc", "b", "bc", "c", ""};
+    private static final int ROWS = 300;
+
+    private final Random random = new Random(20261018L);
+
+    @Test
+    public void testConditionParity() {
+        for (int i = 0; i < 50; i++) {
+            final ColumnBatch batch = randomBatch();
+            final ColumnarExecutor executor = new ColumnarExecutor(batch);
+            for (int j = 0; j < 20; j++) {
+                final AbstractCondition condition = randomCondition(3);
+                final BitSet bitSet = executor.evaluate(condition);
+                for (int row = 0; row < ROWS; row++) {
+                    Assert.assertEquals(condition.toString(), condition.evaluate(rowContext(batch, row)), bitSet.get(row));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRuleSetParity() {
+        for (int i = 0; i < 50; i++) {
+            final ColumnBatch batch = randomBatch();
+            final List<AbstractRule> rules = new ArrayList<>();
+            for (int j = random.nextInt(5); j >= 0; j--) {
+                rules.add(new Rule("rule" + j, randomCondition(3), Constant.stringValue("hit" + j)));
+            }
+            //元素作为结果
+            rules.add(new Rule("element", randomCondition(2), Element.stringValue("str1")));
+            if (random.nextBoolean()) {
+                rules.add(new ActionRule("action", Constant.stringValue("default")));
+            }
+            final RuleSet ruleSet = new RuleSet("ruleSet", rules);
+            ruleSet.setPolicy(random.nextBoolean() ? RuleSetExecutePolicyEnum.ONE : RuleSetExecutePolicyEnum.ALL);
+            final List<Object> results = new ColumnarExecutor(batch).execute(ruleSet);
+            for (int row = 0; row < ROWS; row++) {
+                Assert.assertEquals(ruleSet.execute(rowContext(batch, row)), results.get(row));
+            }
+        }
+    }
+
+    private BaseContextImpl rowContext(ColumnBatch batch, int row) {
+        final BaseContextImpl context = new BaseContextImpl();
+        for (String code : Lists.newArrayList("num1", "num2", "str1", "bool1")) {
+            context.put(code, batch.getValue(code, row));
+        }
+        return context;
+    }
+
+    private ColumnBatch randomBatch() {
+        final double[] num1 = new double[ROWS];
+        final double[] num2 = new double[ROWS];
+        final String[] str1 = new String[ROWS];
+        final boolean[] bool1 = new boolean[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            num1[i] = randomNumber().doubleValue();
+            num2[i] = randomNumber().doubleValue();
+            str1[i] = pick(WORDS);
+            bool1[i] = random.nextBoolean();
+        }
+        return new ColumnBatch(ROWS)
+                .addNumberColumn("num1", num1)
+                .addNumberColumn("num2", num2)
+                .addStringColumn("str1", str1)
+                .addBooleanColumn("bool1", bool1);
+    }
+
+    private AbstractCondition randomCondition(int depth) {
+        final int type = depth <= 1 ? 0 : random.nextInt(3);
+        if (type == 0) {
+            return randomDefaultCondition();
+        }
+        final int size = 1 + random.nextInt(4);
+        final List<AbstractCondition> children = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            children.add(randomCondition(depth - 1));
+        }
+        return type == 1 ? new ConditionGroup(children) : new ConditionSet(children);
+    }
+
+    private DefaultCondition randomDefaultCondition() {
+        switch (random.nextInt(3)) {
+            case 0: {
+                final Symbol symbol = pick(Symbol.number_eq, Symbol.number_ne, Symbol.number_gt, Symbol.number_ge,
+                        Symbol.number_lt, Symbol.number_le, Symbol.number_in, Symbol.not_in);
+                if (symbol == Symbol.number_in || symbol == Symbol.not_in) {
+                    return new DefaultCondition(Element.numberValue(pick("num1", "num2")), symbol, Constant.collectionValue(Lists.newArrayList(randomNumber(), randomNumber())));
+                }
+                final Value element = Element.numberValue(pick("num1", "num2"));
+                final Value other = random.nextInt(4) == 0 ? Element.numberValue(pick("num1", "num2")) : new Constant(DataTypeEnum.NUMBER, randomNumber());
+                return random.nextBoolean() ? new DefaultCondition(element, symbol, other) : new DefaultCondition(other, symbol, element);
+            }
+            case 1: {
+                final Symbol symbol = pick(Symbol.str_eq, Symbol.str_ne, Symbol.str_start_with, Symbol.str_end_with,
+                        Symbol.str_not_start_with, Symbol.str_not_end_with, Symbol.str_index_of, Symbol.str_not_index_of,
+                        Symbol.str_in, Symbol.str_not_in);
+                if (symbol == Symbol.str_in || symbol == Symbol.str_not_in) {
+                    return new DefaultCondition(Element.stringValue("str1"), symbol, Constant.collectionValue(Lists.newArrayList(pick(WORDS), pick(WORDS))));
+                }
+                return new DefaultCondition(Element.stringValue("str1"), symbol, Constant.stringValue(pick(WORDS)));
+            }
+            default: {
+                final Symbol symbol = pick(Symbol.boolean_eq, Symbol.boolean_ne);
+                return new DefaultCondition(Element.booleanValue("bool1"), symbol, Constant.booleanValue(random.nextBoolean()));
+            }
+        }
+    }
+
+    private Number randomNumber() {
+        switch (random.nextInt(4)) {
+            case 0:
+                return random.nextInt(10);
+            case 1:
+                return (long) random.nextInt(10);
+            case 2:
+                return random.nextInt(10) / 10.0;
+            default:
+                return random.nextInt(20) / 2.0;
+        }
+    }
+
+    @SafeVarargs
+    private final <T> T pick(T... values) {
+        return Objects.requireNonNull(values[random.nextInt(values.length)]);
+    }
+}
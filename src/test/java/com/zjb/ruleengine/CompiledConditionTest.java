@@ -0,0 +1,192 @@
+package com.zjb.ruleengine;
+
+import com.google.common.collect.Lists;
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.compile.CompiledCondition;
+import com.zjb.ruleengine.core.compile.ConditionCompiler;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
+import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.ConditionSet;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.rule.Rule;
+import com.zjb.ruleengine.core.value.Constant;
+import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * 编译执行与解释执行的一致性测试：随机生成条件树和上下文，两条路径的结果（包括异常）必须一致
+ *
+ * @author 赵静波
+ * @date 2026-10-18 11:02:45
+ */
+public class CompiledConditionTest {
+
+    private static final String[] NUMBER_CODES = {"num1", "num2"};
+    private static final String[] STRING_CODES = {"str1", "str2"};
+    private static final String BOOLEAN_CODE = "bool1";
+    private static final String COLLECTION_CODE = "coll1";
+    private static final String[] WORDS = {"a", "ab", "abc", "b", "bc", "c", ""};
+
+    private final Random random = new Random(20261018L);
+
+    @Test
+    public void testParity() {
+        for (int i = 0; i < 300; i++) {
+            final AbstractCondition condition = randomCondition(3);
+            final CompiledCondition compiled = ConditionCompiler.compile(condition);
+            for (int j = 0; j < 20; j++) {
+                final Context context = randomContext();
+                Assert.assertEquals(condition.toString(), run(() -> condition.evaluate(context)), run(() -> compiled.evaluate(context)));
+            }
+        }
+    }
+
+    @Test
+    public void testRuleParity() {
+        for (int i = 0; i < 100; i++) {
+            final AbstractCondition condition = randomCondition(3);
+            final Rule interpreted = new Rule("interpreted", condition, Constant.stringValue("hit"));
+            final Rule compiled = new Rule("compiled", condition, Constant.stringValue("hit"));
+            compiled.setCompile(true);
+            interpreted.build();
+            compiled.build();
+            for (int j = 0; j < 10; j++) {
+                final Context context = randomContext();
+                Assert.assertEquals(run(() -> interpreted.execute(context)), run(() -> compiled.execute(context)));
+            }
+        }
+    }
+
+    @Test
+    public void testConstantFolding() {
+        final DefaultCondition alwaysTrue = new DefaultCondition(new Constant(DataTypeEnum.NUMBER, 1), Symbol.number_eq, new Constant(DataTypeEnum.NUMBER, 1));
+        final DefaultCondition alwaysFalse = new DefaultCondition(new Constant(DataTypeEnum.NUMBER, 1), Symbol.number_eq, new Constant(DataTypeEnum.NUMBER, 2));
+        final DefaultCondition missing = new DefaultCondition(Element.numberValue("missing"), Symbol.number_eq, new Constant(DataTypeEnum.NUMBER, 2));
+        //条件组中常量false之前的条件依然要执行，保留异常
+        final ConditionGroup group = new ConditionGroup(Lists.newArrayList(alwaysTrue, missing, alwaysFalse));
+        final BaseContextImpl context = new BaseContextImpl();
+        Assert.assertEquals(run(() -> group.evaluate(context)), run(() -> ConditionCompiler.compile(group).evaluate(context)));
+        context.put("missing", 2);
+        Assert.assertFalse(ConditionCompiler.compile(group).evaluate(context));
+        Assert.assertTrue(ConditionCompiler.compile(new ConditionSet(Lists.newArrayList(alwaysFalse, alwaysTrue))).evaluate(context));
+    }
+
+    private Object run(java.util.function.Supplier<Object> supplier) {
+        try {
+            return supplier.get();
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private AbstractCondition randomCondition(int depth) {
+        final int type = depth <= 1 ? 0 : random.nextInt(3);
+        if (type == 0) {
+            return randomDefaultCondition();
+        }
+        final int size = 1 + random.nextInt(5);
+        final List<AbstractCondition> children = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            children.add(randomCondition(depth - 1));
+        }
+        return type == 1 ? new ConditionGroup(children) : new ConditionSet(children);
+    }
+
+    private DefaultCondition randomDefaultCondition() {
+        switch (random.nextInt(4)) {
+            case 0: {
+                final Symbol symbol = pick(Symbol.number_eq, Symbol.number_ne, Symbol.number_gt, Symbol.number_ge,
+                        Symbol.number_lt, Symbol.number_le, Symbol.number_in, Symbol.not_in);
+                final Value left = random.nextInt(5) == 0 ? new Constant(DataTypeEnum.NUMBER, randomNumber()) : Element.numberValue(pick(NUMBER_CODES));
+                if (symbol == Symbol.number_in || symbol == Symbol.not_in) {
+                    return new DefaultCondition(left, symbol, Constant.collectionValue(randomNumbers()));
+                }
+                final Value right = random.nextBoolean() ? new Constant(DataTypeEnum.NUMBER, randomNumber()) : Element.numberValue(pick(NUMBER_CODES));
+                return new DefaultCondition(left, symbol, right);
+            }
+            case 1: {
+                final Symbol symbol = pick(Symbol.str_eq, Symbol.str_ne, Symbol.str_start_with, Symbol.str_end_with,
+                        Symbol.str_not_start_with, Symbol.str_not_end_with, Symbol.str_index_of, Symbol.str_not_index_of,
+                        Symbol.str_in, Symbol.str_not_in);
+                final Value left = Element.stringValue(pick(STRING_CODES));
+                if (symbol == Symbol.str_in || symbol == Symbol.str_not_in) {
+                    return new DefaultCondition(left, symbol, Constant.collectionValue(randomWords()));
+                }
+                final Value right = random.nextBoolean() ? Constant.stringValue(pick(WORDS)) : Element.stringValue(pick(STRING_CODES));
+                return new DefaultCondition(left, symbol, right);
+            }
+            case 2: {
+                final Symbol symbol = pick(Symbol.boolean_eq, Symbol.boolean_ne, Symbol.boolean_in, Symbol.boolean_not_in);
+                final Value right = symbol == Symbol.boolean_in || symbol == Symbol.boolean_not_in
+                        ? Constant.collectionValue(Lists.newArrayList(random.nextBoolean()))
+                        : Constant.booleanValue(random.nextBoolean());
+                return new DefaultCondition(Element.booleanValue(BOOLEAN_CODE), symbol, right);
+            }
+            default: {
+                final Symbol symbol = pick(Symbol.collection_contain, Symbol.collection_not_contain, Symbol.set_eq,
+                        Symbol.collection_in, Symbol.collection_not_in);
+                final Value right = symbol == Symbol.collection_contain && random.nextBoolean()
+                        ? Constant.stringValue(pick(WORDS))
+                        : Constant.collectionValue(randomWords());
+                return new DefaultCondition(Element.collectionValue(COLLECTION_CODE), symbol, right);
+            }
+        }
+    }
+
+    private Context randomContext() {
+        final BaseContextImpl context = new BaseContextImpl();
+        for (String code : NUMBER_CODES) {
+            if (random.nextInt(10) > 0) {
+                context.put(code, randomNumber());
+            }
+        }
+        for (String code : STRING_CODES) {
+            context.put(code, pick(WORDS));
+        }
+        context.put(BOOLEAN_CODE, random.nextBoolean());
+        context.put(COLLECTION_CODE, randomWords());
+        return context;
+    }
+
+    private Number randomNumber() {
+        switch (random.nextInt(3)) {
+            case 0:
+                return random.nextInt(10);
+            case 1:
+                return (long) random.nextInt(10);
+            default:
+                return random.nextInt(20) / 2.0;
+        }
+    }
+
+    private List<Object> randomNumbers() {
+        final List<Object> numbers = new ArrayList<>();
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            numbers.add(randomNumber());
+        }
+        return numbers;
+    }
+
+    private List<Object> randomWords() {
+        final List<Object> words = new ArrayList<>();
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            words.add(pick(WORDS));
+        }
+        return words;
+    }
+
+    @SafeVarargs
+    private final <T> T pick(T... values) {
+        return Objects.requireNonNull(values[random.nextInt(values.length)]);
+    }
+}
@@ -1,17 +1,36 @@
 package com.zjb.ruleengine;
 
 import com.google.common.collect.Lists;
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.Context;
+import com.zjb.ruleengine.core.DefaultRuleEngine;
+import com.zjb.ruleengine.core.condition.AbstractCondition;
 import com.zjb.ruleengine.core.condition.ConditionGroup;
 import com.zjb.ruleengine.core.condition.ConditionSet;
 import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.condition.evaluate.CollectionEvaluateStrategy;
+import com.zjb.ruleengine.core.condition.evaluate.Evaluate;
+import com.zjb.ruleengine.core.condition.evaluate.NumberEvaluateStrategy;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
 import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.rule.Rule;
 import com.zjb.ruleengine.core.value.Constant;
 import com.zjb.ruleengine.core.value.Element;
 import com.zjb.ruleengine.core.value.Value;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * @author 赵静波
@@ -37,6 +56,247 @@ public class ConditionTest {
 
     }
 
+    /**
+     * 自适应执行顺序：耗时长且很少短路的条件移到后面
+     */
+    @Test
+    public void testAdaptiveOrder() {
+        final SpinCondition slowTrue = new SpinCondition("slowTrue", true, 20000);
+        final SpinCondition fastFalse = new SpinCondition("fastFalse", false, 0);
+        final ConditionGroup group = new ConditionGroup("adaptive", Lists.newArrayList(slowTrue, fastFalse));
+        group.setAdaptive(true);
+        final BaseContextImpl context = new BaseContextImpl();
+        for (int i = 0; i < 20000; i++) {
+            Assert.assertFalse(group.evaluate(context));
+        }
+        Assert.assertEquals(Lists.newArrayList(fastFalse, slowTrue), group.getAdaptiveOrder().getOrder());
+    }
+
+    /**
+     * 开启自适应执行顺序的条件组不与未开启的合并，一个规则开启不影响其它规则
+     */
+    @Test
+    public void testAdaptiveNotShared() {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final Rule fixed = new Rule("fixed", new ConditionGroup(Lists.newArrayList(
+                new DefaultCondition(Element.stringValue("a"), Symbol.str_eq, Constant.stringValue("1")),
+                new DefaultCondition(Element.stringValue("b"), Symbol.str_eq, Constant.stringValue("2")))), Constant.stringValue("hit"));
+        fixed.build();
+        ruleEngine.addRule(fixed);
+        final Rule adaptive = new Rule("adaptive", new ConditionGroup(Lists.newArrayList(
+                new DefaultCondition(Element.stringValue("a"), Symbol.str_eq, Constant.stringValue("1")),
+                new DefaultCondition(Element.stringValue("b"), Symbol.str_eq, Constant.stringValue("2")))), Constant.stringValue("hit"));
+        adaptive.setAdaptive(true);
+        adaptive.build();
+        ruleEngine.addRule(adaptive);
+
+        final ConditionGroup fixedGroup = (ConditionGroup) fixed.getCondition();
+        final ConditionGroup adaptiveGroup = (ConditionGroup) adaptive.getCondition();
+        Assert.assertNotSame(fixedGroup, adaptiveGroup);
+        Assert.assertFalse(fixedGroup.isAdaptive());
+        Assert.assertTrue(adaptiveGroup.isAdaptive());
+        //子条件仍然共享
+        Assert.assertEquals(fixedGroup.getConditions(), adaptiveGroup.getConditions());
+        Assert.assertSame(fixedGroup.getConditions().get(0), adaptiveGroup.getConditions().get(0));
+    }
+
+    /**
+     * 固定结果的条件，执行时空转一段时间
+     */
+    public static class SpinCondition extends AbstractCondition {
+        private final boolean result;
+        private final long nanos;
+
+        public SpinCondition(String id, boolean result, long nanos) {
+            super(id);
+            this.result = result;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public boolean evaluate(Context context) {
+            final long start = System.nanoTime();
+            while (System.nanoTime() - start < nanos) {
+                //空转
+            }
+            return result;
+        }
+
+        @Override
+        public Collection<Element> collectParameter() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public int getWeight() {
+            return 0;
+        }
+    }
+
+    /**
+     * 数字比较与原来new BigDecimal(String.valueOf(x))的结果一致，包括原始值和预处理的常量右值
+     */
+    @Test
+    public void testNumberEvaluate() {
+        final NumberEvaluateStrategy strategy = NumberEvaluateStrategy.getInstance();
+        final Symbol[] symbols = {Symbol.number_eq, Symbol.number_ne, Symbol.number_gt, Symbol.number_ge, Symbol.number_lt, Symbol.number_le};
+        final Random random = new Random(20261018L);
+        for (int i = 0; i < 20000; i++) {
+            final Number left = randomNumber(random);
+            final Number right = random.nextInt(4) == 0 ? copyAs(left, random) : randomNumber(random);
+            for (Symbol symbol : symbols) {
+                final String expected = expected(left, right, symbol);
+                final String message = left.getClass().getSimpleName() + ":" + left + " " + symbol + " " + right.getClass().getSimpleName() + ":" + right;
+                Assert.assertEquals(message, expected, actual(strategy, left, right, symbol));
+                Assert.assertEquals(message, expected, actual(strategy, left, strategy.prepare(right, symbol), symbol));
+            }
+        }
+    }
+
+    /**
+     * in、notIn预处理的常量集合与逐个比较字符串的结果一致
+     */
+    @Test
+    public void testPreparedIn() {
+        final List<Object> values = Arrays.asList(5, 5L, (short) 5, 5.0, "5", "05", "+5", "-0", 0, -1L, Long.MIN_VALUE, "abc", "null", null, true, "false", new BigDecimal("5.00"));
+        final Random random = new Random(20261018L);
+        for (int i = 0; i < 2000; i++) {
+            final List<Object> right = new ArrayList<>();
+            for (int j = random.nextInt(6); j > 0; j--) {
+                right.add(values.get(random.nextInt(values.size())));
+            }
+            final Object left = values.get(random.nextInt(values.size()));
+            final Symbol[] symbols = left instanceof Number ? new Symbol[]{Symbol.number_in, Symbol.not_in}
+                    : left instanceof String ? new Symbol[]{Symbol.str_in, Symbol.str_not_in}
+                    : new Symbol[]{Symbol.boolean_in, Symbol.boolean_not_in};
+            for (Symbol symbol : symbols) {
+                final DefaultCondition prepared = new DefaultCondition(Element.stringValue("in_left"), symbol, Constant.collectionValue(right));
+                final Evaluate evaluate = prepared.getEvaluate();
+                Assert.assertEquals(left + " " + symbol + " " + right, evaluate.evaluate(left, right, symbol), evaluate.evaluate(left, evaluate.prepare(right, symbol), symbol));
+            }
+        }
+    }
+
+    /**
+     * 集合运算与按元素字符串构建的set比较结果一致，包括预处理的常量右值、逐个比较和排序归并
+     */
+    @Test
+    public void testCollectionEvaluate() {
+        final Evaluate evaluate = CollectionEvaluateStrategy.getInstance();
+        final List<Object> values = Arrays.asList(1, 1L, "1", 2, "2", 2.0, "a", "b", "c", true, "true", null);
+        final Random random = new Random(20261018L);
+        for (int i = 0; i < 3000; i++) {
+            final List<Object> left = randomList(values, random);
+            final List<Object> right = randomList(values, random);
+            final Set<String> leftSet = left.stream().map(String::valueOf).collect(Collectors.toSet());
+            final Set<String> rightSet = right.stream().map(String::valueOf).collect(Collectors.toSet());
+            final boolean leftInRight = !left.isEmpty() && !right.isEmpty() && rightSet.containsAll(leftSet);
+            final boolean rightInLeft = !left.isEmpty() && !right.isEmpty() && leftSet.containsAll(rightSet);
+            final Object[][] cases = {
+                    {Symbol.collection_in, leftInRight},
+                    {Symbol.collection_not_in, !leftInRight},
+                    {Symbol.collection_contain, rightInLeft},
+                    {Symbol.collection_not_contain, !rightInLeft},
+                    {Symbol.set_eq, leftSet.equals(rightSet)}};
+            for (Object[] c : cases) {
+                final Symbol symbol = (Symbol) c[0];
+                final String message = left + " " + symbol + " " + right;
+                Assert.assertEquals(message, c[1], evaluate.evaluate(left, right, symbol));
+                Assert.assertEquals(message, c[1], evaluate.evaluate(left, evaluate.prepare(right, symbol), symbol));
+            }
+        }
+    }
+
+    private static List<Object> randomList(List<Object> values, Random random) {
+        final List<Object> list = new ArrayList<>();
+        for (int j = random.nextInt(random.nextBoolean() ? 4 : 30); j > 0; j--) {
+            list.add(values.get(random.nextInt(values.size())));
+        }
+        return list;
+    }
+
+    private static String expected(Number left, Number right, Symbol symbol) {
+        try {
+            final int compare = new BigDecimal(String.valueOf(left)).compareTo(new BigDecimal(String.valueOf(right)));
+            switch (symbol) {
+                case number_eq:
+                    return String.valueOf(compare == 0);
+                case number_ne:
+                    return String.valueOf(compare != 0);
+                case number_gt:
+                    return String.valueOf(compare > 0);
+                case number_ge:
+                    return String.valueOf(compare >= 0);
+                case number_lt:
+                    return String.valueOf(compare < 0);
+                default:
+                    return String.valueOf(compare <= 0);
+            }
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private static String actual(NumberEvaluateStrategy strategy, Number left, Object right, Symbol symbol) {
+        try {
+            return String.valueOf(strategy.evaluate(left, right, symbol));
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private static Number randomNumber(Random random) {
+        final long small = random.nextInt(21) - 10;
+        switch (random.nextInt(12)) {
+            case 0:
+                return (int) small;
+            case 1:
+                return random.nextInt();
+            case 2:
+                return random.nextBoolean() ? random.nextLong() : (1L << 53) + small;
+            case 3:
+                return (short) small;
+            case 4:
+                return (byte) small;
+            case 5:
+                return small / 4.0;
+            case 6:
+                return Double.longBitsToDouble(random.nextLong());
+            case 7:
+                return new double[]{0.0, -0.0, 0.1, 1e23, 2e23, 9007199254740993.0, Double.MAX_VALUE, Double.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY}[random.nextInt(10)];
+            case 8:
+                return random.nextBoolean() ? small / 4.0f : Float.intBitsToFloat(random.nextInt());
+            case 9:
+                return new BigDecimal(small).movePointLeft(random.nextInt(3));
+            case 10:
+                return BigInteger.valueOf(small).shiftLeft(random.nextInt(70));
+            default:
+                return new AtomicLong(small);
+        }
+    }
+
+    /**
+     * 相同的值换一种类型，覆盖相等的情况
+     */
+    private static Number copyAs(Number value, Random random) {
+        switch (random.nextInt(5)) {
+            case 0:
+                return value.longValue();
+            case 1:
+                return value.doubleValue();
+            case 2:
+                return value.floatValue();
+            case 3:
+                return value.intValue();
+            default:
+                try {
+                    return new BigDecimal(String.valueOf(value));
+                } catch (NumberFormatException e) {
+                    return value;
+                }
+        }
+    }
+
     private Element getInput1() {
         return new Element(DataTypeEnum.NUMBER, "input1");
     }
@@ -1,19 +1,232 @@
 package com.zjb.ruleengine;
 
+import cn.hutool.core.io.IoUtil;
+import com.google.common.collect.Lists;
+import com.sun.net.httpserver.HttpServer;
+import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.DefaultRuleEngine;
+import com.zjb.ruleengine.core.ExecutionMemo;
+import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.enums.Symbol;
 import com.zjb.ruleengine.core.function.HttpFunction;
+import com.zjb.ruleengine.core.rule.Rule;
+import com.zjb.ruleengine.core.value.Constant;
+import com.zjb.ruleengine.core.value.Element;
+import com.zjb.ruleengine.core.value.Value;
+import com.zjb.ruleengine.core.value.Variable;
+import com.zjb.ruleengine.core.value.VariableFunction;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author 赵静波
  * @date 2020-12-20 18:33:04
  */
 public class HttpObjectFunctionTest {
+    /**
+     * 模拟接口的耗时，毫秒
+     */
+    private static final int DELAY = 300;
+    private static final Map<String, AtomicInteger> CALLS = new ConcurrentHashMap<>();
+    private static volatile String baseUrl = "http://localhost:8080";
+    private static HttpServer server;
+
     @Test
     public void test() {
         final String execute = new DemoHttpFunticonTest().execute("123");
         System.out.println(execute);
     }
 
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            CALLS.computeIfAbsent(exchange.getRequestURI().getPath(), path -> new AtomicInteger()).incrementAndGet();
+            final byte[] body = IoUtil.readBytes(exchange.getRequestBody());
+            try {
+                Thread.sleep(DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void executeAsyncTest() throws Exception {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final ConditionGroup condition = new ConditionGroup(Lists.newArrayList(
+                new DefaultCondition(remote(ruleEngine, FirstHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("123")),
+                new DefaultCondition(remote(ruleEngine, SecondHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("123")),
+                new DefaultCondition(remote(ruleEngine, ThirdHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("123"))));
+        ruleEngine.addRule(new Rule("remote", condition, Constant.stringValue("hit")));
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("param", "123");
+        CALLS.clear();
+
+        final long start = System.nanoTime();
+        final Object result = ruleEngine.executeAsync("remote", context).get(10, TimeUnit.SECONDS);
+        final long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertEquals("hit", result);
+        //三个接口并发调用，耗时小于串行调用
+        Assert.assertTrue("cost " + cost, cost < DELAY * 3);
+        Assert.assertEquals(3, CALLS.size());
+        CALLS.values().forEach(count -> Assert.assertEquals(1, count.get()));
+        Assert.assertNull(context.getMemo());
+
+        //规则在指定的线程池中执行
+        final AtomicInteger executed = new AtomicInteger();
+        final Executor executor = runnable -> {
+            executed.incrementAndGet();
+            ForkJoinPool.commonPool().execute(runnable);
+        };
+        Assert.assertEquals("hit", ruleEngine.executeAsync("remote", context, executor).get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, executed.get());
+    }
+
+    @Test
+    public void executeAsyncWithoutMemoTest() throws Exception {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final ConditionGroup condition = new ConditionGroup(Lists.newArrayList(
+                new DefaultCondition(remote(ruleEngine, FirstHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("123")),
+                new DefaultCondition(remote(ruleEngine, SecondHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("123"))));
+        ruleEngine.addRule(new Rule("remote", condition, Constant.stringValue("hit")));
+        //不支持缓存的上下文
+        final BaseContextImpl context = new BaseContextImpl() {
+            @Override
+            public ExecutionMemo getMemo() {
+                return null;
+            }
+
+            @Override
+            public void setMemo(ExecutionMemo memo) {
+            }
+        };
+        context.put("param", "123");
+        CALLS.clear();
+        Assert.assertEquals("hit", ruleEngine.executeAsync("remote", context).get(10, TimeUnit.SECONDS));
+        //预取的结果没有被丢弃，每个接口只调用一次
+        Assert.assertEquals(2, CALLS.size());
+        CALLS.values().forEach(count -> Assert.assertEquals(1, count.get()));
+    }
+
+    @Test
+    public void prefetchLevelTest() {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final Variable first = remote(ruleEngine, FirstHttpFunction.class, Element.stringValue("param"));
+        //第四个接口的参数为第一个接口的结果
+        final ConditionGroup condition = new ConditionGroup(Lists.newArrayList(
+                new DefaultCondition(first, Symbol.str_eq, Constant.stringValue("123")),
+                new DefaultCondition(remote(ruleEngine, SecondHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("123")),
+                new DefaultCondition(remote(ruleEngine, ThirdHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("123")),
+                new DefaultCondition(remote(ruleEngine, FourthHttpFunction.class, first), Symbol.str_eq, Constant.stringValue("123"))));
+        final Rule rule = new Rule("remote", condition, Constant.stringValue("hit"));
+        ruleEngine.addRule(rule);
+        ruleEngine.setPrefetchRemoteVariables(true);
+        Assert.assertEquals(2, rule.getPrefetcher().getLevelCount());
+        Assert.assertEquals(4, rule.getPrefetcher().getVariableCount());
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("param", "123");
+        CALLS.clear();
+
+        final long start = System.nanoTime();
+        Assert.assertEquals("hit", ruleEngine.execute("remote", context));
+        final long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        //两层依赖，耗时约为两次调用
+        Assert.assertTrue("cost " + cost, cost < DELAY * 4);
+        Assert.assertEquals(4, CALLS.size());
+        CALLS.values().forEach(count -> Assert.assertEquals(1, count.get()));
+        Assert.assertNull(context.getMemo());
+    }
+
+    /**
+     * 默认不预取，条件短路时后面的接口不调用；预取失败时执行不再重新调用
+     */
+    @Test
+    public void prefetchOptInTest() {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final ConditionGroup condition = new ConditionGroup(Lists.newArrayList(
+                new DefaultCondition(remote(ruleEngine, FirstHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("456")),
+                new DefaultCondition(remote(ruleEngine, SecondHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("123"))));
+        ruleEngine.addRule(new Rule("remote", condition, Constant.stringValue("hit")));
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("param", "123");
+        CALLS.clear();
+        ruleEngine.execute("remote", context);
+        Assert.assertEquals(1, CALLS.size());
+        Assert.assertEquals(1, CALLS.get("/first").get());
+
+        ruleEngine.addRule(new Rule("timeout", new DefaultCondition(remote(ruleEngine, TimeoutHttpFunction.class, Element.stringValue("param")),
+                Symbol.str_eq, Constant.stringValue("123")), Constant.stringValue("hit")));
+        ruleEngine.setPrefetchRemoteVariables(true);
+        CALLS.clear();
+        try {
+            ruleEngine.execute("timeout", context);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertEquals(1, CALLS.get("/timeout").get());
+        }
+    }
+
+    /**
+     * 批量、流式执行与单个执行相同，开启后也预取远程变量
+     */
+    @Test
+    public void prefetchBatchTest() {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final ConditionGroup condition = new ConditionGroup(Lists.newArrayList(
+                new DefaultCondition(remote(ruleEngine, FirstHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("456")),
+                new DefaultCondition(remote(ruleEngine, SecondHttpFunction.class, Element.stringValue("param")), Symbol.str_eq, Constant.stringValue("123"))));
+        ruleEngine.addRule(new Rule("remote", condition, Constant.stringValue("hit")));
+        ruleEngine.setPrefetchRemoteVariables(true);
+        final List<BaseContextImpl> contexts = Lists.newArrayList(new BaseContextImpl(), new BaseContextImpl());
+        contexts.forEach(context -> context.put("param", "123"));
+
+        CALLS.clear();
+        ruleEngine.executeBatch("remote", contexts);
+        Assert.assertEquals(2, CALLS.get("/first").get());
+        Assert.assertEquals(2, CALLS.get("/second").get());
+
+        CALLS.clear();
+        ruleEngine.executeStream("remote", contexts.stream()).forEach(result -> {
+        });
+        Assert.assertEquals(2, CALLS.get("/first").get());
+        Assert.assertEquals(2, CALLS.get("/second").get());
+    }
+
+    private Variable remote(DefaultRuleEngine ruleEngine, Class<? extends HttpFunction> functionClass, Value param) {
+        final HttpFunction<?, ?> function = (HttpFunction<?, ?>) ruleEngine.getFunctionBean(functionClass.getSimpleName());
+        final Map<String, Value> parameter = new HashMap<>();
+        parameter.put(function.getParamters().get(0).getName(), param);
+        return Variable.stringValue(new VariableFunction(functionClass.getSimpleName(), parameter, ruleEngine.getFunctionHolder()));
+    }
 
     public static class DemoHttpFunticonTest extends HttpFunction<String, String> {
 
@@ -22,5 +235,44 @@ public class HttpObjectFunctionTest {
             return "http://localhost:8080/test";
         }
     }
-}
 
+    public static class FirstHttpFunction extends HttpFunction<String, String> {
+        @Override
+        protected String getUrl() {
+            return baseUrl + "/first";
+        }
+    }
+
+    public static class SecondHttpFunction extends HttpFunction<String, String> {
+        @Override
+        protected String getUrl() {
+            return baseUrl + "/second";
+        }
+    }
+
+    public static class ThirdHttpFunction extends HttpFunction<String, String> {
+        @Override
+        protected String getUrl() {
+            return baseUrl + "/third";
+        }
+    }
+
+    public static class TimeoutHttpFunction extends HttpFunction<String, String> {
+        @Override
+        protected String getUrl() {
+            return baseUrl + "/timeout";
+        }
+
+        @Override
+        protected int getTimeout() {
+            return DELAY / 3;
+        }
+    }
+
+    public static class FourthHttpFunction extends HttpFunction<String, String> {
+        @Override
+        protected String getUrl() {
+            return baseUrl + "/fourth";
+        }
+    }
+}
@@ -50,6 +50,20 @@ public class SimpleRule extends BaseTest {
         Assert.assertTrue((Boolean) result);
     }
 
+    /**
+     * 直接传入参数，引擎按规则的槽位布局装载参数
+     */
+    @Test
+    public void isAdultWithParameters() {
+        DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        ruleEngine.addRule(getRule());
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put(element_code, 20);
+        Assert.assertTrue((Boolean) ruleEngine.execute(rule_id, parameters));
+        parameters.put(element_code, 17);
+        Assert.assertEquals(ruleEngine.execute(rule_id, parameters), RuleResultEnum.NULL);
+    }
+
     /**
      * 规则测试类（带http函数的规则）
      * 规则：如果 年龄>=法定年龄 就是成年人
@@ -3,10 +3,17 @@ package com.zjb.ruleengine.ruleset;
 import cn.hutool.core.collection.CollUtil;
 import com.google.common.collect.Lists;
 import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.Context;
 import com.zjb.ruleengine.core.condition.AbstractCondition;
 import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.ConditionSet;
 import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.decistion.ConditionOrderReport;
+import com.zjb.ruleengine.core.decistion.EqualityDispatch;
+import com.zjb.ruleengine.core.decistion.RangeDispatch;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.enums.DecisionBackendEnum;
+import com.zjb.ruleengine.core.enums.RuleResultEnum;
 import com.zjb.ruleengine.core.enums.RuleSetExecutePolicyEnum;
 import com.zjb.ruleengine.core.enums.Symbol;
 import com.zjb.ruleengine.core.rule.AbstractRule;
@@ -18,9 +25,15 @@ import com.zjb.ruleengine.core.value.Value;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 /**
  * @author 赵静波
@@ -64,6 +77,329 @@ public class DecisionRuleSetTest {
 
     }
 
+    /**
+     * 数组编码的决策树按规则的顺序返回结果，相同的前缀只有一个节点
+     */
+    @Test
+    public void testDecisionTree() {
+        DecisionRuleSet ruleSet = new DecisionRuleSet("123", getRules());
+        ruleSet.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        ruleSet.build();
+        Assert.assertEquals(10, ruleSet.getDecisionTree().getNodeCount());
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("input1", 111);
+        context.put("input2", 2222);
+        context.put("input3", 33333);
+        Assert.assertEquals(Lists.newArrayList("result1", "result2", "result2", "result2", "result3", "result3", "result5", "result6"), ruleSet.execute(context));
+
+        context.put("input2", 100);
+        Assert.assertEquals(Lists.newArrayList("result1", "result2", "result2", "result2", "result3", "result3"), ruleSet.execute(context));
+        //决策表不并行执行，PARALLEL_ALL按ALL执行
+        ruleSet.setPolicy(RuleSetExecutePolicyEnum.PARALLEL_ALL);
+        Assert.assertEquals(RuleSetExecutePolicyEnum.ALL, ruleSet.getPolicy());
+        Assert.assertEquals(Lists.newArrayList("result1", "result2", "result2", "result2", "result3", "result3"), ruleSet.execute(context));
+        ruleSet.setPolicy(RuleSetExecutePolicyEnum.ONE);
+        Assert.assertEquals("result1", ruleSet.execute(context));
+        context.put("input3", 10);
+        Assert.assertEquals("result1", ruleSet.execute(context));
+        context.put("input1", 0);
+        Assert.assertEquals(RuleResultEnum.NULL, ruleSet.execute(context));
+    }
+
+    /**
+     * 条件超过64个时bitset有多个long，复用时不能读到上一次执行的结果
+     */
+    @Test
+    public void testReuseMemo() {
+        final List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            final List<AbstractCondition> conditions = Lists.newArrayList(
+                    new PlainCondition(Element.numberValue("age"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, i)),
+                    new PlainCondition(Element.numberValue("age"), Symbol.number_le, new Constant(DataTypeEnum.NUMBER, i + 5)));
+            rules.add(new Rule("rule" + i, new ConditionGroup(conditions), getResult("result" + i)));
+        }
+        final DecisionRuleSet ruleSet = new DecisionRuleSet("memo", rules);
+        ruleSet.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        ruleSet.build();
+        Assert.assertTrue(ruleSet.getDecisionTree().getConditionCount() > 128);
+        for (int age : new int[]{140, 3, 70, 150, 0, 200, 70}) {
+            final BaseContextImpl context = new BaseContextImpl();
+            context.put("age", age);
+            final List<Object> expected = new ArrayList<>();
+            for (int i = Math.max(0, age - 5); i <= Math.min(149, age); i++) {
+                expected.add("result" + i);
+            }
+            Assert.assertEquals(expected.isEmpty() ? RuleResultEnum.NULL : expected, ruleSet.execute(context));
+        }
+    }
+
+    /**
+     * 嵌套的ConditionGroup、ConditionSet展开为路径后，ALL的结果与逐个执行规则的条件一致，展开为多条路径的规则只返回一次结果；
+     * ONE不展开，结果与每层进入第一个为true的子节点一致
+     */
+    @Test
+    public void testDnf() {
+        final Random random = new Random(20261020L);
+        final List<AbstractCondition> atoms = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                atoms.add(new DefaultCondition(Element.numberValue("input" + i), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, j * 10)));
+            }
+        }
+        final List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rules.add(new Rule("rule" + i, randomCondition(random, atoms, 3), getResult("result" + i)));
+        }
+        final DecisionRuleSet ruleSet = new DecisionRuleSet("dnf", rules);
+        ruleSet.build();
+        //调整条件顺序时ALL按规则的顺序返回
+        final DecisionRuleSet ordered = new DecisionRuleSet("ordered", rules);
+        ordered.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        ordered.setReorderConditions(true);
+        ordered.build();
+        //相等的条件只保存一次
+        Assert.assertTrue(ruleSet.getDecisionTree().getConditionCount() <= atoms.size() + 1 + rules.size());
+        for (int i = 0; i < 200; i++) {
+            final BaseContextImpl context = new BaseContextImpl();
+            for (int j = 0; j < 3; j++) {
+                context.put("input" + j, random.nextInt(30));
+            }
+            final List<Object> expected = new ArrayList<>();
+            for (Rule rule : rules) {
+                if (rule.getCondition().evaluate(context)) {
+                    expected.add(rule.getAction().getValue(context));
+                }
+            }
+            ruleSet.setPolicy(RuleSetExecutePolicyEnum.ALL);
+            final Object all = ruleSet.execute(context);
+            final List<Object> actual = all == RuleResultEnum.NULL ? new ArrayList<>() : new ArrayList<>((Collection<?>) all);
+            //不调整条件顺序时按深度优先经过叶子节点的顺序返回
+            Assert.assertEquals(sorted(expected), sorted(actual));
+            final Object orderedAll = ordered.execute(context);
+            Assert.assertEquals(expected, orderedAll == RuleResultEnum.NULL ? new ArrayList<>() : orderedAll);
+            ruleSet.setPolicy(RuleSetExecutePolicyEnum.ONE);
+            Assert.assertEquals(expectedOne(rules, context), ruleSet.execute(context));
+        }
+    }
+
+    /**
+     * ONE时展开条件会让共享前缀的规则先到达；ALL时结果相等的不同规则都返回
+     */
+    @Test
+    public void testDnfResultPerRule() {
+        final AbstractCondition p = new DefaultCondition(Element.numberValue("p"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1));
+        final AbstractCondition q = new DefaultCondition(Element.numberValue("q"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1));
+        final AbstractCondition r = new DefaultCondition(Element.numberValue("r"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1));
+        final AbstractCondition s = new DefaultCondition(Element.numberValue("s"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1));
+        final Rule a = new Rule("a", new ConditionSet(Lists.newArrayList(new ConditionGroup(Lists.newArrayList(p, q)), r)), getResult("A"));
+        final Rule b = new Rule("b", new ConditionGroup(Lists.newArrayList(p, s)), getResult("B"));
+        final DecisionRuleSet ruleSet = new DecisionRuleSet("one", Lists.newArrayList(a, b));
+        ruleSet.build();
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("p", 1);
+        context.put("q", 0);
+        context.put("r", 1);
+        context.put("s", 1);
+        Assert.assertEquals("A", ruleSet.execute(context));
+        ruleSet.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        //深度优先：p→s（B）在r（A）之前
+        Assert.assertEquals(Lists.newArrayList("B", "A"), ruleSet.execute(context));
+
+        final Rule x = new Rule("x", new ConditionSet(Lists.newArrayList(p, r)), getResult("R"));
+        final Rule y = new Rule("y", r, getResult("R"));
+        final DecisionRuleSet sameResult = new DecisionRuleSet("all", Lists.newArrayList(x, y));
+        sameResult.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        sameResult.build();
+        Assert.assertEquals(Lists.newArrayList("R", "R"), sameResult.execute(context));
+    }
+
+    /**
+     * 不展开条件的决策树执行ONE的结果：ConditionGroup的每个条件为一个节点，每层进入第一个为true的子节点，到达叶子节点时返回第一个规则的结果
+     */
+    private Object expectedOne(List<Rule> rules, Context context) {
+        final List<List<AbstractCondition>> paths = new ArrayList<>();
+        for (Rule rule : rules) {
+            final AbstractCondition condition = rule.getCondition();
+            paths.add(condition instanceof ConditionGroup ? ((ConditionGroup) condition).getConditions() : Collections.singletonList(condition));
+        }
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            candidates.add(i);
+        }
+        for (int depth = 0; ; depth++) {
+            for (int i : candidates) {
+                if (paths.get(i).size() == depth) {
+                    return rules.get(i).getAction().getValue(context);
+                }
+            }
+            final int level = depth;
+            final List<AbstractCondition> children = candidates.stream().map(i -> paths.get(i).get(level)).distinct().collect(Collectors.toList());
+            final AbstractCondition matched = children.stream().filter(child -> child.evaluate(context)).findFirst().orElse(null);
+            if (matched == null) {
+                return RuleResultEnum.NULL;
+            }
+            candidates = candidates.stream().filter(i -> paths.get(i).get(level).equals(matched)).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 基数小的列调整到前面后节点更少，ALL的结果及顺序不变；ONE时不调整
+     */
+    @Test
+    public void testReorderConditions() {
+        final List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final List<AbstractCondition> conditions = Lists.newArrayList(
+                    new PlainCondition(Element.numberValue("id"), Symbol.number_eq, new Constant(DataTypeEnum.NUMBER, i)),
+                    new PlainCondition(Element.booleanValue("vip"), Symbol.boolean_eq, new Constant(DataTypeEnum.BOOLEAN, i % 2 == 0)));
+            rules.add(new Rule("rule" + i, new ConditionGroup(conditions), getResult("result" + i)));
+        }
+        final DecisionRuleSet reference = new DecisionRuleSet("reference", rules);
+        reference.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        reference.build();
+        final DecisionRuleSet reordered = new DecisionRuleSet("reordered", rules);
+        reordered.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        reordered.setReorderConditions(true);
+        reordered.build();
+
+        final ConditionOrderReport report = reordered.getConditionOrderReport();
+        Assert.assertTrue(report.isApplied());
+        Assert.assertEquals(reference.getDecisionTree().getNodeCount(), report.getOriginalNodeCount());
+        Assert.assertEquals(reordered.getDecisionTree().getNodeCount(), report.getNodeCount());
+        Assert.assertTrue(report.getNodeCount() < report.getOriginalNodeCount());
+        Assert.assertTrue(report.getCost() < report.getOriginalCost());
+        for (int i = 0; i < 110; i += 3) {
+            final BaseContextImpl context = new BaseContextImpl();
+            context.put("id", i);
+            context.put("vip", i % 3 == 0);
+            Assert.assertEquals(reference.execute(context), reordered.execute(context));
+        }
+
+        reordered.setPolicy(RuleSetExecutePolicyEnum.ONE);
+        Assert.assertNull(reordered.getConditionOrderReport());
+        Assert.assertEquals(reference.getDecisionTree().getNodeCount(), reordered.getDecisionTree().getNodeCount());
+
+        //多个规则满足时，调整后按规则的顺序返回
+        final List<Rule> ordered = Lists.newArrayList(
+                new Rule("A", new ConditionGroup(Lists.newArrayList(
+                        new PlainCondition(Element.numberValue("a"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1)),
+                        new PlainCondition(Element.numberValue("b"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1)))), getResult("A")),
+                new Rule("B", new ConditionGroup(Lists.newArrayList(
+                        new PlainCondition(Element.numberValue("a"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 2)),
+                        new PlainCondition(Element.numberValue("b"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 0)))), getResult("B")),
+                new Rule("C", new ConditionGroup(Lists.newArrayList(
+                        new PlainCondition(Element.numberValue("a"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 3)),
+                        new PlainCondition(Element.numberValue("b"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1)))), getResult("C")));
+        final DecisionRuleSet orderedSet = new DecisionRuleSet("ordered", ordered);
+        orderedSet.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        orderedSet.setReorderConditions(true);
+        orderedSet.build();
+        Assert.assertTrue(orderedSet.getConditionOrderReport().isApplied());
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("a", 5);
+        context.put("b", 5);
+        Assert.assertEquals(Lists.newArrayList("A", "B", "C"), orderedSet.execute(context));
+    }
+
+    /**
+     * 不调整条件顺序时，ALL按深度优先经过叶子节点的顺序返回（决策树、决策图相同），调整时按规则的顺序返回
+     */
+    @Test
+    public void testAllOrder() {
+        final AbstractCondition a = new PlainCondition(Element.numberValue("a"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1));
+        final List<Rule> rules = Lists.newArrayList(
+                new Rule("A", new ConditionGroup(Lists.newArrayList(a,
+                        new PlainCondition(Element.numberValue("b"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1)))), getResult("A")),
+                new Rule("B", new PlainCondition(Element.numberValue("c"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1)), getResult("B")),
+                new Rule("C", new ConditionGroup(Lists.newArrayList(a,
+                        new PlainCondition(Element.numberValue("d"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 1)))), getResult("C")));
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("a", 1);
+        context.put("b", 1);
+        context.put("c", 1);
+        context.put("d", 1);
+        for (DecisionBackendEnum backend : DecisionBackendEnum.values()) {
+            final DecisionRuleSet ruleSet = new DecisionRuleSet("order", rules);
+            ruleSet.setPolicy(RuleSetExecutePolicyEnum.ALL);
+            ruleSet.setBackend(backend);
+            ruleSet.build();
+            Assert.assertEquals(Lists.newArrayList("A", "C", "B"), ruleSet.execute(context));
+            ruleSet.setReorderConditions(true);
+            ruleSet.build();
+            Assert.assertEquals(Lists.newArrayList("A", "B", "C"), ruleSet.execute(context));
+        }
+    }
+
+    private static List<String> sorted(List<Object> values) {
+        return values.stream().map(String::valueOf).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * 决策图与决策树的执行结果相同（包括ALL的顺序），每个条件最多执行一次
+     */
+    @Test
+    public void testDecisionDiagram() {
+        final Random random = new Random(20261021L);
+        final Map<AbstractCondition, Integer> counter = new HashMap<>();
+        final List<AbstractCondition> atoms = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 4; j++) {
+                atoms.add(new CountingCondition(counter, Element.numberValue("input" + i), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, j * 10)));
+            }
+        }
+        final List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            rules.add(new Rule("rule" + i, randomCondition(random, atoms, 3), getResult("result" + i % 20)));
+        }
+        for (RuleSetExecutePolicyEnum policy : new RuleSetExecutePolicyEnum[]{RuleSetExecutePolicyEnum.ONE, RuleSetExecutePolicyEnum.ALL}) {
+            final DecisionRuleSet tree = new DecisionRuleSet("tree", rules);
+            tree.setPolicy(policy);
+            tree.build();
+            final DecisionRuleSet diagram = new DecisionRuleSet("diagram", rules);
+            diagram.setPolicy(policy);
+            diagram.setBackend(DecisionBackendEnum.DIAGRAM);
+            diagram.build();
+            Assert.assertNotNull(diagram.getDecisionDiagram());
+            for (int i = 0; i < 300; i++) {
+                final BaseContextImpl context = new BaseContextImpl();
+                for (int j = 0; j < 3; j++) {
+                    context.put("input" + j, random.nextInt(40));
+                }
+                final Object expected = tree.execute(context);
+                counter.clear();
+                Assert.assertEquals(expected, diagram.execute(context));
+                Assert.assertTrue(counter.values().stream().allMatch(count -> count == 1));
+            }
+        }
+    }
+
+    public static class CountingCondition extends DefaultCondition {
+        private final transient Map<AbstractCondition, Integer> counter;
+
+        public CountingCondition(Map<AbstractCondition, Integer> counter, Value leftValue, Symbol symbol, Value rightValue) {
+            super(leftValue, symbol, rightValue);
+            this.counter = counter;
+        }
+
+        @Override
+        public boolean evaluate(Context context) {
+            counter.merge(this, 1, Integer::sum);
+            return super.evaluate(context);
+        }
+    }
+
+    private AbstractCondition randomCondition(Random random, List<AbstractCondition> atoms, int depth) {
+        if (depth == 0 || random.nextInt(3) == 0) {
+            return atoms.get(random.nextInt(atoms.size()));
+        }
+        final List<AbstractCondition> children = new ArrayList<>();
+        final int size = 1 + random.nextInt(3);
+        for (int i = 0; i < size; i++) {
+            children.add(randomCondition(random, atoms, depth - 1));
+        }
+        return random.nextBoolean() ? new ConditionGroup(children) : new ConditionSet(children);
+    }
+
     private Element getInput1() {
         return new Element(DataTypeEnum.NUMBER, "input1");
     }
@@ -162,4 +498,136 @@ public class DecisionRuleSetTest {
         return rules;
 
     }
+
+    /**
+     * 等值子节点建立hash索引后，与逐个执行条件的结果一致
+     */
+    @Test
+    public void testEqualityDispatch() {
+        final Random random = new Random(20261018L);
+        for (int i = 0; i < 20; i++) {
+            final long seed = random.nextLong();
+            final int ruleCount = 20 + random.nextInt(200);
+            final DecisionRuleSet indexed = new DecisionRuleSet("indexed", dispatchRules(new Random(seed), ruleCount, ""));
+            //不是DefaultCondition的条件不建立索引
+            final DecisionRuleSet reference = new DecisionRuleSet("reference", dispatchRules(new Random(seed), ruleCount, "ref_"));
+            indexed.build();
+            reference.build();
+            Assert.assertTrue(indexed.getDecisionTree().getDispatches().stream().anyMatch(segment -> segment instanceof EqualityDispatch));
+            Assert.assertTrue(reference.getDecisionTree().getDispatches().isEmpty());
+            for (int j = 0; j < 200; j++) {
+                final BaseContextImpl context = new BaseContextImpl();
+                final String province = "province" + random.nextInt(40);
+                final int amount = random.nextInt(12);
+                final boolean vip = random.nextBoolean();
+                //数字按值比较，5与5.0相等
+                final Object amountValue = random.nextBoolean() ? amount : (Object) (double) amount;
+                context.put("province", province);
+                context.put("ref_province", province);
+                context.put("amount", amountValue);
+                context.put("ref_amount", amountValue);
+                context.put("vip", vip);
+                context.put("ref_vip", vip);
+                for (RuleSetExecutePolicyEnum policy : new RuleSetExecutePolicyEnum[]{RuleSetExecutePolicyEnum.ONE, RuleSetExecutePolicyEnum.ALL}) {
+                    indexed.setPolicy(policy);
+                    reference.setPolicy(policy);
+                    Assert.assertEquals(reference.execute(context), indexed.execute(context));
+                }
+            }
+        }
+    }
+
+    /**
+     * 数字比较的子节点建立区间索引后，与逐个执行条件的结果一致
+     */
+    @Test
+    public void testRangeDispatch() {
+        final Random random = new Random(20261019L);
+        final Symbol[] symbols = {Symbol.number_gt, Symbol.number_ge, Symbol.number_lt, Symbol.number_le, Symbol.number_eq, Symbol.number_ne};
+        for (int i = 0; i < 20; i++) {
+            final long seed = random.nextLong();
+            final int ruleCount = 10 + random.nextInt(100);
+            final List<List<Rule>> ruleSets = new ArrayList<>(2);
+            for (String prefix : new String[]{"", "ref_"}) {
+                final Random ruleRandom = new Random(seed);
+                final List<Rule> rules = new ArrayList<>(ruleCount);
+                for (int j = 0; j < ruleCount; j++) {
+                    final List<AbstractCondition> conditions = new ArrayList<>();
+                    conditions.add(dispatchCondition(prefix, Element.numberValue(prefix + "age"), symbols[ruleRandom.nextInt(symbols.length)], new Constant(DataTypeEnum.NUMBER, randomNumber(ruleRandom))));
+                    conditions.add(dispatchCondition(prefix, Element.numberValue(prefix + "age"), symbols[ruleRandom.nextInt(symbols.length)], new Constant(DataTypeEnum.NUMBER, randomNumber(ruleRandom))));
+                    rules.add(new Rule(prefix + "rule" + j, new ConditionGroup(conditions), getResult("result" + j)));
+                }
+                ruleSets.add(rules);
+            }
+            final DecisionRuleSet indexed = new DecisionRuleSet("indexed", ruleSets.get(0));
+            final DecisionRuleSet reference = new DecisionRuleSet("reference", ruleSets.get(1));
+            indexed.build();
+            reference.build();
+            Assert.assertTrue(indexed.getDecisionTree().getDispatches().stream().anyMatch(segment -> segment instanceof RangeDispatch));
+            for (int j = 0; j < 200; j++) {
+                final BaseContextImpl context = new BaseContextImpl();
+                final Object age = randomNumber(random);
+                context.put("age", age);
+                context.put("ref_age", age);
+                for (RuleSetExecutePolicyEnum policy : new RuleSetExecutePolicyEnum[]{RuleSetExecutePolicyEnum.ONE, RuleSetExecutePolicyEnum.ALL}) {
+                    indexed.setPolicy(policy);
+                    reference.setPolicy(policy);
+                    Assert.assertEquals(String.valueOf(age), reference.execute(context), indexed.execute(context));
+                }
+            }
+        }
+    }
+
+    /**
+     * 各种类型的数字，包括不能精确转换为double的数字
+     */
+    private Number randomNumber(Random random) {
+        final int value = random.nextInt(20) - 5;
+        switch (random.nextInt(7)) {
+            case 0:
+                return value;
+            case 1:
+                return (long) value;
+            case 2:
+                return value / 2.0;
+            case 3:
+                return (float) (value / 10.0);
+            case 4:
+                return value / 10.0;
+            case 5:
+                return new BigDecimal(value).movePointLeft(1);
+            default:
+                return (1L << 60) + value;
+        }
+    }
+
+    private List<Rule> dispatchRules(Random random, int count, String prefix) {
+        final List<Rule> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final List<AbstractCondition> conditions = new ArrayList<>();
+            conditions.add(dispatchCondition(prefix, Element.stringValue(prefix + "province"), Symbol.str_eq, Constant.stringValue("province" + random.nextInt(40))));
+            if (random.nextInt(4) == 0) {
+                //等值条件中间插入其它条件
+                conditions.add(dispatchCondition(prefix, Element.numberValue(prefix + "amount"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, random.nextInt(12))));
+            } else {
+                final Number amount = random.nextBoolean() ? (Number) random.nextInt(12) : (Number) (random.nextInt(12) + 0.0);
+                conditions.add(dispatchCondition(prefix, Element.numberValue(prefix + "amount"), Symbol.number_eq, new Constant(DataTypeEnum.NUMBER, amount)));
+            }
+            if (random.nextBoolean()) {
+                conditions.add(dispatchCondition(prefix, Element.booleanValue(prefix + "vip"), Symbol.boolean_eq, Constant.booleanValue(random.nextBoolean())));
+            }
+            rules.add(new Rule(prefix + "rule" + i, new ConditionGroup(conditions), getResult("result" + i)));
+        }
+        return rules;
+    }
+
+    private DefaultCondition dispatchCondition(String prefix, Value left, Symbol symbol, Value right) {
+        return prefix.isEmpty() ? new DefaultCondition(left, symbol, right) : new PlainCondition(left, symbol, right);
+    }
+
+    public static class PlainCondition extends DefaultCondition {
+        public PlainCondition(Value leftValue, Symbol symbol, Value rightValue) {
+            super(leftValue, symbol, rightValue);
+        }
+    }
 }
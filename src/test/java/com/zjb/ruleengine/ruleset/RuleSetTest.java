@@ -2,10 +2,15 @@ package com.zjb.ruleengine.ruleset;
 
 import com.google.common.collect.Lists;
 import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.Context;
 import com.zjb.ruleengine.core.DefaultRuleEngine;
 import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.ConditionInterner;
 import com.zjb.ruleengine.core.condition.DefaultCondition;
+import com.zjb.ruleengine.core.config.PostProcessor;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.enums.RuleResultEnum;
+import com.zjb.ruleengine.core.enums.RuleSetExecutePolicyEnum;
 import com.zjb.ruleengine.core.enums.Symbol;
 import com.zjb.ruleengine.core.rule.AbstractRule;
 import com.zjb.ruleengine.core.rule.ActionRule;
@@ -17,7 +22,16 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * @author 赵静波
@@ -73,6 +87,331 @@ public class RuleSetTest {
 
     }
 
+    /**
+     * 批量执行的结果与逐个执行一致，并且按上下文顺序排列
+     */
+    @Test
+    public void executeBatchTest() {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final ActionRule unFood = new ActionRule("unFood", new Constant(DataTypeEnum.STRING, this.unFood));
+        ruleEngine.addRule(new RuleSet(rule_id, Lists.newArrayList(breakfast(), lunch(), dinner(), unFood)));
+        final List<Context> contexts = new ArrayList<>();
+        final List<Object> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            final BaseContextImpl context = new BaseContextImpl();
+            context.put("time", LocalTime.of(i % 24, i % 60).toSecondOfDay());
+            contexts.add(context);
+            expected.add(ruleEngine.execute(rule_id, context));
+        }
+        Assert.assertEquals(expected, ruleEngine.executeBatch(rule_id, contexts));
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            Assert.assertEquals(expected, ruleEngine.executeBatch(rule_id, contexts, forkJoinPool));
+        } finally {
+            forkJoinPool.shutdown();
+        }
+        Assert.assertEquals(expected, ruleEngine.executeStream(rule_id, contexts.parallelStream()).collect(Collectors.toList()));
+    }
+
+    /**
+     * 多个规则共享的条件在一次执行中只执行一次
+     */
+    @Test
+    public void sharedConditionTest() {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final List<AbstractRule> rules = Lists.newArrayList();
+        for (String city : Lists.newArrayList("北京", "上海", "深圳")) {
+            final DefaultCondition adult = new DefaultCondition(Element.numberValue("age"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 18));
+            final DefaultCondition cityCon = new DefaultCondition(Element.stringValue("city"), Symbol.str_eq, Constant.stringValue(city));
+            rules.add(new Rule(city, new ConditionGroup(Lists.newArrayList(adult, cityCon)), Constant.stringValue(city)));
+        }
+        final RuleSet ruleSet = new RuleSet("city", rules);
+        ruleSet.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        ruleEngine.addRule(ruleSet);
+        //1个age>=18，3个city条件，3个条件组
+        Assert.assertEquals(7, ruleEngine.getConditionDag().getNodeCount());
+
+        final AtomicInteger ageCount = new AtomicInteger();
+        final BaseContextImpl context = new BaseContextImpl() {
+            @Override
+            public <T> T get(String name) {
+                if ("age".equals(name)) {
+                    ageCount.incrementAndGet();
+                }
+                return super.get(name);
+            }
+        };
+        context.put("age", 20);
+        context.put("city", "上海");
+        Assert.assertEquals(Lists.newArrayList("上海"), ruleEngine.execute("city", context));
+        Assert.assertEquals(1, ageCount.get());
+        context.put("age", 10);
+        Assert.assertEquals(RuleResultEnum.NULL, ruleEngine.execute("city", context));
+        Assert.assertEquals(2, ageCount.get());
+
+        //每次执行的结果数组按规则的条件数量创建，与DAG中条件的总数无关
+        Assert.assertEquals(7, ruleSet.getNodeSlots().size());
+        addCityRules(ruleEngine);
+        Assert.assertEquals(7, ruleSet.getNodeSlots().size());
+        Assert.assertEquals(3, ruleSet.getRules().get(0).getNodeSlots().size());
+    }
+
+    @Test
+    public void sharedConditionProcessorTest() {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final List<AbstractRule> rules = Lists.newArrayList();
+        for (int i = 0; i < 2; i++) {
+            final DefaultCondition adult = new DefaultCondition(Element.numberValue("age"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 18));
+            rules.add(new Rule("adult" + i, adult, Constant.stringValue("adult" + i)));
+        }
+        //第二个规则的处理器修改了上下文，共享的条件重新执行
+        rules.get(1).addPostProcessor(new PostProcessor() {
+            @Override
+            public void postProcessorBeforeActionExecute(AbstractRule abstractRule, Context context) {
+                context.put("age", 10);
+            }
+
+            @Override
+            public Object afterProcessorBeforeActionExecute(AbstractRule abstractRule, Context context, Object actionValue) {
+                return actionValue;
+            }
+        });
+        final RuleSet ruleSet = new RuleSet("adult", rules);
+        ruleSet.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        ruleEngine.addRule(ruleSet);
+
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("age", 20);
+        Assert.assertEquals(Lists.newArrayList("adult0"), ruleEngine.execute("adult", context));
+    }
+
+    @Test
+    public void internerReleaseTest() throws InterruptedException {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final ConditionInterner interner = ruleEngine.getConditionDag().getInterner();
+        addCityRules(ruleEngine);
+        Assert.assertTrue(interner.size() > 0);
+        Assert.assertTrue(interner.getHitCount() > 0);
+        final int nodeCount = ruleEngine.getConditionDag().getNodeCount();
+        Assert.assertEquals(nodeCount, ruleEngine.getConditionDag().getLiveNodeCount());
+
+        ruleEngine.removeRule("city0");
+        ruleEngine.removeRule("city1");
+        for (int i = 0; i < 50 && interner.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        //规则删除后条件、值被回收
+        Assert.assertEquals(0, interner.size());
+        Assert.assertEquals(0, ruleEngine.getConditionDag().getLiveNodeCount());
+
+        //重新注册时复用编号
+        addCityRules(ruleEngine);
+        Assert.assertEquals(nodeCount, ruleEngine.getConditionDag().getNodeCount());
+    }
+
+    private void addCityRules(DefaultRuleEngine ruleEngine) {
+        for (int i = 0; i < 2; i++) {
+            final List<AbstractRule> rules = Lists.newArrayList();
+            for (String city : Lists.newArrayList("北京", "上海", "深圳")) {
+                final DefaultCondition adult = new DefaultCondition(Element.numberValue("age"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 18));
+                final DefaultCondition cityCon = new DefaultCondition(Element.stringValue("city"), Symbol.str_eq, Constant.stringValue(city));
+                rules.add(new Rule(city, new ConditionGroup(Lists.newArrayList(adult, cityCon)), Constant.stringValue(city)));
+            }
+            ruleEngine.addRule(new RuleSet("city" + i, rules));
+        }
+    }
+
+    @Test
+    public void stringPatternIndexTest() {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        final String[] patterns = {"", "http", "https://", "https://a", ".com", "/index.html", "html", "b.com/x"};
+        final Symbol[] symbols = {Symbol.str_start_with, Symbol.str_not_start_with, Symbol.str_end_with, Symbol.str_not_end_with};
+        final List<AbstractRule> rules = Lists.newArrayList();
+        final List<DefaultCondition> conditions = Lists.newArrayList();
+        for (String pattern : patterns) {
+            for (Symbol symbol : symbols) {
+                final DefaultCondition condition = new DefaultCondition(Element.stringValue("url"), symbol, Constant.stringValue(pattern));
+                conditions.add(condition);
+                rules.add(new Rule(symbol + ":" + pattern, condition, Constant.stringValue(symbol + ":" + pattern)));
+            }
+        }
+        final RuleSet ruleSet = new RuleSet("url", rules);
+        ruleSet.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        ruleSet.build();
+        ruleEngine.addRule(ruleSet);
+        Assert.assertTrue(conditions.stream().allMatch(condition -> condition.getPatternIndex() != null));
+
+        final AtomicInteger urlCount = new AtomicInteger();
+        final BaseContextImpl context = new BaseContextImpl() {
+            @Override
+            public <T> T get(String name) {
+                if ("url".equals(name)) {
+                    urlCount.incrementAndGet();
+                }
+                return super.get(name);
+            }
+        };
+        for (String url : Lists.newArrayList("https://a.com/index.html", "http://b.com/x", "ftp://c", "")) {
+            final List<Object> expected = new ArrayList<>();
+            for (String pattern : patterns) {
+                for (Symbol symbol : symbols) {
+                    final boolean prefix = symbol == Symbol.str_start_with || symbol == Symbol.str_not_start_with;
+                    final boolean negative = symbol == Symbol.str_not_start_with || symbol == Symbol.str_not_end_with;
+                    if (negative != (prefix ? url.startsWith(pattern) : url.endsWith(pattern))) {
+                        expected.add(symbol + ":" + pattern);
+                    }
+                }
+            }
+            context.put("url", url);
+            urlCount.set(0);
+            final Object result = ruleEngine.execute("url", context);
+            Assert.assertEquals(url, expected.stream().sorted().collect(Collectors.toList()),
+                    ((List<Object>) result).stream().map(String::valueOf).sorted().collect(Collectors.toList()));
+            //一次执行中左值只获取一次
+            Assert.assertEquals(1, urlCount.get());
+        }
+    }
+
+    @Test
+    public void parallelAllTest() {
+        final List<AbstractRule> rules = Lists.newArrayList();
+        for (int i = 0; i < 300; i++) {
+            final DefaultCondition condition = new DefaultCondition(Element.numberValue("age"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, i % 100));
+            rules.add(new Rule("age" + i, condition, Constant.stringValue("age" + i)));
+        }
+        //最后一个片段中的规则修改上下文，执行结束后写回
+        rules.get(299).addPostProcessor(new PostProcessor() {
+            @Override
+            public void postProcessorBeforeActionExecute(AbstractRule abstractRule, Context context) {
+                context.put("last", abstractRule.getId());
+            }
+
+            @Override
+            public Object afterProcessorBeforeActionExecute(AbstractRule abstractRule, Context context, Object actionValue) {
+                return actionValue;
+            }
+        });
+        final RuleSet all = new RuleSet("all", rules);
+        all.setPolicy(RuleSetExecutePolicyEnum.ALL);
+        all.build();
+        final RuleSet parallel = new RuleSet("parallel", rules);
+        parallel.setPolicy(RuleSetExecutePolicyEnum.PARALLEL_ALL);
+        final AtomicInteger submitted = new AtomicInteger();
+        parallel.setParallelExecutor(command -> {
+            submitted.incrementAndGet();
+            ForkJoinPool.commonPool().execute(command);
+        });
+        parallel.build();
+
+        for (int age : new int[]{0, 50, 99, 120}) {
+            final BaseContextImpl context = new BaseContextImpl();
+            context.put("age", age);
+            Assert.assertEquals(all.execute(context), parallel.execute(context));
+            context.remove("last");
+            parallel.execute(context);
+            Assert.assertEquals("age299", context.get("last"));
+        }
+        Assert.assertTrue(submitted.get() > 0);
+
+        //规则较少时按顺序执行，ActionRule的weight不会使规则集并行执行
+        final RuleSet small = new RuleSet("small", Lists.newArrayList(breakfast(), lunch(), dinner(), new ActionRule("unFood", Constant.stringValue(unFood))));
+        small.setPolicy(RuleSetExecutePolicyEnum.PARALLEL_ALL);
+        small.setParallelExecutor(command -> Assert.fail());
+        small.build();
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("time", LocalTime.of(12, 30).toSecondOfDay());
+        Assert.assertEquals(Lists.newArrayList(lunch, unFood), small.execute(context));
+    }
+
+    @Test
+    public void speculativeOneTest() {
+        final List<AbstractRule> rules = Lists.newArrayList();
+        for (int i = 0; i < 20; i++) {
+            //第一个满足的规则是age20-age
+            final DefaultCondition condition = new DefaultCondition(Element.numberValue("age"), Symbol.number_ge, new Constant(DataTypeEnum.NUMBER, 20 - i));
+            rules.add(new Rule("age" + i, condition, Constant.stringValue("age" + i)));
+        }
+        final RuleSet one = new RuleSet("one", rules);
+        one.build();
+        final RuleSet speculative = new RuleSet("speculative", rules);
+        speculative.setSpeculativeWindow(4);
+        final AtomicInteger submitted = new AtomicInteger();
+        speculative.setParallelExecutor(command -> {
+            submitted.incrementAndGet();
+            ForkJoinPool.commonPool().execute(command);
+        });
+        speculative.build();
+
+        for (int age = -1; age <= 21; age++) {
+            final BaseContextImpl context = new BaseContextImpl();
+            context.put("age", age);
+            Assert.assertEquals(one.execute(context), speculative.execute(context));
+        }
+        Assert.assertTrue(submitted.get() > 0);
+    }
+
+    @Test
+    public void speculativeCommitTest() throws InterruptedException {
+        final CountDownLatch loserStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean loserFinished = new AtomicBoolean();
+        final AbstractRule winner = new ActionRule("winner", Constant.stringValue("winner"));
+        winner.addPostProcessor(new PostProcessor() {
+            @Override
+            public void postProcessorBeforeActionExecute(AbstractRule abstractRule, Context context) {
+                try {
+                    loserStarted.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                context.put("winner", true);
+            }
+
+            @Override
+            public Object afterProcessorBeforeActionExecute(AbstractRule abstractRule, Context context, Object actionValue) {
+                return actionValue;
+            }
+        });
+        final AbstractRule loser = new ActionRule("loser", Constant.stringValue("loser"));
+        loser.addPostProcessor(new PostProcessor() {
+            @Override
+            public void postProcessorBeforeActionExecute(AbstractRule abstractRule, Context context) {
+                loserStarted.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                loserFinished.set(true);
+                context.put("loser", true);
+            }
+
+            @Override
+            public Object afterProcessorBeforeActionExecute(AbstractRule abstractRule, Context context, Object actionValue) {
+                return actionValue;
+            }
+        });
+        final RuleSet speculative = new RuleSet("speculative", Lists.newArrayList(winner, loser));
+        speculative.setSpeculativeWindow(2);
+        speculative.setParallelExecutor(command -> new Thread(command).start());
+        speculative.build();
+
+        final BaseContextImpl context = new BaseContextImpl();
+        final CompletableFuture<Object> result = CompletableFuture.supplyAsync(() -> speculative.execute(context), command -> new Thread(command).start());
+        loserStarted.await(10, TimeUnit.SECONDS);
+        //还在执行的规则读取上下文期间，上下文不被修改，执行不返回
+        Thread.sleep(100);
+        Assert.assertFalse(result.isDone());
+        Assert.assertFalse(context.contain("winner"));
+        release.countDown();
+        Assert.assertEquals("winner", result.join());
+        //返回时已开始执行的规则都已结束，只写回确定的规则的修改
+        Assert.assertTrue(loserFinished.get());
+        Assert.assertEquals(Boolean.TRUE, context.get("winner"));
+        Assert.assertFalse(context.contain("loser"));
+    }
+
     /**
      * '
      * 早餐
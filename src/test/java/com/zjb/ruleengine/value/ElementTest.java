@@ -1,11 +1,21 @@
 package com.zjb.ruleengine.value;
 
+import com.google.common.collect.Lists;
 import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.DefaultRuleEngine;
+import com.zjb.ruleengine.core.ElementLayout;
+import com.zjb.ruleengine.core.IndexedContext;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.rule.Rule;
+import com.zjb.ruleengine.core.value.Constant;
 import com.zjb.ruleengine.core.value.Element;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author 赵静波
  * Created on 2021-01-22
@@ -22,4 +32,54 @@ public class ElementTest {
         final Object value = element.getValue(context);
         Assert.assertEquals(value, true);
     }
+
+    /**
+     * 按槽位取值，布局之外的参数依然可以通过code获取
+     */
+    @Test
+    public void indexedElement() {
+        final Element element = new Element(DataTypeEnum.NUMBER, ELEMENT);
+        final Element other = new Element(DataTypeEnum.NUMBER, "other");
+        final ElementLayout layout = ElementLayout.of(Lists.newArrayList(element, other));
+        final IndexedContext context = layout.newContext();
+        context.put(ELEMENT, 1);
+        context.put("other", 2);
+        context.put("extra", 3);
+        Assert.assertEquals(element.getValue(context), 1);
+        Assert.assertEquals(other.getValue(context), 2);
+        Assert.assertEquals(new Element(DataTypeEnum.NUMBER, "extra").getValue(context), 3);
+        Assert.assertEquals(context.size(), 3);
+        Assert.assertTrue(context.renameKey(ELEMENT, "renamed"));
+        Assert.assertFalse(context.contain(ELEMENT));
+        Assert.assertEquals(context.getItemMap().get("renamed"), 1);
+    }
+
+    /**
+     * 多个规则共享同一个元素时，每个规则的上下文都按槽位取值，删除规则后其它规则不受影响
+     */
+    @Test
+    public void sharedElementLayout() {
+        final DefaultRuleEngine ruleEngine = new DefaultRuleEngine();
+        for (String id : Lists.newArrayList("first", "second")) {
+            final Element age = new Element(DataTypeEnum.NUMBER, "age");
+            final Element other = new Element(DataTypeEnum.NUMBER, id);
+            final DefaultCondition condition = new DefaultCondition(age, Symbol.number_ge, other);
+            ruleEngine.addRule(new Rule(id, condition, Constant.stringValue(id)));
+        }
+        final AtomicInteger lookups = new AtomicInteger();
+        for (String id : Lists.newArrayList("first", "second", "second")) {
+            final IndexedContext context = new IndexedContext(ruleEngine.getRule(id).getElementLayout()) {
+                @Override
+                public <T> T get(String name) {
+                    lookups.incrementAndGet();
+                    return super.get(name);
+                }
+            };
+            context.put("age", 20);
+            context.put(id, 18);
+            Assert.assertEquals(id, ruleEngine.execute(id, context));
+            ruleEngine.removeRule("first");
+        }
+        Assert.assertEquals(0, lookups.get());
+    }
 }
@@ -1,16 +1,25 @@
 package com.zjb.ruleengine.value;
 
-import cn.hutool.core.lang.Func;
+import com.google.common.collect.Lists;
 import com.zjb.ruleengine.core.BaseContextImpl;
+import com.zjb.ruleengine.core.condition.ConditionGroup;
+import com.zjb.ruleengine.core.condition.DefaultCondition;
 import com.zjb.ruleengine.core.config.FunctionHolder;
 import com.zjb.ruleengine.core.enums.DataTypeEnum;
+import com.zjb.ruleengine.core.enums.Symbol;
+import com.zjb.ruleengine.core.exception.RuleExecuteException;
+import com.zjb.ruleengine.core.function.Deterministic;
 import com.zjb.ruleengine.core.function.Function;
+import com.zjb.ruleengine.core.rule.Rule;
 import com.zjb.ruleengine.core.value.*;
+import org.junit.Assert;
+import org.junit.Test;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +46,142 @@ public class VariableTest {
 
     }
 
+    /**
+     * 单个参数的函数
+     */
+    @Test
+    public void singleParameter() {
+        final FunctionHolder functionHolder = new FunctionHolder();
+        final Func func = new Func();
+        functionHolder.registerFunction(func);
+        final Map<String, Element> parameter = func.getParamters().stream().collect(Collectors.toMap(Function.Parameter::getName, para -> new Element(para.getDataTypeEnum(), "param")));
+        final Variable variable = new Variable(DataTypeEnum.STRING, new VariableFunction(func.getName(), parameter, functionHolder));
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("param", "input");
+        Assert.assertEquals("123input", variable.getValue(context));
+        //重新注册函数后使用新的函数
+        functionHolder.registerFunction(new ReplacedFunc());
+        Assert.assertEquals("456input", variable.getValue(context));
+    }
+
+    /**
+     * POJO参数的函数，缺少的参数为null
+     */
+    @Test
+    public void pojoParameter() {
+        final FunctionHolder functionHolder = new FunctionHolder();
+        functionHolder.registerFunction(new Concat());
+        final Map<String, Value> parameter = new HashMap<>();
+        parameter.put("left", Element.stringValue("left"));
+        parameter.put("right", Constant.stringValue("-right"));
+        final Variable variable = new Variable(DataTypeEnum.STRING, new VariableFunction(Concat.class.getSimpleName(), parameter, functionHolder));
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("left", "left");
+        Assert.assertEquals("left-right", variable.getValue(context));
+        parameter.remove("right");
+        final Variable missing = new Variable(DataTypeEnum.STRING, new VariableFunction(Concat.class.getSimpleName(), parameter, functionHolder));
+        Assert.assertEquals("leftnull", missing.getValue(context));
+    }
+
+    /**
+     * 确定的函数在一次执行中只调用一次
+     */
+    @Test
+    public void deterministicMemo() {
+        final FunctionHolder functionHolder = new FunctionHolder();
+        final CountFunc func = new CountFunc();
+        functionHolder.registerFunction(func);
+        final Map<String, Value> parameter = new HashMap<>();
+        parameter.put(func.getParamters().get(0).getName(), Element.stringValue("param"));
+        final Variable first = Variable.stringValue(new VariableFunction(CountFunc.class.getSimpleName(), parameter, functionHolder));
+        final Variable second = Variable.stringValue(new VariableFunction(CountFunc.class.getSimpleName(), new HashMap<>(parameter), functionHolder));
+        final ConditionGroup condition = new ConditionGroup(Lists.newArrayList(
+                new DefaultCondition(first, Symbol.str_eq, Constant.stringValue("input")),
+                new DefaultCondition(second, Symbol.str_ne, Constant.stringValue("other"))));
+        final Rule rule = new Rule("memo", condition, Constant.stringValue("hit"));
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("param", "input");
+        CountFunc.COUNT.set(0);
+        Assert.assertEquals("hit", rule.execute(context));
+        Assert.assertEquals(1, CountFunc.COUNT.get());
+        //缓存只在一次执行中有效
+        Assert.assertNull(context.getMemo());
+        Assert.assertEquals("hit", rule.execute(context));
+        Assert.assertEquals(2, CountFunc.COUNT.get());
+        //不在规则执行中时不缓存
+        first.getValue(context);
+        Assert.assertEquals(3, CountFunc.COUNT.get());
+    }
+
+    /**
+     * 函数抛出的异常包装为RuleExecuteException，Error原样抛出
+     */
+    @Test
+    public void errorNotWrapped() {
+        final FunctionHolder functionHolder = new FunctionHolder();
+        functionHolder.registerFunction(new ThrowFunc());
+        final Map<String, Value> parameter = new HashMap<>();
+        parameter.put(new ThrowFunc().getParamters().get(0).getName(), Element.stringValue("param"));
+        final Variable variable = Variable.stringValue(new VariableFunction(ThrowFunc.class.getSimpleName(), parameter, functionHolder));
+        final BaseContextImpl context = new BaseContextImpl();
+        context.put("param", "exception");
+        try {
+            variable.getValue(context);
+            Assert.fail();
+        } catch (RuleExecuteException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        context.put("param", "error");
+        try {
+            variable.getValue(context);
+            Assert.fail();
+        } catch (StackOverflowError e) {
+            Assert.assertEquals("error", e.getMessage());
+        }
+    }
+
+    /**
+     * 参数为exception时抛出异常，为error时抛出Error的function
+     */
+    public static class ThrowFunc extends Function<String, String> {
+        @Override
+        public String execute(String param) {
+            if ("error".equals(param)) {
+                throw new StackOverflowError(param);
+            }
+            throw new IllegalStateException(param);
+        }
+    }
+
+    /**
+     * 记录调用次数的确定性function
+     */
+    @Deterministic
+    public static class CountFunc extends Function<String, String> {
+        static final AtomicInteger COUNT = new AtomicInteger();
+
+        @Override
+        public String execute(String param) {
+            COUNT.incrementAndGet();
+            return param;
+        }
+    }
+
+    /**
+     * POJO参数的function, 返回 left+right
+     */
+    public static class Concat extends Function<Concat.Parameter, String> {
+        @Override
+        public String execute(Parameter param) {
+            return param.left + param.right;
+        }
+
+        public static class Parameter {
+            private String left;
+            private String right;
+        }
+    }
+
     /**
      * function, 返回 “123”+参数
      */
@@ -48,4 +193,29 @@ public class VariableTest {
     }
 
 
+
+    /**
+     * 替换{@link Func}的function, 返回 “456”+参数
+     */
+    public static class ReplacedFunc extends Func {
+        @Override
+        public String execute(String param) {
+            return "456" + param;
+        }
+
+        @Override
+        public String getName() {
+            return Func.class.getSimpleName();
+        }
+
+        @Override
+        public Class getParameterClass() {
+            return String.class;
+        }
+
+        @Override
+        public Class getResultClass() {
+            return String.class;
+        }
+    }
 }